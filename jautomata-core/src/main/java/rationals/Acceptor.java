@@ -53,4 +53,12 @@ public interface Acceptor<L> {
      */
     Set<State> steps(List<L> word);
 
+    /**
+     * Starts reading a word one label at a time. The returned session does
+     * not reflect modifications of this acceptor made after its creation.
+     * 
+     * @return a new Session positioned on the initial states.
+     */
+    Session<L> session();
+
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The transitions adjacent to a single state, indexed by symbol.
+ * <p>
+ * This set is used by {@link Automaton} to store both outgoing and incoming
+ * transitions of each state. It is read-only for clients: iteration and
+ * membership tests are proportional to the degree of the state and do not
+ * copy anything.
+ */
+class Adjacency<L> extends AbstractSet<Transition<L>> {
+
+	private final Alphabet<L> symbols;
+
+	private final Map<Integer, Set<Transition<L>>> bySymbol = new HashMap<>(4);
+
+	private int size;
+
+	Adjacency(Alphabet<L> symbols) {
+		this.symbols = symbols;
+	}
+
+	/*
+	 * add a transition under given symbol
+	 */
+	boolean put(int symbol, Transition<L> t) {
+		Set<Transition<L>> s = bySymbol.get(symbol);
+		if (s == null) {
+			s = new HashSet<>(2);
+			bySymbol.put(symbol, s);
+		}
+		if (!s.add(t))
+			return false;
+		size++;
+		return true;
+	}
+
+	/*
+	 * remove a transition stored under given symbol
+	 */
+	boolean remove(int symbol, Transition<L> t) {
+		Set<Transition<L>> s = bySymbol.get(symbol);
+		if (s == null || !s.remove(t))
+			return false;
+		if (s.isEmpty())
+			bySymbol.remove(symbol);
+		size--;
+		return true;
+	}
+
+	/*
+	 * the live set of transitions with given symbol, or null
+	 */
+	Set<Transition<L>> get(int symbol) {
+		return bySymbol.get(symbol);
+	}
+
+	/*
+	 * the symbols of transitions in this set
+	 */
+	Set<Integer> symbols() {
+		return Collections.unmodifiableSet(bySymbol.keySet());
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Transition))
+			return false;
+		@SuppressWarnings("unchecked")
+		Transition<L> t = (Transition<L>) o;
+		int l = symbols.symbol(t.label());
+		if (l < 0)
+			return false;
+		Set<Transition<L>> s = bySymbol.get(l);
+		return s != null && s.contains(t);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<Transition<L>> iterator() {
+		final Iterator<Set<Transition<L>>> sets = bySymbol.values().iterator();
+		return new Iterator<Transition<L>>() {
+
+			private Iterator<Transition<L>> current = Collections.<Transition<L>> emptySet().iterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext()) {
+					if (!sets.hasNext())
+						return false;
+					current = sets.next().iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public Transition<L> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return current.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
@@ -0,0 +1,318 @@
+/*
+ * (C) Copyright 2001 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A symbol table mapping labels to dense integers.
+ * <p>
+ * Each automaton owns such a table which it uses to index its transitions.
+ * Symbol <code>0</code> is reserved for epsilon, ie. the <code>null</code>
+ * label, and other labels are numbered in order of first use starting from
+ * <code>1</code>. Symbols are never removed nor renumbered, so a table may be
+ * shared by several automata: all automata built with the same table agree on
+ * the symbol of each label and may be compared on symbols without hashing
+ * labels again.
+ * <p>
+ * Tables are not synchronized, but {@link #readOnly() read-only} copies may
+ * be shared by several threads. Automata derived from another one, by
+ * {@link Automaton#clone()} or transformations, get their own table unless a
+ * shared one is explicitly given.
+ *
+ * @version $Id$
+ * @see Automaton#symbols()
+ */
+public class Alphabet<L> {
+
+	/**
+	 * The symbol of epsilon, the <code>null</code> label.
+	 */
+	public static final int EPSILON = 0;
+
+	private final Map<L, Integer> symbols;
+
+	private final List<L> labels;
+
+	private final boolean readOnly;
+
+	public Alphabet() {
+		this.symbols = new HashMap<>();
+		this.labels = new ArrayList<>();
+		this.readOnly = false;
+		labels.add(null);
+	}
+
+	/**
+	 * Creates a copy of a table. The copy gives the same symbol to each label
+	 * of <code>other</code> and does not see labels later added to it.
+	 *
+	 * @param other
+	 *            the table to copy.
+	 */
+	public Alphabet(Alphabet<L> other) {
+		this(other, false);
+	}
+
+	private Alphabet(Alphabet<L> other, boolean readOnly) {
+		int n = other.size();
+		this.symbols = new HashMap<>(n * 4 / 3 + 1);
+		this.labels = new ArrayList<>(n);
+		this.readOnly = readOnly;
+		labels.add(null);
+		for (int i = 1; i < n; i++) {
+			L l = other.label(i);
+			symbols.put(l, i);
+			labels.add(l);
+		}
+	}
+
+	/*
+	 * for versions, which override all accessors
+	 */
+	private Alphabet(Map<L, Integer> symbols, List<L> labels) {
+		this.symbols = symbols;
+		this.labels = labels;
+		this.readOnly = true;
+	}
+
+	/**
+	 * Returns a read-only copy of this table. A read-only table is never
+	 * modified, so it may be shared by several threads, and
+	 * {@link #intern(Object)} throws
+	 * <code>UnsupportedOperationException</code> for labels which are not
+	 * part of it.
+	 *
+	 * @return a read-only copy of this table, or this table if it is
+	 *         already read-only.
+	 */
+	public Alphabet<L> readOnly() {
+		return readOnly ? this : new Alphabet<>(this, true);
+	}
+
+	/**
+	 * @return true if this table is read-only.
+	 * @see #readOnly()
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/*
+	 * Returns a persistent version of this table: a read-only table which
+	 * can be extended by with(L) without copying it.
+	 */
+	Alphabet<L> persistent() {
+		return new Store<>(this).version;
+	}
+
+	/*
+	 * Returns a persistent table giving the same symbols as this one to its
+	 * labels, and a symbol to given label.
+	 */
+	Alphabet<L> with(L label) {
+		return persistent().with(label);
+	}
+
+	/**
+	 * Returns the symbol of a label, allocating a new one if needed.
+	 *
+	 * @param label
+	 *            a label. May be null.
+	 * @return the symbol for <code>label</code>.
+	 * @throws UnsupportedOperationException
+	 *             if <code>label</code> is not part of this table and this
+	 *             table is read-only.
+	 */
+	public int intern(L label) {
+		if (label == null)
+			return EPSILON;
+		Integer i = symbols.get(label);
+		if (i == null) {
+			if (readOnly)
+				throw new UnsupportedOperationException("read-only symbol table");
+			i = labels.size();
+			symbols.put(label, i);
+			labels.add(label);
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the symbol of a label.
+	 *
+	 * @param label
+	 *            a label. May be null.
+	 * @return the symbol for <code>label</code> or -1 if this label is not
+	 *         part of this table.
+	 */
+	public int symbol(L label) {
+		if (label == null)
+			return EPSILON;
+		Integer i = symbols.get(label);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the label of a symbol.
+	 *
+	 * @param symbol
+	 *            a symbol lower than {@link #size()}.
+	 * @return a label, <code>null</code> for {@link #EPSILON}.
+	 */
+	public L label(int symbol) {
+		return labels.get(symbol);
+	}
+
+	/**
+	 * @return the number of symbols in this table, including epsilon.
+	 */
+	public int size() {
+		return labels.size();
+	}
+
+	@Override
+	public String toString() {
+		return labels.subList(1, labels.size()).toString();
+	}
+
+	/*
+	 * Labels shared by versions of a persistent table. Labels are only
+	 * appended, so a version sees the same symbols forever: it only needs
+	 * to know how many of them it sees.
+	 */
+	private static final class Store<L> {
+
+		final ConcurrentMap<L, Integer> symbols = new ConcurrentHashMap<>();
+
+		/* reassigned after each append to publish the new label */
+		private volatile Object[] labels;
+
+		/* guarded by this */
+		private int size;
+
+		final Version<L> version;
+
+		Store(Alphabet<L> from) {
+			int n = from.size();
+			Object[] ls = new Object[Math.max(16, n)];
+			for (int i = 1; i < n; i++) {
+				ls[i] = from.label(i);
+				symbols.put(from.label(i), i);
+			}
+			this.size = n;
+			this.labels = ls;
+			this.version = new Version<>(this, n);
+		}
+
+		@SuppressWarnings("unchecked")
+		L label(int symbol) {
+			return (L) labels[symbol];
+		}
+
+		/*
+		 * the version following given one with label, or null if given
+		 * version is not the last one
+		 */
+		synchronized Version<L> append(Version<L> v, L label) {
+			if (v.size != size)
+				return null;
+			Object[] ls = labels;
+			if (size == ls.length)
+				ls = Arrays.copyOf(ls, size * 2);
+			ls[size] = label;
+			labels = ls;
+			symbols.put(label, size);
+			return new Version<>(this, ++size);
+		}
+	}
+
+	/*
+	 * A read-only table seeing the first symbols of a store.
+	 */
+	private static final class Version<L> extends Alphabet<L> {
+
+		private final Store<L> store;
+
+		private final int size;
+
+		Version(Store<L> store, int size) {
+			super(null, null);
+			this.store = store;
+			this.size = size;
+		}
+
+		@Override
+		Alphabet<L> persistent() {
+			return this;
+		}
+
+		/*
+		 * only the last version of a store is extended in place, others
+		 * start a new store
+		 */
+		@Override
+		Alphabet<L> with(L label) {
+			if (symbol(label) >= 0)
+				return this;
+			Version<L> v = store.append(this, label);
+			return v != null ? v : new Store<>(this).version.with(label);
+		}
+
+		@Override
+		public int intern(L label) {
+			int i = symbol(label);
+			if (i < 0)
+				throw new UnsupportedOperationException("read-only symbol table");
+			return i;
+		}
+
+		@Override
+		public int symbol(L label) {
+			if (label == null)
+				return EPSILON;
+			Integer i = store.symbols.get(label);
+			return i == null || i >= size ? -1 : i;
+		}
+
+		@Override
+		public L label(int symbol) {
+			if (symbol >= size)
+				throw new IndexOutOfBoundsException("no symbol " + symbol);
+			return store.label(symbol);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			List<L> l = new ArrayList<>(size - 1);
+			for (int i = 1; i < size; i++)
+				l.add(store.label(i));
+			return l.toString();
+		}
+	}
+}
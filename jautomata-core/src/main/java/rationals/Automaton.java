@@ -16,9 +16,9 @@
  */
 package rationals;
 
-import rationals.transformations.TransformationsToolBox;
-
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A class defining Automaton objects
@@ -75,33 +75,53 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	// transitions of this automaton.
 	protected Set<L> alphabet;
 
+	// The symbol table used to index transitions. May
+	// be shared with other automata.
+	private final Alphabet<L> symbols;
+
 	// The set of all states of this automaton.
-	private Set<State> states;
+	private final Set<State> states;
 
 	// the set of initial states
-	private Set<State> initials;
+	private final Set<State> initials;
 
 	// the set of terminal states
-	private Set<State> terminals;
+	private final Set<State> terminals;
 
 	// Allows access to transitions of this automaton
-	// starting from a given state and labelled by
-	// a given object. The keys of this map are instances
-	// of class Key and
-	// values are sets of transitions.
-	private Map<Key, Set<Transition<L>>> transitions;
+	// starting from a given state. The keys of this map
+	// are states and values are the state's outgoing
+	// transitions indexed by symbol.
+	private final Map<State, Adjacency<L>> transitions;
 
 	// Allows access to transitions of this automaton
-	// arriving to a given state and labelled by
-	// a given object. The keys of this map are instances
-	// of class Key and
-	// values are sets of transitions.
-	private Map<Key, Set<Transition<L>>> reverse;
+	// arriving to a given state. The keys of this map
+	// are states and values are the state's incoming
+	// transitions, reversed, indexed by symbol. This map
+	// is null until first needed, see reverse().
+	private volatile Map<State, Adjacency<L>> reverse;
+
+	// number of epsilon transitions in this automaton
+	private int epsilons;
+
+	// memoized epsilon closures of single states, filled
+	// by queries and cleared by changes to epsilon
+	// transitions. This is a concurrent map as queries
+	// may run in several threads.
+	private final ConcurrentMap<State, Set<State>> closures = new ConcurrentHashMap<>();
+
+	// number of structural modifications of this automaton,
+	// see version()
+	private int modCount;
+
+	// derived properties computed for a given version, see
+	// getProperty()
+	private volatile PropertyCache cache;
 
 	// bonte
 	private StateFactory stateFactory = new DefaultStateFactory(this);
 
-    private StateLabels stateLabels = new StateLabels();
+    private final StateLabels stateLabels = new StateLabels();
     
 	/**
 	 * @return
@@ -195,14 +215,41 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 *            the StateFactory object to use for creating new states. May be
 	 *            null.
 	 */
+	@SuppressWarnings("unchecked")
 	public Automaton(StateFactory sf) {
+		this(sf, null);
+	}
+
+	/**
+	 * Create a new empty automaton with given state factory and symbol table.
+	 * 
+	 * @param sf
+	 *            the StateFactory object to use for creating new states. May be
+	 *            null.
+	 * @param symbols
+	 *            the symbol table to use for labels, possibly shared with
+	 *            other automata. May be null, in which case a new table is
+	 *            created.
+	 */
+	public Automaton(StateFactory<L, Tr, T> sf, Alphabet<L> symbols) {
+		this(sf, symbols, 0);
+	}
+
+	/*
+	 * Creates an empty automaton whose transition map is sized up front for
+	 * given number of states, as used for bulk loading.
+	 */
+	Automaton(StateFactory<L, Tr, T> sf, Alphabet<L> symbols, int expectedStates) {
 		this.stateFactory = sf == null ? new DefaultStateFactory(this) : sf;
+		if (sf != null)
+			sf.setAutomaton(this);
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
 		alphabet = new HashSet<>();
 		states = stateFactory.stateSet();
 		initials = stateFactory.stateSet();
 		terminals = stateFactory.stateSet();
-		transitions = new HashMap<>();
-		reverse = new HashMap<>();
+		transitions = expectedStates > 0 ? new HashMap<State, Adjacency<L>>(expectedStates * 4 / 3 + 1)
+				: new HashMap<State, Adjacency<L>>();
 	}
 
 	/**
@@ -221,7 +268,11 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see Transition
 	 */
 	public State addState(boolean initial, boolean terminal) {
+		return newState(initial, terminal);
+	}
 
+	private State newState(boolean initial, boolean terminal) {
+		modCount++;
 		State state = stateFactory.create(initial, terminal);
 		if (initial)
 			initials.add(state);
@@ -231,6 +282,51 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return state;
 	}
 
+	/*
+	 * a typed array of adjacencies
+	 */
+	@SuppressWarnings("unchecked")
+	private static <L> Adjacency<L>[] adjacencies(int n) {
+		return (Adjacency<L>[]) new Adjacency<?>[n];
+	}
+
+	/*
+	 * Bulk loading used by AutomatonLoader: adds n new states and m
+	 * transitions given as indices into the new states and symbols of this
+	 * automaton's table. Indices are assumed to be valid.
+	 */
+	State[] load(int n, BitSet init, BitSet term, int[] src, int[] lbl, int[] dst, int m) {
+		State[] st = new State[n];
+		for (int i = 0; i < n; i++)
+			st[i] = newState(init.get(i), term.get(i));
+		Adjacency<L>[] adjs = adjacencies(n);
+		boolean[] used = new boolean[symbols.size()];
+		Map<State, Adjacency<L>> rev = reverse;
+		for (int k = 0; k < m; k++) {
+			int l = lbl[k];
+			Transition<L> t = new Transition<>(st[src[k]], symbols.label(l), st[dst[k]]);
+			Adjacency<L> adj = adjs[src[k]];
+			if (adj == null)
+				adj = adjs[src[k]] = new Adjacency<>(symbols);
+			if (!adj.put(l, t))
+				continue;
+			used[l] = true;
+			if (l == Alphabet.EPSILON)
+				epsilons++;
+			if (rev != null)
+				add(rev, new Transition<>(t.end(), t.label(), t.start()));
+		}
+		if (used[Alphabet.EPSILON])
+			closures.clear();
+		for (int l = 0; l < used.length; l++)
+			if (used[l])
+				alphabet.add(symbols.label(l));
+		for (int i = 0; i < n; i++)
+			if (adjs[i] != null)
+				transitions.put(st[i], adjs[i]);
+		return st;
+	}
+
 	/**
 	 * Returns the alphabet <em>X</em> associated with this automaton.
 	 * 
@@ -241,6 +337,17 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return alphabet;
 	}
 
+	/**
+	 * Returns the symbol table used by this automaton to index its
+	 * transitions. The table may contain labels which are not part of
+	 * {@link #alphabet()} if it is shared with other automata.
+	 * 
+	 * @return the symbol table of this automaton.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
 	/**
 	 * Returns the set of states <em>Q</em> associated with this automaton.
 	 * 
@@ -282,25 +389,18 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	// Computes and return the set of all accessible states, starting
 	// from a given set of states and using transitions
 	// contained in a given Map
-	protected Set<State> access(Set<State> start, Map<Key, Set<Transition<L>>> map) {
-		Set<State> current = start;
-		Set<State> old;
-		do {
-			old = current;
-			current = stateFactory.stateSet();
-			Iterator<State> i = old.iterator();
-			while (i.hasNext()) {
-				State e = i.next();
-				current.add(e);
-				Iterator<L> j = alphabet.iterator();
-				while (j.hasNext()) {
-					Iterator<Transition<L>> k = find(map, e, j.next()).iterator();
-					while (k.hasNext()) {
-						current.add(k.next().end());
-					}
-				}
-			}
-		} while (current.size() != old.size());
+	protected Set<State> access(Set<State> start, Map<State, Adjacency<L>> map) {
+		Set<State> current = getStateFactory().stateSet();
+		current.addAll(start);
+		LinkedList<State> todo = new LinkedList<>(current);
+		while (!todo.isEmpty()) {
+			Adjacency<L> adj = map.get(todo.removeFirst());
+			if (adj == null)
+				continue;
+			for (Transition<L> tr : adj)
+				if (current.add(tr.end()))
+					todo.add(tr.end());
+		}
 		return current;
 	}
 
@@ -313,8 +413,12 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 *         instances of class <tt>State</tt>.
 	 * @see State
 	 */
+	@SuppressWarnings("unchecked")
 	public Set<State> accessibleStates() {
-		return access(initials, transitions);
+		Set<State> acc = (Set<State>) getProperty(ACCESSIBLE);
+		if (acc == null)
+			setProperty(ACCESSIBLE, acc = access(initials, transitions));
+		return getStateFactory().stateSet(acc);
 	}
 
 	/**
@@ -335,7 +439,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see rationals.Rational#accessibleStates(rationals.State)
 	 */
 	public Set<State> accessibleStates(State state) {
-		Set<State> s = stateFactory.stateSet();
+		Set<State> s = getStateFactory().stateSet();
 		s.add(state);
 		return access(s, transitions);
 	}
@@ -350,7 +454,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return a - possibly empty - set of coaccessible states
 	 */
 	public Set<State> coAccessibleStates(Set<State> states) {
-		return access(states, reverse);
+		return access(states, reverse());
 	}
 
 	/**
@@ -363,7 +467,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see State
 	 */
 	public Set<State> coAccessibleStates() {
-		return access(terminals, reverse);
+		return access(terminals, reverse());
 	}
 
 	/**
@@ -385,25 +489,61 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	}
 
 	// Computes and return the set of all transitions, starting
-	// from a given state and labelled by a given label
+	// from a given state and labelled by a given symbol
 	// contained in a given Map
-	protected Set<Transition<L>> find(Map<Key, Set<Transition<L>>> m, State e, L l) {
-		Key n = new Key(e, l);
-		if (!m.containsKey(n))
+	protected Set<Transition<L>> find(Map<State, Adjacency<L>> m, State e, int l) {
+		Adjacency<L> adj = l < 0 ? null : m.get(e);
+		Set<Transition<L>> s = adj == null ? null : adj.get(l);
+		if (s == null)
 			return new HashSet<Transition<L>>();
-		return m.get(n);
+		return s;
 	}
 
 	// add a given transition in a given Map
-	protected void add(Map<Key, Set<Transition<L>>> m, Transition<L> t) {
-		Key n = new Key(t.start(), t.label());
-		Set<Transition<L>> s;
-		if (!m.containsKey(n)) {
-			s = new HashSet<>();
-			m.put(n, s);
-		} else
-			s = m.get(n);
-		s.add(t);
+	protected boolean add(Map<State, Adjacency<L>> m, Transition<L> t) {
+		Adjacency<L> adj = m.get(t.start());
+		if (adj == null) {
+			adj = new Adjacency<>(symbols);
+			m.put(t.start(), adj);
+		}
+		return adj.put(symbols.intern(t.label()), t);
+	}
+
+	/*
+	 * The reverse index is only needed by backward traversals, so it is built
+	 * from the forward map on first use and maintained by mutators afterwards.
+	 * The index is built under a lock and published through a volatile field
+	 * once complete, so that concurrent queries of an automaton which is not
+	 * being modified do not race on its construction.
+	 */
+	private Map<State, Adjacency<L>> reverse() {
+		Map<State, Adjacency<L>> r = reverse;
+		if (r != null)
+			return r;
+		synchronized (transitions) {
+			r = reverse;
+			if (r == null) {
+				r = new HashMap<>();
+				for (Adjacency<L> adj : transitions.values())
+					for (int l : adj.symbols())
+						for (Transition<L> t : adj.get(l)) {
+							Adjacency<L> rev = r.get(t.end());
+							if (rev == null) {
+								rev = new Adjacency<>(symbols);
+								r.put(t.end(), rev);
+							}
+							rev.put(l, new Transition<>(t.end(), t.label(), t.start()));
+						}
+				reverse = r;
+			}
+		}
+		return r;
+	}
+
+	// remove a given transition from a given Map
+	protected boolean remove(Map<State, Adjacency<L>> m, Transition<L> t) {
+		Adjacency<L> adj = m.get(t.start());
+		return adj != null && adj.remove(symbols.intern(t.label()), t);
 	}
 
 	/**
@@ -412,14 +552,89 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return the set of all transitions of this automaton Objects which are
 	 *         contained in this set are instances of class <tt>Transition</tt>.
 	 * @see Transition
+	 * @see #transitions()
 	 */
 	public Set<Transition<L>> delta() {
 		Set<Transition<L>> s = new HashSet<>();
-		for (Set<Transition<L>> tr : transitions.values())
+		for (Adjacency<L> tr : transitions.values())
 			s.addAll(tr);
 		return s;
 	}
 
+	/**
+	 * Visits all transitions of this automaton, grouped by start state. This
+	 * method does not copy transitions, contrary to {@link #delta()}.
+	 * 
+	 * @param visitor
+	 *            the visitor to call for each transition. It must not modify
+	 *            this automaton.
+	 */
+	public void forEachTransition(TransitionVisitor<L> visitor) {
+		for (Adjacency<L> adj : transitions.values())
+			for (Transition<L> t : adj)
+				visitor.visit(t);
+	}
+
+	/**
+	 * Returns all transitions of this automaton. Contrary to {@link #delta()},
+	 * the returned collection is not a copy: it cannot be modified, reflects
+	 * later changes in this automaton and its iterators fail if this automaton
+	 * gets modified during iteration.
+	 * 
+	 * @return an unmodifiable view of the transitions of this automaton.
+	 */
+	public Collection<Transition<L>> transitions() {
+		return new AbstractCollection<Transition<L>>() {
+
+			@Override
+			public Iterator<Transition<L>> iterator() {
+				final Iterator<Adjacency<L>> adjs = transitions.values().iterator();
+				return new Iterator<Transition<L>>() {
+
+					private Iterator<Transition<L>> current = Collections.<Transition<L>> emptySet().iterator();
+
+					@Override
+					public boolean hasNext() {
+						while (!current.hasNext()) {
+							if (!adjs.hasNext())
+								return false;
+							current = adjs.next().iterator();
+						}
+						return true;
+					}
+
+					@Override
+					public Transition<L> next() {
+						if (!hasNext())
+							throw new NoSuchElementException();
+						return current.next();
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof Transition))
+					return false;
+				Adjacency<L> adj = transitions.get(((Transition<?>) o).start());
+				return adj != null && adj.contains(o);
+			}
+
+			@Override
+			public int size() {
+				int n = 0;
+				for (Adjacency<L> adj : transitions.values())
+					n += adj.size();
+				return n;
+			}
+		};
+	}
+
 	/**
 	 * Returns the set of all transitions of this automaton starting from a
 	 * given state and labelled b a given label.
@@ -434,7 +649,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see Transition
 	 */
 	public Set<Transition<L>> delta(State state, L label) {
-		return find(transitions, state, label);
+		return find(transitions, state, symbols.symbol(label));
 	}
 
 	/**
@@ -449,12 +664,10 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<Transition<L>> deltaFrom(State from, State to) {
-		Set<Transition<L>> t = delta(from);
-		for (Iterator<Transition<L>> i = t.iterator(); i.hasNext();) {
-			Transition<L> tr = i.next();
-			if (!to.equals(tr.end()))
-				i.remove();
-		}
+		Set<Transition<L>> t = new HashSet<>();
+		for (Transition<L> tr : deltaView(from))
+			if (to.equals(tr.end()))
+				t.add(tr);
 		return t;
 	}
 
@@ -464,12 +677,26 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @param state
 	 *            start state
 	 * @return a new Set of transitions (maybe empty)
+	 * @see #deltaView(State)
 	 */
 	public Set<Transition<L>> delta(State state) {
-		Set<Transition<L>> s = new HashSet<>();
-		for (L lt : alphabet)
-			s.addAll(delta(state, lt));
-		return s;
+		return new HashSet<>(deltaView(state));
+	}
+
+	/**
+	 * Return all transitions from a State. Contrary to {@link #delta(State)},
+	 * the returned set is not a copy: it cannot be modified and reflects
+	 * later changes in this automaton.
+	 * 
+	 * @param state
+	 *            start state
+	 * @return an unmodifiable Set of transitions (maybe empty)
+	 */
+	public Set<Transition<L>> deltaView(State state) {
+		Adjacency<L> adj = transitions.get(state);
+		if (adj == null)
+			return Collections.emptySet();
+		return adj;
 	}
 
 	/**
@@ -482,7 +709,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	public Set<Transition<L>> delta(Set<State> s) {
 		Set<Transition<L>> ds = new HashSet<>();
 		for (State st : s)
-			ds.addAll(delta(st));
+			ds.addAll(deltaView(st));
 		return ds;
 	}
 
@@ -493,18 +720,12 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return a Map
 	 */
 	public Map<Couple, Set<Transition<L>>> couples() {
-		// loop on transition map keys
-		Iterator<Map.Entry<Key, Set<Transition<L>>>> it = transitions.entrySet().iterator();
 		Map<Couple, Set<Transition<L>>> ret = new HashMap<>();
-		while (it.hasNext()) {
-			Map.Entry<Key, Set<Transition<L>>> e = it.next();
-			// get start and end state
-			State st = e.getKey().s;
-			Iterator<Transition<L>> trans = e.getValue().iterator();
-			while (trans.hasNext()) {
-				Transition<L> tr = trans.next();
-				State nd = tr.end();
-				Couple cpl = new Couple(st, nd);
+		// loop on transition map
+		for (Adjacency<L> adj : transitions.values()) {
+			for (Transition<L> tr : adj) {
+				// get start and end state
+				Couple cpl = new Couple(tr.start(), tr.end());
 				Set<Transition<L>> s = ret.get(cpl);
 				if (s == null)
 					s = new HashSet<>();
@@ -527,7 +748,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<Transition<L>> deltaMinusOne(State state, L label) {
-		return find(reverse, state, label);
+		return find(reverse(), state, symbols.symbol(label));
 	}
 
 	/**
@@ -548,11 +769,19 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		if (!states.contains(transition.start())
 				|| !states.contains(transition.end()))
 			throw new NoSuchStateException();
+		modCount++;
 		if (!alphabet.contains(transition.label())) {
 			alphabet.add(transition.label());
 		}
-		add(transitions, transition);
-		add(reverse, new Transition<>(transition.end(), transition.label(), transition.start()));
+		if (!add(transitions, transition))
+			return;
+		if (transition.label() == null) {
+			epsilons++;
+			closures.clear();
+		}
+		Map<State, Adjacency<L>> rev = reverse;
+		if (rev != null)
+			add(rev, new Transition<>(transition.end(), transition.label(), transition.start()));
 	}
 
 	/**
@@ -564,28 +793,24 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 *            the alphabet to project on
 	 */
 	public void projectOn(Set<?> alph) {
+		modCount++;
 		// remove unwanted transitions from ret
-		Iterator<Map.Entry<Key, Set<Transition<L>>>> trans = transitions.entrySet().iterator();
-		Set<Transition<L>> newtrans = new HashSet<>();
-		while (trans.hasNext()) {
-			Map.Entry<Key, Set<Transition<L>>> entry = trans.next();
-			Key k = entry.getKey();
-			Iterator<Transition<L>> tit = entry.getValue().iterator();
-			while (tit.hasNext()) {
-				Transition<?> tr = tit.next();
-				if (!alph.contains(k.l)) {
-					// create epsilon transition
-					newtrans.add(new Transition<L>(k.s, null, tr.end()));
-					// remove transition
-					tit.remove();
-				}
-			}
-		}
-		// add newly created transitions
-		if (!newtrans.isEmpty()) {
-			for (Transition<L> tr : newtrans) {
-				add(transitions, tr);
-				add(reverse, new Transition<>(tr.end(), tr.label(), tr.start()));
+		List<Transition<L>> oldtrans = new ArrayList<>();
+		for (Adjacency<L> adj : transitions.values())
+			for (int l : adj.symbols())
+				if (l != Alphabet.EPSILON && !alph.contains(symbols.label(l)))
+					oldtrans.addAll(adj.get(l));
+		// replace them with epsilon transitions
+		Map<State, Adjacency<L>> rev = reverse;
+		for (Transition<L> tr : oldtrans) {
+			remove(transitions, tr);
+			Transition<L> eps = new Transition<L>(tr.start(), null, tr.end());
+			if (add(transitions, eps))
+				epsilons++;
+			closures.clear();
+			if (rev != null) {
+				remove(rev, new Transition<>(tr.end(), tr.label(), tr.start()));
+				add(rev, new Transition<>(eps.end(), eps.label(), eps.start()));
 			}
 		}
 		// remove alphabet
@@ -607,15 +832,28 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * returns a copy of this automaton.
 	 * 
 	 * @return a copy of this automaton with new instances of states and
-	 *         transitions.
+	 *         transitions, and its own symbol table.
 	 */
 	@Override
 	public Automaton<L, Tr, T> clone() {
-		Automaton<L, Tr, T> b = new Automaton<L, Tr, T>();
+		return clone(null);
+	}
+
+	/**
+	 * returns a copy of this automaton using given symbol table.
+	 * 
+	 * @param symbols
+	 *            the symbol table of the copy, possibly shared with other
+	 *            automata. May be null, in which case a new table is created.
+	 * @return a copy of this automaton with new instances of states and
+	 *         transitions.
+	 */
+	public Automaton<L, Tr, T> clone(Alphabet<L> symbols) {
+		Automaton<L, Tr, T> b = new Automaton<L, Tr, T>(null, symbols);
 		Map<State, State> map = new HashMap<>();
 		for (State e : states)
 			map.put(e, b.addState(e.isInitial(), e.isTerminal()));
-		for (Transition<L> t : delta()) {
+		for (Transition<L> t : transitions()) {
 			try {
 				b.addTransition(new Transition<>(map.get(t.start()), t.label(), map.get(t.end())));
 			} catch (NoSuchStateException x) {
@@ -624,6 +862,320 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return b;
 	}
 
+	/**
+	 * Returns an immutable copy of this automaton which can be shared by
+	 * several threads.
+	 * <p>
+	 * The returned automaton has the same alphabet, states and transitions as
+	 * this automaton at the time of the call, but its own state objects and a
+	 * {@link Alphabet#readOnly() read-only} copy of the symbol table, so that
+	 * no mutable structure is shared with this automaton. Its reverse index
+	 * and epsilon closures are computed eagerly and all the state its queries
+	 * read is reached through final fields: queries take no lock, write to no
+	 * field apart from the thread-safe caches of derived properties and
+	 * epsilon closures, and are safe to call concurrently however the copy is
+	 * handed to other threads. Methods which would modify
+	 * the copy, including {@link State#setInitial(boolean)} and
+	 * {@link State#setTerminal(boolean)} on its states, throw
+	 * <code>UnsupportedOperationException</code>. State labels are not copied.
+	 * 
+	 * @return a read-only copy of this automaton, or this automaton if it is
+	 *         already read-only.
+	 */
+	public Automaton<L, Tr, T> readOnly() {
+		return new ReadOnly<>(this);
+	}
+
+	/**
+	 * @return true if this automaton has been created by {@link #readOnly()}.
+	 */
+	public boolean isReadOnly() {
+		return false;
+	}
+
+	/**
+	 * Returns the number of structural modifications of this automaton.
+	 * <p>
+	 * The version is incremented by {@link #addState(boolean, boolean)},
+	 * {@link #addTransition(Transition)}, {@link #projectOn(Set)},
+	 * {@link #updateTransitionWith(Transition, Object)} and changes of the
+	 * initial or terminal status of states created by the default state
+	 * factories. Changes made directly to the sets returned by
+	 * {@link #initials()} or {@link #terminals()} are not tracked.
+	 * 
+	 * @return the current version of this automaton.
+	 */
+	public int version() {
+		return modCount;
+	}
+
+	/*
+	 * Called by states when their initial or terminal status changes.
+	 */
+	void modified() {
+		modCount++;
+	}
+
+	/**
+	 * Returns a derived property of this automaton previously stored with
+	 * {@link #setProperty(Object, Object)}, provided the automaton has not
+	 * been modified since.
+	 * <p>
+	 * This is used by tests and transformations such as
+	 * {@link rationals.properties.IsDeterministic} or
+	 * {@link rationals.transformations.Reducer} to compute their result once
+	 * per {@link #version()}. Stored values are shared and should not be
+	 * modified.
+	 * 
+	 * @param key
+	 *            the key of the property, usually the class computing it.
+	 * @return the value stored for <code>key</code> at the current version,
+	 *         or null.
+	 */
+	public Object getProperty(Object key) {
+		PropertyCache c = cache;
+		if (c == null || c.version != version())
+			return null;
+		return c.values.get(key);
+	}
+
+	/**
+	 * Stores a derived property of this automaton for its current version.
+	 * All stored properties are dropped by the next modification of this
+	 * automaton.
+	 * 
+	 * @param key
+	 *            the key of the property, usually the class computing it.
+	 * @param value
+	 *            the non null value of the property.
+	 */
+	public void setProperty(Object key, Object value) {
+		PropertyCache c = cache;
+		if (c == null || c.version != version())
+			cache = c = new PropertyCache(version());
+		c.values.put(key, value);
+	}
+
+	/*
+	 * properties computed for a version of an automaton
+	 */
+	private static final class PropertyCache {
+
+		final int version;
+
+		final Map<Object, Object> values = new ConcurrentHashMap<>();
+
+		PropertyCache(int version) {
+			this.version = version;
+		}
+	}
+
+	// key of the cached set of accessible states
+	private static final Object ACCESSIBLE = new Object();
+
+	// key of the cached frozen form used by sessions
+	private static final Object FROZEN = new Object();
+
+	/*
+	 * precompute lazily built structures
+	 */
+	private void prepare() {
+		reverse();
+		if (epsilons == 0)
+			return;
+		for (Map.Entry<State, Adjacency<L>> e : transitions.entrySet())
+			if (e.getValue().get(Alphabet.EPSILON) != null)
+				closures.put(e.getKey(), closure(e.getKey()));
+	}
+
+	/*
+	 * The copy returned by readOnly(). Queries only read final fields of
+	 * Automaton and the final fields below, through the accessors overridden
+	 * here, so that the copy may be published without synchronization.
+	 */
+	private static final class ReadOnly<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends Automaton<L, Tr, T> {
+
+		private final Set<L> alphabetView;
+
+		private final Set<State> statesView;
+
+		private final Set<State> initialsView;
+
+		private final Set<State> terminalsView;
+
+		private final StateFactory<L, Tr, T> factory;
+
+		private final int version;
+
+		private final boolean epsilonTransitions;
+
+		ReadOnly(Automaton<L, Tr, T> a) {
+			super(null, a.symbols().readOnly(), a.states().size());
+			@SuppressWarnings("unchecked")
+			StateFactory<L, Tr, T> sf = super.getStateFactory();
+			this.factory = sf;
+			FrozenAutomaton<L> f = a.freeze();
+			int m = f.transitionCount();
+			int[] src = new int[m];
+			int[] lbl = new int[m];
+			int[] dst = new int[m];
+			for (int q = 0, k = 0; q < f.stateCount(); q++)
+				for (int i = f.outStart(q); i < f.outEnd(q); i++, k++) {
+					src[k] = q;
+					lbl[k] = f.outLabel(i);
+					dst[k] = f.target(i);
+				}
+			load(f.stateCount(), f.initials(), f.terminals(), src, lbl, dst, m);
+			this.version = super.version();
+			this.epsilonTransitions = super.hasEpsilonTransitions();
+			/* keep labels of transition-less alphabet */
+			alphabet.addAll(a.alphabet());
+			((Automaton<L, Tr, T>) this).prepare();
+			this.alphabetView = Collections.unmodifiableSet(alphabet);
+			this.statesView = Collections.unmodifiableSet(super.states());
+			this.initialsView = Collections.unmodifiableSet(super.initials());
+			this.terminalsView = Collections.unmodifiableSet(super.terminals());
+		}
+
+		@Override
+		public StateFactory<L, Tr, T> getStateFactory() {
+			return factory;
+		}
+
+		@Override
+		public int version() {
+			return version;
+		}
+
+		@Override
+		public boolean hasEpsilonTransitions() {
+			return epsilonTransitions;
+		}
+
+		@Override
+		public Automaton<L, Tr, T> readOnly() {
+			return this;
+		}
+
+		@Override
+		public boolean isReadOnly() {
+			return true;
+		}
+
+		@Override
+		public Set<L> alphabet() {
+			return alphabetView;
+		}
+
+		@Override
+		public Set<State> states() {
+			return statesView;
+		}
+
+		@Override
+		public Set<State> initials() {
+			return initialsView;
+		}
+
+		@Override
+		public Set<State> terminals() {
+			return terminalsView;
+		}
+
+		@Override
+		public void setId(Object id) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		/* raw as declared by StateMachine */
+		@Override
+		public void setStateFactory(@SuppressWarnings("rawtypes") StateFactory factory) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		@Override
+		public State addState(boolean initial, boolean terminal) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		@Override
+		public void addTransition(Transition<L> transition) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		@Override
+		public void projectOn(Set<?> alph) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		@Override
+		public void updateTransitionWith(Transition<L> tr, L msg) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		@Override
+		public State state(L label) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+
+		@Override
+		public void setBuilder(Builder<L, Tr, T> t) {
+			throw new UnsupportedOperationException("read-only automaton");
+		}
+	}
+
+	/**
+	 * Computes size and structure statistics of this automaton. This takes
+	 * time linear in the size of this automaton and does not build any
+	 * lazily computed structure.
+	 *
+	 * @return a new AutomatonStats.
+	 */
+	public AutomatonStats stats() {
+		return new AutomatonStats(states(), alphabet().size(), transitions, reverse, stateLabels.size());
+	}
+
+	/**
+	 * Returns a compact read-only view of this automaton. The returned object
+	 * does not reflect later modifications of this automaton and uses a
+	 * read-only copy of its symbol table, so that it may be queried by
+	 * several threads while this automaton interns new labels.
+	 *
+	 * @return a new FrozenAutomaton whose state <code>i</code> is the
+	 *         <code>i</code>-th state of {@link #states()}.
+	 * @see FrozenAutomaton
+	 */
+	public FrozenAutomaton<L> freeze() {
+		int n = states.size();
+		Map<State, Integer> ids = new HashMap<>(n * 2);
+		BitSet init = new BitSet(n);
+		BitSet term = new BitSet(n);
+		for (State s : states) {
+			int i = ids.size();
+			ids.put(s, i);
+			if (initials.contains(s))
+				init.set(i);
+			if (terminals.contains(s))
+				term.set(i);
+		}
+		int m = transitions().size();
+		int[] src = new int[m];
+		int[] lbl = new int[m];
+		int[] dst = new int[m];
+		int k = 0;
+		for (Map.Entry<State, Adjacency<L>> e : transitions.entrySet()) {
+			int s = ids.get(e.getKey());
+			for (int l : e.getValue().symbols()) {
+				for (Transition<L> tr : e.getValue().get(l)) {
+					src[k] = s;
+					lbl[k] = l;
+					dst[k++] = ids.get(tr.end());
+				}
+			}
+		}
+		return new FrozenAutomaton<>(n, symbols.readOnly(), init, term, src, lbl, dst);
+	}
+
     /**
      * 
      * @return the set of labels matching initial states.
@@ -648,38 +1200,6 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
         return stateLabels.labels(states);
     }
 
-    private class Key {
-		private State s;
-
-		private L l;
-
-		protected Key(State s, L l) {
-			this.s = s;
-			this.l = l;
-		}
-
-		public boolean equals(Object o) {
-			if (o == null || !(o instanceof Automaton.Key))
-				return false;
-			Key t = (Key) o;
-			boolean ret = (l == null ? t.l == null : l.equals(t.l))	&& (s == null ? t.s == null : s.equals(t.s));
-			return ret;
-		}
-
-		public int hashCode() {
-			int x, y;
-			if (s == null)
-				x = 0;
-			else
-				x = s.hashCode();
-			if (l == null)
-				y = 0;
-			else
-				y = l.hashCode();
-			return y << 16 | x;
-		}
-	}
-
 	/**
 	 * Returns true if this automaton accepts given word -- ie. sequence of
 	 * letters. Note that this method accepts words with letters not in this
@@ -709,7 +1229,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		Iterator<L> it = word.iterator();
 		while (it.hasNext()) {
 			L o = it.next();
-			if (!alphabet.contains(o))
+			if (!alphabet().contains(o))
 				continue;
 			s = step(s, o);
 			if (s.isEmpty())
@@ -725,9 +1245,30 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public boolean accept(List<L> word) {
-		Set<State> s = TransformationsToolBox.epsilonClosure(steps(word), this);
-		s.retainAll(terminals());
-		return !s.isEmpty();
+		Set<State> s = steps(word);
+		if (hasEpsilonTransitions())
+			s = epsilonClosure(s);
+		for (State st : s)
+			if (terminals.contains(st))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Starts reading a word one label at a time. Sessions run on the
+	 * {@link #freeze() frozen} form of this automaton, which is built once and
+	 * cached until this automaton is modified.
+	 * 
+	 * @return a new Session positioned on the initial states.
+	 * @see FrozenAutomaton#session()
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Session<L> session() {
+		FrozenAutomaton<L> f = (FrozenAutomaton<L>) getProperty(FROZEN);
+		if (f == null)
+			setProperty(FROZEN, f = freeze());
+		return f.session();
 	}
 
 	/**
@@ -743,7 +1284,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 *         one other state in this automaton.
 	 */
 	public boolean accept(State state, List<L> word) {
-		Set<State> s = stateFactory.stateSet();
+		Set<State> s = getStateFactory().stateSet();
 		s.add(state);
 		return !steps(s, word).isEmpty();
 	}
@@ -755,7 +1296,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<State> steps(List<L> word) {
-		Set<State> s = TransformationsToolBox.epsilonClosure(initials(), this);
+		Set<State> s = epsilonClosure(initials());
 		return steps(s, word);
 	}
 
@@ -793,7 +1334,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<State> steps(State st, List<L> word) {
-		Set<State> s = stateFactory.stateSet();
+		Set<State> s = getStateFactory().stateSet();
 		s.add(st);
 		Iterator<L> it = word.iterator();
 		while (it.hasNext()) {
@@ -818,7 +1359,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		List<Set<State>> ret = new ArrayList<Set<State>>();
 		Set<State> s = null;
 		if (start != null) {
-			s = stateFactory.stateSet();
+			s = getStateFactory().stateSet();
 			s.add(start);
 		} else {
 			s = initials();
@@ -826,7 +1367,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		Iterator<L> it = word.iterator();
 		while (it.hasNext()) {
 			L o = it.next();
-			if (!alphabet.contains(o))
+			if (!alphabet().contains(o))
 				continue;
 			s = step(s, o);
 			ret.add(s);
@@ -850,7 +1391,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		Iterator<L> it = word.iterator();
 		while (it.hasNext()) {
 			L o = it.next();
-			if ((o == null) || !alphabet.contains(o)) {
+			if ((o == null) || !alphabet().contains(o)) {
 				lret++;
 				continue;
 			}
@@ -862,6 +1403,76 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return lret;
 	}
 
+	/**
+	 * Returns the epsilon closure of a set of states, that is the set of states
+	 * reachable from <code>s</code> using only epsilon transitions. Closures of
+	 * single states are computed once and cached until epsilon transitions of
+	 * this automaton change. If this automaton has no epsilon transition, this
+	 * method simply copies <code>s</code>.
+	 * <p>
+	 * The cache is a concurrent map, so that this method and the queries using
+	 * it, such as {@link #step(Set, Object)} or {@link #accept(List)}, may be
+	 * called by several threads on an automaton which is not modified. As
+	 * other queries of this class, it is not thread-safe if the automaton is
+	 * modified concurrently.
+	 * 
+	 * @param s
+	 *            a set of states of this automaton
+	 * @return a new set containing <code>s</code> and all states reachable
+	 *         from it by epsilon transitions.
+	 */
+	public Set<State> epsilonClosure(Set<State> s) {
+		@SuppressWarnings("unchecked")
+		Set<State> arr = getStateFactory().stateSet();
+		arr.addAll(s);
+		if (!hasEpsilonTransitions())
+			return arr;
+		for (State st : s) {
+			Adjacency<L> adj = transitions.get(st);
+			if (adj == null || adj.get(Alphabet.EPSILON) == null)
+				continue;
+			Set<State> c = closures.get(st);
+			if (c == null) {
+				c = closure(st);
+				Set<State> prev = closures.putIfAbsent(st, c);
+				if (prev != null)
+					c = prev;
+			}
+			arr.addAll(c);
+		}
+		return arr;
+	}
+
+	/**
+	 * Tells whether this automaton contains epsilon transitions.
+	 * 
+	 * @return true if at least one transition of this automaton is labelled
+	 *         with <code>null</code>.
+	 */
+	public boolean hasEpsilonTransitions() {
+		return epsilons > 0;
+	}
+
+	/*
+	 * compute epsilon closure of a single state
+	 */
+	private Set<State> closure(State st) {
+		@SuppressWarnings("unchecked")
+		Set<State> c = getStateFactory().stateSet();
+		LinkedList<State> todo = new LinkedList<>();
+		c.add(st);
+		todo.add(st);
+		while (!todo.isEmpty()) {
+			Adjacency<L> adj = transitions.get(todo.removeFirst());
+			Set<Transition<L>> eps = adj == null ? null : adj.get(Alphabet.EPSILON);
+			if (eps != null)
+				for (Transition<L> tr : eps)
+					if (c.add(tr.end()))
+						todo.add(tr.end());
+		}
+		return c;
+	}
+
 	/**
 	 * Return the set of states accessible in one transition from given set of
 	 * states s and letter o.
@@ -871,17 +1482,17 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return
 	 */
 	public Set<State> step(Set<State> s, L o) {
-		Set<State> ns = stateFactory.stateSet();
-		Set<State> ec = TransformationsToolBox.epsilonClosure(s, this);
-		Iterator<State> it = ec.iterator();
-		while (it.hasNext()) {
-			State st = it.next();
-			Iterator<?> it2 = delta(st).iterator();
-			while (it2.hasNext()) {
-				Transition<?> tr = (Transition<?>) it2.next();
-				if (tr.label() != null && tr.label().equals(o))
+		Set<State> ns = getStateFactory().stateSet();
+		int l = symbols.symbol(o);
+		if (l <= Alphabet.EPSILON)
+			return ns;
+		Set<State> ec = hasEpsilonTransitions() ? epsilonClosure(s) : s;
+		for (State st : ec) {
+			Adjacency<L> adj = transitions.get(st);
+			Set<Transition<L>> trs = adj == null ? null : adj.get(l);
+			if (trs != null)
+				for (Transition<L> tr : trs)
 					ns.add(tr.end());
-			}
 		}
 		return ns;
 	}
@@ -891,20 +1502,28 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @param msg
 	 */
 	public void updateTransitionWith(Transition<L> tr, L msg) {
+		modCount++;
 		L lbl = tr.label();
 		alphabet.remove(lbl);
 		alphabet.add(msg);
 		/* update transition map */
-		Key k = new Key(tr.start(), lbl);
-		Set<Transition<L>> s = transitions.remove(k);
-		if (s != null)
-			transitions.put(new Key(tr.start(), msg), s);
-		/* update reverse map */
-		k = new Key(tr.end(), lbl);
-		s = reverse.remove(k);
-		if (s != null)
-			reverse.put(new Key(tr.end(), msg), s);
+		Transition<L> rev = new Transition<>(tr.end(), lbl, tr.start());
+		boolean present = remove(transitions, tr);
 		tr.setLabel(msg);
+		if (present) {
+			if (lbl == null)
+				epsilons--;
+			if (!add(transitions, tr))
+				present = false;
+			else if (msg == null)
+				epsilons++;
+			if (lbl == null || msg == null)
+				closures.clear();
+		}
+		/* update reverse map */
+		Map<State, Adjacency<L>> r = reverse;
+		if (r != null && remove(r, rev))
+			add(r, new Transition<>(tr.end(), msg, tr.start()));
 	}
 
 	/**
@@ -913,12 +1532,23 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<Transition<L>> deltaMinusOne(State st) {
-		Set<Transition<L>> s = new HashSet<>();
-		Iterator<L> alphit = alphabet().iterator();
-		while (alphit.hasNext()) {
-			s.addAll(deltaMinusOne(st, alphit.next()));
-		}
-		return s;
+		return new HashSet<>(deltaMinusOneView(st));
+	}
+
+	/**
+	 * Return all transitions arriving to a State, reversed. Contrary to
+	 * {@link #deltaMinusOne(State)}, the returned set is not a copy: it cannot
+	 * be modified and reflects later changes in this automaton.
+	 * 
+	 * @param st
+	 *            end state
+	 * @return an unmodifiable Set of transitions (maybe empty)
+	 */
+	public Set<Transition<L>> deltaMinusOneView(State st) {
+		Adjacency<L> adj = reverse().get(st);
+		if (adj == null)
+			return Collections.emptySet();
+		return adj;
 	}
 
 	/**
@@ -959,7 +1589,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 
 		do {
 			EnumState st = ll.removeFirst();
-			Set<Transition<L>> trs = delta(st.st);
+			Set<Transition<L>> trs = deltaView(st.st);
 			List<L> word = st.word;
 			for (Iterator<Transition<L>> k = trs.iterator(); k.hasNext();) {
 				Transition<L> tr = k.next();
@@ -0,0 +1,228 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Builds large automata from arrays of integers.
+ * <p>
+ * States are designated by their index, from <code>0</code> to
+ * <code>stateCount - 1</code>, and transitions are recorded as
+ * <code>(src, symbol, dst)</code> triples in growable integer arrays. Each
+ * transition is checked once when it is recorded and {@link #build()} then
+ * creates all states and transitions in a single pass, without the per-call
+ * checks of {@link Automaton#addTransition(Transition)}. Duplicate
+ * transitions are ignored.
+ * <p>
+ * Labels are numbered using an {@link Alphabet}, so transitions may also be
+ * given directly as symbols of this table. A table given at construction is
+ * shared by the built automata, otherwise each gets a copy of the loader's
+ * own table.
+ *
+ * @version $Id$
+ * @see Automaton#symbols()
+ */
+public class AutomatonLoader<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> {
+
+	private final Alphabet<L> symbols;
+
+	// true if symbols has been given by the caller
+	private final boolean shared;
+
+	private final int stateCount;
+
+	private final BitSet initials = new BitSet();
+
+	private final BitSet terminals = new BitSet();
+
+	private int[] src;
+
+	private int[] lbl;
+
+	private int[] dst;
+
+	private int size;
+
+	/**
+	 * Creates a loader for an automaton with given number of states.
+	 *
+	 * @param stateCount
+	 *            the number of states of the automaton.
+	 * @param expectedTransitions
+	 *            an estimate of the number of transitions, used to size
+	 *            internal arrays.
+	 */
+	public AutomatonLoader(int stateCount, int expectedTransitions) {
+		this(null, stateCount, expectedTransitions);
+	}
+
+	/**
+	 * Creates a loader for an automaton with given number of states and
+	 * symbol table.
+	 *
+	 * @param symbols
+	 *            the symbol table for labels, shared with built automata. May
+	 *            be null, in which case a new table is created.
+	 * @param stateCount
+	 *            the number of states of the automaton.
+	 * @param expectedTransitions
+	 *            an estimate of the number of transitions, used to size
+	 *            internal arrays.
+	 */
+	public AutomatonLoader(Alphabet<L> symbols, int stateCount, int expectedTransitions) {
+		if (stateCount < 0)
+			throw new IllegalArgumentException("negative number of states: " + stateCount);
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
+		this.shared = symbols != null;
+		this.stateCount = stateCount;
+		int cap = Math.max(16, expectedTransitions);
+		this.src = new int[cap];
+		this.lbl = new int[cap];
+		this.dst = new int[cap];
+	}
+
+	/**
+	 * @return the symbol table used by this loader.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * Marks states as initial.
+	 *
+	 * @param states
+	 *            indices of initial states.
+	 * @return this loader.
+	 */
+	public AutomatonLoader<L, Tr, T> initials(int... states) {
+		for (int s : states)
+			initials.set(check(s));
+		return this;
+	}
+
+	/**
+	 * Marks states as terminal.
+	 *
+	 * @param states
+	 *            indices of terminal states.
+	 * @return this loader.
+	 */
+	public AutomatonLoader<L, Tr, T> terminals(int... states) {
+		for (int s : states)
+			terminals.set(check(s));
+		return this;
+	}
+
+	/**
+	 * Records a transition.
+	 *
+	 * @param from
+	 *            index of start state.
+	 * @param label
+	 *            label of transition. May be null.
+	 * @param to
+	 *            index of end state.
+	 * @return this loader.
+	 */
+	public AutomatonLoader<L, Tr, T> transition(int from, L label, int to) {
+		return edge(from, symbols.intern(label), to);
+	}
+
+	/**
+	 * Records a transition labelled with a symbol of this loader's table.
+	 *
+	 * @param from
+	 *            index of start state.
+	 * @param symbol
+	 *            a symbol of {@link #symbols()}.
+	 * @param to
+	 *            index of end state.
+	 * @return this loader.
+	 */
+	public AutomatonLoader<L, Tr, T> edge(int from, int symbol, int to) {
+		check(from);
+		check(to);
+		if (symbol < 0 || symbol >= symbols.size())
+			throw new IllegalArgumentException("unknown symbol " + symbol);
+		if (size == src.length)
+			grow(size + 1);
+		src[size] = from;
+		lbl[size] = symbol;
+		dst[size] = to;
+		size++;
+		return this;
+	}
+
+	/**
+	 * Records transitions given as parallel arrays.
+	 *
+	 * @param from
+	 *            indices of start states.
+	 * @param symbol
+	 *            symbols of {@link #symbols()}.
+	 * @param to
+	 *            indices of end states.
+	 * @return this loader.
+	 */
+	public AutomatonLoader<L, Tr, T> edges(int[] from, int[] symbol, int[] to) {
+		if (from.length != symbol.length || from.length != to.length)
+			throw new IllegalArgumentException("arrays of transitions should have the same length");
+		grow(size + from.length);
+		for (int k = 0; k < from.length; k++)
+			edge(from[k], symbol[k], to[k]);
+		return this;
+	}
+
+	/**
+	 * @return the number of transitions recorded so far.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates a new automaton with the states and transitions recorded by
+	 * this loader. The <code>i</code>-th state created is state
+	 * <code>i</code> of this loader.
+	 *
+	 * @return a new Automaton sharing the symbol table given to this loader,
+	 *         or with a copy of the loader's own table.
+	 */
+	public Automaton<L, Tr, T> build() {
+		Automaton<L, Tr, T> a = new Automaton<>(null, shared ? symbols : new Alphabet<>(symbols), stateCount);
+		a.load(stateCount, initials, terminals, src, lbl, dst, size);
+		return a;
+	}
+
+	private int check(int s) {
+		if (s < 0 || s >= stateCount)
+			throw new IllegalArgumentException("no state " + s);
+		return s;
+	}
+
+	private void grow(int min) {
+		if (min <= src.length)
+			return;
+		int cap = Math.max(min, src.length + (src.length >> 1));
+		src = Arrays.copyOf(src, cap);
+		lbl = Arrays.copyOf(lbl, cap);
+		dst = Arrays.copyOf(dst, cap);
+	}
+}
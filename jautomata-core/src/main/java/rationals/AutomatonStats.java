@@ -0,0 +1,320 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Size and structure statistics of an automaton.
+ * <p>
+ * Statistics are computed by {@link Automaton#stats()} in time linear in the
+ * number of states and transitions and do not modify the automaton. The
+ * {@link #toString()} form is a single line suitable for logging.
+ * <p>
+ * Heap sizes are estimates for a 64 bits virtual machine with compressed
+ * references. They account for the maps, sets and transitions held by the
+ * automaton but not for states and labels themselves.
+ *
+ * @version $Id$
+ * @see Automaton#stats()
+ */
+public final class AutomatonStats {
+
+	/* estimated sizes of objects, in bytes */
+	private static final int HASH_MAP = 48;
+
+	private static final int HASH_SET = 16;
+
+	private static final int MAP_ENTRY = 32;
+
+	private static final int INTEGER = 16;
+
+	private static final int ADJACENCY = 24;
+
+	private static final int TRANSITION = 32;
+
+	private final int stateCount;
+
+	private final int transitionCount;
+
+	private final int epsilonCount;
+
+	private final int alphabetSize;
+
+	private final int maxLabelsPerState;
+
+	private final int maxOutDegree;
+
+	private final int[] outDegrees;
+
+	private final int sccCount;
+
+	private final long transitionsBytes;
+
+	private final long reverseBytes;
+
+	private final long stateLabelsBytes;
+
+	private final long transitionObjectsBytes;
+
+	<L> AutomatonStats(Set<State> states, int alphabetSize, Map<State, Adjacency<L>> transitions,
+			Map<State, Adjacency<L>> reverse, int labelledStates) {
+		int n = states.size();
+		this.stateCount = n;
+		this.alphabetSize = alphabetSize;
+		/* number states */
+		Map<State, Integer> ids = new HashMap<>(n * 2);
+		State[] st = new State[n];
+		for (State s : states) {
+			st[ids.size()] = s;
+			ids.put(s, ids.size());
+		}
+		/* successors in compressed form and degrees */
+		int[] offsets = new int[n + 1];
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			Adjacency<L> adj = transitions.get(st[i]);
+			m += adj == null ? 0 : adj.size();
+			offsets[i + 1] = m;
+		}
+		int[] targets = new int[m];
+		int eps = 0, maxLabels = 0, maxDegree = 0;
+		int[] histogram = new int[33];
+		for (int i = 0, k = 0; i < n; i++) {
+			Adjacency<L> adj = transitions.get(st[i]);
+			int degree = adj == null ? 0 : adj.size();
+			histogram[bucket(degree)]++;
+			maxDegree = Math.max(maxDegree, degree);
+			if (adj == null)
+				continue;
+			maxLabels = Math.max(maxLabels, adj.symbols().size());
+			Set<Transition<L>> e = adj.get(Alphabet.EPSILON);
+			if (e != null)
+				eps += e.size();
+			for (Transition<L> t : adj)
+				targets[k++] = ids.get(t.end());
+		}
+		this.transitionCount = m;
+		this.epsilonCount = eps;
+		this.maxLabelsPerState = maxLabels;
+		this.maxOutDegree = maxDegree;
+		this.outDegrees = Arrays.copyOf(histogram, bucket(maxDegree) + 1);
+		this.sccCount = scc(n, offsets, targets);
+		/* heap estimates */
+		this.transitionsBytes = bytes(transitions);
+		this.reverseBytes = reverse == null ? 0 : bytes(reverse);
+		this.stateLabelsBytes = 2 * hashMap(labelledStates, 16);
+		this.transitionObjectsBytes = (long) TRANSITION * (reverse == null ? m : 2 * m);
+	}
+
+	/*
+	 * index of the histogram bucket for given degree: 0, 1, 2-3, 4-7...
+	 */
+	private static int bucket(int degree) {
+		return 32 - Integer.numberOfLeadingZeros(degree);
+	}
+
+	/*
+	 * Tarjan's algorithm, with an explicit stack
+	 */
+	private static int scc(int n, int[] offsets, int[] targets) {
+		int[] index = new int[n];
+		int[] low = new int[n];
+		int[] pos = Arrays.copyOf(offsets, n);
+		int[] calls = new int[n];
+		int[] stack = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(index, -1);
+		int count = 0, next = 0, sp = 0;
+		for (int s = 0; s < n; s++) {
+			if (index[s] >= 0)
+				continue;
+			int cp = 0;
+			calls[cp++] = s;
+			index[s] = low[s] = next++;
+			stack[sp++] = s;
+			onStack[s] = true;
+			while (cp > 0) {
+				int v = calls[cp - 1];
+				if (pos[v] < offsets[v + 1]) {
+					int w = targets[pos[v]++];
+					if (index[w] < 0) {
+						index[w] = low[w] = next++;
+						stack[sp++] = w;
+						onStack[w] = true;
+						calls[cp++] = w;
+					} else if (onStack[w])
+						low[v] = Math.min(low[v], index[w]);
+					continue;
+				}
+				cp--;
+				if (low[v] == index[v]) {
+					int w;
+					do {
+						w = stack[--sp];
+						onStack[w] = false;
+					} while (w != v);
+					count++;
+				}
+				if (cp > 0) {
+					int u = calls[cp - 1];
+					low[u] = Math.min(low[u], low[v]);
+				}
+			}
+		}
+		return count;
+	}
+
+	private static <L> long bytes(Map<State, Adjacency<L>> map) {
+		long total = hashMap(map.size(), 16);
+		for (Adjacency<L> adj : map.values()) {
+			total += ADJACENCY + hashMap(adj.symbols().size(), 4);
+			for (int l : adj.symbols()) {
+				if (l > 127)
+					total += INTEGER;
+				total += HASH_SET + hashMap(adj.get(l).size(), 2);
+			}
+		}
+		return total;
+	}
+
+	/*
+	 * estimated size of a hash map with n entries
+	 */
+	private static long hashMap(int n, int capacity) {
+		if (n == 0)
+			return HASH_MAP;
+		while (capacity * 3 / 4 < n)
+			capacity <<= 1;
+		return HASH_MAP + align(16 + 4L * capacity) + (long) MAP_ENTRY * n;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * @return the number of states.
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * @return the number of transitions, including epsilon transitions.
+	 */
+	public int transitionCount() {
+		return transitionCount;
+	}
+
+	/**
+	 * @return the number of epsilon transitions.
+	 */
+	public int epsilonCount() {
+		return epsilonCount;
+	}
+
+	/**
+	 * @return the number of labels in the alphabet.
+	 */
+	public int alphabetSize() {
+		return alphabetSize;
+	}
+
+	/**
+	 * @return the largest number of distinct labels on the outgoing
+	 *         transitions of a state.
+	 */
+	public int maxLabelsPerState() {
+		return maxLabelsPerState;
+	}
+
+	/**
+	 * @return the largest number of outgoing transitions of a state.
+	 */
+	public int maxOutDegree() {
+		return maxOutDegree;
+	}
+
+	/**
+	 * Returns the histogram of out-degrees. Element <code>0</code> is the
+	 * number of states without outgoing transitions and element
+	 * <code>k &gt; 0</code> the number of states with an out-degree between
+	 * <code>2<sup>k-1</sup></code> and <code>2<sup>k</sup> - 1</code>.
+	 *
+	 * @return a new array of counts.
+	 */
+	public int[] outDegreeHistogram() {
+		return outDegrees.clone();
+	}
+
+	/**
+	 * @return the number of strongly connected components.
+	 */
+	public int sccCount() {
+		return sccCount;
+	}
+
+	/**
+	 * @return estimated size in bytes of the outgoing transitions map.
+	 */
+	public long transitionsMapBytes() {
+		return transitionsBytes;
+	}
+
+	/**
+	 * @return estimated size in bytes of the incoming transitions map, or
+	 *         <code>0</code> if it has not been built yet.
+	 */
+	public long reverseMapBytes() {
+		return reverseBytes;
+	}
+
+	/**
+	 * @return estimated size in bytes of the state labels maps.
+	 */
+	public long stateLabelsBytes() {
+		return stateLabelsBytes;
+	}
+
+	/**
+	 * @return estimated size in bytes of the transition objects stored in
+	 *         both maps.
+	 */
+	public long transitionObjectsBytes() {
+		return transitionObjectsBytes;
+	}
+
+	/**
+	 * @return the sum of all estimated sizes, in bytes.
+	 */
+	public long estimatedHeapSize() {
+		return transitionsBytes + reverseBytes + stateLabelsBytes + transitionObjectsBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "states=" + stateCount + " transitions=" + transitionCount + " epsilons=" + epsilonCount
+				+ " alphabet=" + alphabetSize + " maxLabels=" + maxLabelsPerState + " maxOutDegree="
+				+ maxOutDegree + " outDegrees=" + Arrays.toString(outDegrees) + " sccs=" + sccCount + " heap="
+				+ estimatedHeapSize() + " (transitions=" + transitionsBytes + " reverse=" + reverseBytes
+				+ " labels=" + stateLabelsBytes + " objects=" + transitionObjectsBytes + ")";
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Checks large numbers of words against one automaton in parallel.
+ * <p>
+ * Words are split into chunks processed by the tasks of a fork-join pool.
+ * All tasks share the same {@link FrozenAutomaton} and each thread of the
+ * pool reuses a single {@link Session} for all the words it reads, so that
+ * checking a word allocates no object and throughput grows with the number
+ * of cores. Results are returned as a bitset whose bit <code>i</code> is set
+ * iff the <code>i</code>-th word is accepted, as by
+ * {@link Automaton#accept(List)}: words containing <code>null</code> are
+ * rejected.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @version $Id$
+ * @see Session
+ */
+public final class BatchAcceptor<L> {
+
+	/* number of words read by one task, a multiple of 64 */
+	private static final int CHUNK = 4096;
+
+	private final FrozenAutomaton<L> automaton;
+
+	private final ForkJoinPool pool;
+
+	private final ThreadLocal<Session<L>> sessions = new ThreadLocal<Session<L>>() {
+		@Override
+		protected Session<L> initialValue() {
+			return automaton.session();
+		}
+	};
+
+	/*
+	 * shared pool used when none is given
+	 */
+	private static final class DefaultPool {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+	/**
+	 * Creates a batch acceptor using a pool shared by all batch acceptors,
+	 * with one thread per available processor.
+	 *
+	 * @param a
+	 *            the automaton. Later modifications are not reflected.
+	 */
+	public BatchAcceptor(Automaton<L, ?, ?> a) {
+		this(a.freeze(), DefaultPool.POOL);
+	}
+
+	/**
+	 * @param a
+	 *            the automaton.
+	 * @param pool
+	 *            the pool running the tasks.
+	 */
+	public BatchAcceptor(FrozenAutomaton<L> a, ForkJoinPool pool) {
+		this.automaton = a;
+		this.pool = pool;
+	}
+
+	/**
+	 * Checks a list of words.
+	 *
+	 * @param words
+	 *            the words to check. Should support fast random access.
+	 * @return a new BitSet of the indices of accepted words.
+	 */
+	public BitSet accept(final List<? extends List<L>> words) {
+		return run(words.size(), new Words<L>() {
+			public boolean accept(Session<L> s, int i) {
+				return BatchAcceptor.accept(s, words.get(i));
+			}
+		});
+	}
+
+	/**
+	 * Checks an array of words.
+	 *
+	 * @param words
+	 *            the words to check.
+	 * @return a new BitSet of the indices of accepted words.
+	 */
+	public BitSet accept(final L[][] words) {
+		return run(words.length, new Words<L>() {
+			public boolean accept(Session<L> s, int i) {
+				s.reset();
+				L[] w = words[i];
+				for (int k = 0; k < w.length; k++)
+					if (w[k] == null || !s.feed(w[k]))
+						return false;
+				return s.isAccepting();
+			}
+		});
+	}
+
+	private BitSet run(int n, Words<L> words) {
+		long[] bits = new long[(n + 63) >>> 6];
+		pool.invoke(new Chunk(words, bits, 0, n));
+		return BitSet.valueOf(bits);
+	}
+
+	private static <L> boolean accept(Session<L> s, List<L> w) {
+		s.reset();
+		if (w instanceof RandomAccess) {
+			for (int k = 0, n = w.size(); k < n; k++) {
+				L l = w.get(k);
+				if (l == null || !s.feed(l))
+					return false;
+			}
+		} else
+			for (L l : w)
+				if (l == null || !s.feed(l))
+					return false;
+		return s.isAccepting();
+	}
+
+	/*
+	 * the i-th word of a batch, read with a session
+	 */
+	private interface Words<L> {
+
+		boolean accept(Session<L> s, int i);
+	}
+
+	/*
+	 * Checks words from lo to hi. Chunks are split on multiples of 64 so
+	 * that tasks never write the same element of the result.
+	 */
+	private final class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Words<L> words;
+
+		private final long[] bits;
+
+		private final int lo;
+
+		private final int hi;
+
+		Chunk(Words<L> words, long[] bits, int lo, int hi) {
+			this.words = words;
+			this.bits = bits;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= CHUNK) {
+				Session<L> s = sessions.get();
+				for (int i = lo; i < hi; i++)
+					if (words.accept(s, i))
+						bits[i >>> 6] |= 1L << i;
+				return;
+			}
+			int mid = ((lo + hi) >>> 1) & ~63;
+			invokeAll(new Chunk(words, bits, lo, mid), new Chunk(words, bits, mid, hi));
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A state factory whose sets of states are bit sets.
+ * <p>
+ * States created by this factory are the same as those of
+ * {@link DefaultStateFactory}: their identifier is a dense integer which is used
+ * as an index into a <code>long[]</code> by sets returned from
+ * {@link #stateSet()}. Such sets have a footprint of one bit per state of the
+ * automaton up to the highest state they contain, and their
+ * <code>equals</code>, <code>hashCode</code>, <code>addAll</code>,
+ * <code>removeAll</code> and <code>retainAll</code> methods work on whole words
+ * when given another set from the same factory. This makes them well suited as
+ * keys in subset constructions.
+ * <p>
+ * Sets returned by this factory may only contain states created by this
+ * factory.
+ *
+ * @author Arnaud.Bailly - bailly@lifl.fr
+ * @see Automaton#Automaton(StateFactory)
+ */
+public class BitSetStateFactory<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends DefaultStateFactory<L, Tr, T> {
+
+	/* masks selecting the bit positions which have bit k set */
+	private static final long[] POSITION_MASKS = { 0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+			0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L };
+
+	private State[] table = new State[64];
+
+	public BitSetStateFactory() {
+		super(null);
+	}
+
+	@Override
+	public State create(boolean initial, boolean terminal) {
+		return register(super.create(initial, terminal));
+	}
+
+	@Override
+	public State create(boolean initial, boolean terminal, Object label) {
+		return register(super.create(initial, terminal, label));
+	}
+
+	private State register(State s) {
+		@SuppressWarnings("unchecked")
+		DefaultState ds = (DefaultState) s;
+		int i = ds.i;
+		if (i >= table.length)
+			table = Arrays.copyOf(table, Math.max(i + 1, table.length * 2));
+		table[i] = s;
+		return s;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see rationals.StateFactory#stateSet()
+	 */
+	@Override
+	public Set<State> stateSet() {
+		return new StateSet();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see rationals.StateFactory#stateSet(java.util.Set)
+	 */
+	@Override
+	public Set<State> stateSet(Set<State> s) {
+		StateSet result = new StateSet();
+		result.addAll(s);
+		return result;
+	}
+
+	@Override
+	public BitSetStateFactory<L, Tr, T> clone() {
+		BitSetStateFactory<L, Tr, T> cl = (BitSetStateFactory<L, Tr, T>) super.clone();
+		cl.table = new State[64];
+		return cl;
+	}
+
+	/*
+	 * index of state in table or -1 if it was not created by this factory
+	 */
+	private int index(Object o) {
+		if (!(o instanceof DefaultStateFactory.DefaultState))
+			return -1;
+		int i = ((DefaultStateFactory<?, ?, ?>.DefaultState) o).i;
+		return i < table.length && table[i] == o ? i : -1;
+	}
+
+	/**
+	 * A set of states backed by an array of words.
+	 */
+	private class StateSet extends AbstractSet<State> {
+
+		private long[] words = new long[1];
+
+		private int size;
+
+		private int modCount;
+
+		private BitSetStateFactory<L, Tr, T> factory() {
+			return BitSetStateFactory.this;
+		}
+
+		private boolean sameFactory(Object o) {
+			return o instanceof BitSetStateFactory.StateSet
+					&& ((BitSetStateFactory<?, ?, ?>.StateSet) o).factory() == BitSetStateFactory.this;
+		}
+
+		@Override
+		public boolean add(State s) {
+			int i = index(s);
+			if (i < 0)
+				throw new IllegalArgumentException("state " + s + " was not created by this factory");
+			int w = i >>> 6;
+			if (w >= words.length)
+				words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+			long bit = 1L << i;
+			if ((words[w] & bit) != 0)
+				return false;
+			words[w] |= bit;
+			size++;
+			modCount++;
+			return true;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			int i = index(o);
+			if (i < 0)
+				return false;
+			int w = i >>> 6;
+			return w < words.length && (words[w] & (1L << i)) != 0;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o))
+				return false;
+			int i = index(o);
+			words[i >>> 6] &= ~(1L << i);
+			size--;
+			modCount++;
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			Arrays.fill(words, 0);
+			size = 0;
+			modCount++;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends State> c) {
+			if (!sameFactory(c))
+				return super.addAll(c);
+			@SuppressWarnings("unchecked")
+			StateSet set = (StateSet) c;
+			long[] other = set.words;
+			if (other.length > words.length)
+				words = Arrays.copyOf(words, other.length);
+			boolean changed = false;
+			for (int w = 0; w < other.length; w++) {
+				long n = words[w] | other[w];
+				changed |= n != words[w];
+				words[w] = n;
+			}
+			return update(changed);
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			if (!sameFactory(c))
+				return super.retainAll(c);
+			@SuppressWarnings("unchecked")
+			StateSet set = (StateSet) c;
+			long[] other = set.words;
+			boolean changed = false;
+			for (int w = 0; w < words.length; w++) {
+				long n = w < other.length ? words[w] & other[w] : 0;
+				changed |= n != words[w];
+				words[w] = n;
+			}
+			return update(changed);
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			if (!sameFactory(c))
+				return super.removeAll(c);
+			@SuppressWarnings("unchecked")
+			StateSet set = (StateSet) c;
+			long[] other = set.words;
+			boolean changed = false;
+			for (int w = 0; w < words.length && w < other.length; w++) {
+				long n = words[w] & ~other[w];
+				changed |= n != words[w];
+				words[w] = n;
+			}
+			return update(changed);
+		}
+
+		@Override
+		public boolean containsAll(Collection<?> c) {
+			if (!sameFactory(c))
+				return super.containsAll(c);
+			@SuppressWarnings("unchecked")
+			StateSet set = (StateSet) c;
+			long[] other = set.words;
+			for (int w = 0; w < other.length; w++) {
+				long mine = w < words.length ? words[w] : 0;
+				if ((other[w] & ~mine) != 0)
+					return false;
+			}
+			return true;
+		}
+
+		private boolean update(boolean changed) {
+			if (changed) {
+				size = 0;
+				for (long w : words)
+					size += Long.bitCount(w);
+				modCount++;
+			}
+			return changed;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+			if (!sameFactory(o))
+				return super.equals(o);
+			@SuppressWarnings("unchecked")
+			StateSet s = (StateSet) o;
+			if (s.size != size)
+				return false;
+			int n = Math.min(words.length, s.words.length);
+			for (int w = 0; w < n; w++)
+				if (words[w] != s.words[w])
+					return false;
+			return true;
+		}
+
+		/*
+		 * Same value as the sum of the states' hash codes required by Set, that
+		 * is the sum of their identifiers, computed word by word.
+		 */
+		@Override
+		public int hashCode() {
+			int h = 0;
+			for (int w = 0; w < words.length; w++) {
+				long word = words[w];
+				if (word == 0)
+					continue;
+				int sum = (w << 6) * Long.bitCount(word);
+				for (int k = 0; k < POSITION_MASKS.length; k++)
+					sum += Long.bitCount(word & POSITION_MASKS[k]) << k;
+				h += sum;
+			}
+			return h;
+		}
+
+		@Override
+		public Iterator<State> iterator() {
+			return new Iterator<State>() {
+
+				private int expected = modCount;
+
+				private int w = 0;
+
+				private long current = words.length > 0 ? words[0] : 0;
+
+				private int last = -1;
+
+				@Override
+				public boolean hasNext() {
+					while (current == 0) {
+						if (++w >= words.length)
+							return false;
+						current = words[w];
+					}
+					return true;
+				}
+
+				@Override
+				public State next() {
+					if (expected != modCount)
+						throw new ConcurrentModificationException();
+					if (!hasNext())
+						throw new NoSuchElementException();
+					int bit = Long.numberOfTrailingZeros(current);
+					current &= current - 1;
+					last = (w << 6) + bit;
+					return table[last];
+				}
+
+				@Override
+				public void remove() {
+					if (last < 0)
+						throw new IllegalStateException();
+					if (expected != modCount)
+						throw new ConcurrentModificationException();
+					words[last >>> 6] &= ~(1L << last);
+					size--;
+					last = -1;
+					expected = ++modCount;
+				}
+			};
+		}
+	}
+}
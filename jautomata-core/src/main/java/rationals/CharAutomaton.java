@@ -0,0 +1,504 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rationals.matching.Matcher;
+import rationals.symbolic.IntervalSet;
+
+/**
+ * An immutable automaton over characters with range-labelled transitions.
+ * <p>
+ * Characters are handled as Unicode code points, given as <code>int</code>
+ * values. Each transition is labelled with an interval of code points and the
+ * transitions leaving a state are sorted by lower bound, so that strings can
+ * be matched without boxing characters nor building lists. Deterministic
+ * automata are run by following a single state, others by following the set
+ * of reachable states.
+ * <p>
+ * Instances are created by {@link #of(Automaton)} from a generic automaton
+ * whose labels are characters, one-character strings or
+ * {@link IntervalSet}s. Epsilon transitions are removed and consecutive
+ * characters leading to the same state are merged into ranges. Instances
+ * are safe for use by several threads.
+ * <p>
+ * This class is the interpreted implementation of {@link Matcher}.
+ *
+ * @version $Id$
+ */
+public final class CharAutomaton implements Matcher {
+
+	private final int stateCount;
+
+	private final int[] initials;
+
+	private final boolean[] terminal;
+
+	/* transitions of state q are at indices offsets[q] to offsets[q+1] */
+	private final int[] offsets;
+
+	private final int[] lo;
+
+	private final int[] hi;
+
+	private final int[] target;
+
+	private final boolean deterministic;
+
+	private CharAutomaton(int[] initials, boolean[] terminal, int[] offsets, int[] lo, int[] hi, int[] target) {
+		this.stateCount = terminal.length;
+		this.initials = initials;
+		this.terminal = terminal;
+		this.offsets = offsets;
+		this.lo = lo;
+		this.hi = hi;
+		this.target = target;
+		boolean det = initials.length <= 1;
+		for (int q = 0; det && q < stateCount; q++)
+			for (int k = offsets[q] + 1; det && k < offsets[q + 1]; k++)
+				det = lo[k] > hi[k - 1];
+		this.deterministic = det;
+	}
+
+	/**
+	 * Converts a generic automaton.
+	 *
+	 * @param a
+	 *            an automaton whose labels are <code>Character</code>,
+	 *            <code>CharSequence</code> made of a single code point,
+	 *            {@link IntervalSet} or null for epsilon.
+	 * @return a new CharAutomaton recognizing the same language.
+	 * @throws IllegalArgumentException
+	 *             if some label cannot be converted to a range of code
+	 *             points.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> CharAutomaton of(Automaton<L, Tr, T> a) {
+		List<State> states = new ArrayList<>(a.states());
+		int n = states.size();
+		Map<State, Integer> ids = new HashMap<>();
+		for (int i = 0; i < n; i++)
+			ids.put(states.get(i), i);
+		boolean[] terminal = new boolean[n];
+		int[] offsets = new int[n + 1];
+		List<int[]> all = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			Set<State> s = new HashSet<>();
+			s.add(states.get(i));
+			List<int[]> trs = new ArrayList<>();
+			for (State q : a.epsilonClosure(s)) {
+				terminal[i] |= q.isTerminal();
+				for (Transition<L> t : a.deltaView(q))
+					if (t.label() != null)
+						ranges(t.label(), ids.get(t.end()), trs);
+			}
+			merge(trs);
+			all.addAll(trs);
+			offsets[i + 1] = all.size();
+		}
+		int m = all.size();
+		int[] lo = new int[m], hi = new int[m], target = new int[m];
+		for (int k = 0; k < m; k++) {
+			int[] t = all.get(k);
+			lo[k] = t[0];
+			hi[k] = t[1];
+			target[k] = t[2];
+		}
+		int[] initials = new int[a.initials().size()];
+		int j = 0;
+		for (State q : a.initials())
+			initials[j++] = ids.get(q);
+		Arrays.sort(initials);
+		return new CharAutomaton(initials, terminal, offsets, lo, hi, target);
+	}
+
+	/**
+	 * Tells whether an automaton can be converted by {@link #of(Automaton)}.
+	 *
+	 * @param a
+	 *            an automaton.
+	 * @return true if every label of <code>a</code> can be converted to a
+	 *         range of code points.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> boolean convertible(Automaton<L, Tr, T> a) {
+		for (L label : a.alphabet())
+			if (label != null && !convertible(label))
+				return false;
+		return true;
+	}
+
+	private static boolean convertible(Object label) {
+		if (label instanceof Character || label instanceof IntervalSet)
+			return true;
+		if (!(label instanceof CharSequence))
+			return false;
+		CharSequence cs = (CharSequence) label;
+		return cs.length() > 0 && Character.charCount(Character.codePointAt(cs, 0)) == cs.length();
+	}
+
+	/*
+	 * adds the ranges of given label as (lo, hi, target) triples
+	 */
+	private static void ranges(Object label, int to, List<int[]> trs) {
+		if (label instanceof Character) {
+			char c = (Character) label;
+			trs.add(new int[] { c, c, to });
+		} else if (label instanceof CharSequence) {
+			if (!convertible(label))
+				throw new IllegalArgumentException("label is not a single character: " + label);
+			int c = Character.codePointAt((CharSequence) label, 0);
+			trs.add(new int[] { c, c, to });
+		} else if (label instanceof IntervalSet) {
+			IntervalSet r = (IntervalSet) label;
+			for (int i = 0; i < r.rangeCount(); i++)
+				trs.add(new int[] { r.lower(i), r.upper(i), to });
+		} else
+			throw new IllegalArgumentException("cannot convert label " + label + " to characters");
+	}
+
+	/*
+	 * merges overlapping or adjacent ranges with the same target, then sorts
+	 * by lower bound
+	 */
+	private static void merge(List<int[]> trs) {
+		if (trs.size() < 2)
+			return;
+		int[][] t = trs.toArray(new int[trs.size()][]);
+		Arrays.sort(t, new Comparator<int[]>() {
+			public int compare(int[] x, int[] y) {
+				if (x[2] != y[2])
+					return x[2] < y[2] ? -1 : 1;
+				return x[0] < y[0] ? -1 : x[0] == y[0] ? 0 : 1;
+			}
+		});
+		trs.clear();
+		int[] cur = t[0];
+		for (int k = 1; k < t.length; k++) {
+			if (t[k][2] == cur[2] && (long) t[k][0] <= (long) cur[1] + 1) {
+				if (t[k][1] > cur[1])
+					cur = new int[] { cur[0], t[k][1], cur[2] };
+			} else {
+				trs.add(cur);
+				cur = t[k];
+			}
+		}
+		trs.add(cur);
+		Collections.sort(trs, new Comparator<int[]>() {
+			public int compare(int[] x, int[] y) {
+				return x[0] < y[0] ? -1 : x[0] == y[0] ? 0 : 1;
+			}
+		});
+	}
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * @return the number of range-labelled transitions of this automaton.
+	 */
+	public int transitionCount() {
+		return target.length;
+	}
+
+	/**
+	 * @return true if this automaton has at most one initial state and the
+	 *         ranges leaving each state are disjoint.
+	 */
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
+	/**
+	 * @return the indices of initial states, in increasing order.
+	 */
+	public int[] initials() {
+		return initials.clone();
+	}
+
+	/**
+	 * @return true iff state <code>q</code> is terminal.
+	 */
+	public boolean isTerminal(int q) {
+		return terminal[q];
+	}
+
+	/**
+	 * @return index of the first transition leaving state <code>q</code>.
+	 */
+	public int outStart(int q) {
+		return offsets[q];
+	}
+
+	/**
+	 * @return index after the last transition leaving state <code>q</code>.
+	 */
+	public int outEnd(int q) {
+		return offsets[q + 1];
+	}
+
+	/**
+	 * @return the lowest code point of the <code>k</code>-th transition.
+	 */
+	public int lower(int k) {
+		return lo[k];
+	}
+
+	/**
+	 * @return the highest code point of the <code>k</code>-th transition.
+	 */
+	public int upper(int k) {
+		return hi[k];
+	}
+
+	/**
+	 * @return the end state of the <code>k</code>-th transition.
+	 */
+	public int target(int k) {
+		return target[k];
+	}
+
+	public boolean matches(CharSequence s) {
+		return accept(s);
+	}
+
+	public boolean matches(int[] word) {
+		return accept(word);
+	}
+
+	public int longestPrefix(CharSequence s) {
+		if (deterministic) {
+			if (initials.length == 0)
+				return -1;
+			int q = initials[0];
+			int last = terminal[q] ? 0 : -1;
+			for (int i = 0; i < s.length();) {
+				int c = Character.codePointAt(s, i);
+				i += Character.charCount(c);
+				if ((q = next(q, c)) < 0)
+					break;
+				if (terminal[q])
+					last = i;
+			}
+			return last;
+		}
+		Run run = new Run();
+		int last = run.accepting() ? 0 : -1;
+		for (int i = 0; i < s.length() && run.size > 0;) {
+			int c = Character.codePointAt(s, i);
+			i += Character.charCount(c);
+			run.step(c);
+			if (run.accepting())
+				last = i;
+		}
+		return last;
+	}
+
+	public int longestPrefix(int[] word) {
+		if (deterministic) {
+			if (initials.length == 0)
+				return -1;
+			int q = initials[0];
+			int last = terminal[q] ? 0 : -1;
+			for (int i = 0; i < word.length; i++) {
+				if ((q = next(q, word[i])) < 0)
+					break;
+				if (terminal[q])
+					last = i + 1;
+			}
+			return last;
+		}
+		Run run = new Run();
+		int last = run.accepting() ? 0 : -1;
+		for (int i = 0; i < word.length && run.size > 0; i++) {
+			run.step(word[i]);
+			if (run.accepting())
+				last = i + 1;
+		}
+		return last;
+	}
+
+	/**
+	 * Tells whether this automaton accepts the code points of a string.
+	 *
+	 * @param s
+	 *            a string.
+	 * @return true iff the sequence of code points of <code>s</code> is
+	 *         recognized.
+	 */
+	public boolean accept(CharSequence s) {
+		if (deterministic) {
+			if (initials.length == 0)
+				return false;
+			int q = initials[0];
+			for (int i = 0; i < s.length();) {
+				int c = Character.codePointAt(s, i);
+				i += Character.charCount(c);
+				if ((q = next(q, c)) < 0)
+					return false;
+			}
+			return terminal[q];
+		}
+		Run run = new Run();
+		for (int i = 0; i < s.length() && run.size > 0;) {
+			int c = Character.codePointAt(s, i);
+			i += Character.charCount(c);
+			run.step(c);
+		}
+		return run.accepting();
+	}
+
+	/**
+	 * Tells whether this automaton accepts a sequence of code points.
+	 *
+	 * @param word
+	 *            a sequence of code points.
+	 * @return true iff <code>word</code> is recognized.
+	 */
+	public boolean accept(int[] word) {
+		if (deterministic) {
+			if (initials.length == 0)
+				return false;
+			int q = initials[0];
+			for (int i = 0; i < word.length; i++)
+				if ((q = next(q, word[i])) < 0)
+					return false;
+			return terminal[q];
+		}
+		Run run = new Run();
+		for (int i = 0; i < word.length && run.size > 0; i++)
+			run.step(word[i]);
+		return run.accepting();
+	}
+
+	/*
+	 * the unique successor of q on c in a deterministic automaton, or -1
+	 */
+	private int next(int q, int c) {
+		int l = offsets[q], h = offsets[q + 1] - 1;
+		while (l <= h) {
+			int mid = (l + h) >>> 1;
+			if (c < lo[mid])
+				h = mid - 1;
+			else if (c > hi[mid])
+				l = mid + 1;
+			else
+				return target[mid];
+		}
+		return -1;
+	}
+
+	/*
+	 * the set of current states of a nondeterministic run
+	 */
+	private final class Run {
+
+		int[] current = initials.clone();
+
+		int size = initials.length;
+
+		int[] next = new int[stateCount];
+
+		/* stamp of the last step where a state was added to next */
+		int[] mark = new int[stateCount];
+
+		int step;
+
+		void step(int c) {
+			step++;
+			int n = 0;
+			for (int i = 0; i < size; i++) {
+				int q = current[i];
+				for (int k = offsets[q]; k < offsets[q + 1] && lo[k] <= c; k++)
+					if (c <= hi[k] && mark[target[k]] != step) {
+						mark[target[k]] = step;
+						next[n++] = target[k];
+					}
+			}
+			int[] t = current.length >= stateCount ? current : new int[stateCount];
+			current = next;
+			next = t;
+			size = n;
+		}
+
+		boolean accepting() {
+			for (int i = 0; i < size; i++)
+				if (terminal[current[i]])
+					return true;
+			return false;
+		}
+	}
+
+	/**
+	 * Converts this automaton to a generic automaton labelled with
+	 * one-character strings. Each range is expanded to one transition per
+	 * code point, so this should only be used with small ranges.
+	 *
+	 * @return a new Automaton.
+	 */
+	public Automaton<String, Transition<String>, TransitionBuilder<String>> toAutomaton() {
+		Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+		State[] st = states(a);
+		for (int q = 0; q < stateCount; q++)
+			for (int k = offsets[q]; k < offsets[q + 1]; k++)
+				for (long c = lo[k]; c <= hi[k]; c++)
+					try {
+						a.addTransition(new Transition<>(st[q], new String(Character.toChars((int) c)), st[target[k]]));
+					} catch (NoSuchStateException e) {
+					}
+		return a;
+	}
+
+	/**
+	 * Converts this automaton to a symbolic automaton with one transition per
+	 * range.
+	 *
+	 * @return a new Automaton labelled with {@link IntervalSet}s.
+	 * @see rationals.symbolic.IntervalAlgebra#CODE_POINTS
+	 */
+	public Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> toSymbolic() {
+		Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> a = new Automaton<>();
+		State[] st = states(a);
+		for (int q = 0; q < stateCount; q++)
+			for (int k = offsets[q]; k < offsets[q + 1]; k++)
+				try {
+					a.addTransition(new Transition<>(st[q], IntervalSet.range(lo[k], hi[k]), st[target[k]]));
+				} catch (NoSuchStateException e) {
+				}
+		return a;
+	}
+
+	private State[] states(Automaton<?, ?, ?> a) {
+		State[] st = new State[stateCount];
+		for (int q = 0; q < stateCount; q++)
+			st[q] = a.addState(false, terminal[q]);
+		for (int q : initials)
+			st[q].setInitial(true);
+		return st;
+	}
+}
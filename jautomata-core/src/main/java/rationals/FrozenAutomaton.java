@@ -0,0 +1,340 @@
+/*
+ * (C) Copyright 2001 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+
+/**
+ * A read-only, compact view of an automaton.
+ * <p>
+ * States are numbered densely from <code>0</code> to
+ * <code>stateCount() - 1</code> and labels are numbered according to the
+ * {@link Alphabet} of the frozen automaton, symbol <code>0</code> being
+ * reserved for <em>epsilon</em>. Transitions are stored in compressed sparse row form: the
+ * outgoing transitions of state <code>q</code> are found at indices
+ * <code>outStart(q)</code> (inclusive) to <code>outEnd(q)</code> (exclusive)
+ * and are sorted by symbol. Incoming transitions are stored the same way in a
+ * separate set of arrays.
+ * <p>
+ * Instances are created through {@link Automaton#freeze()} and do not keep
+ * any reference to the automaton they were built from nor to its states: state
+ * <code>i</code> is the <code>i</code>-th state returned by iterating over
+ * {@link Automaton#states()} at freezing time.
+ *
+ * @version $Id$
+ * @see Automaton#freeze()
+ */
+public final class FrozenAutomaton<L> implements IndexedAutomaton<L> {
+
+	/**
+	 * The symbol used for epsilon transitions.
+	 */
+	public static final int EPSILON = Alphabet.EPSILON;
+
+	private final int stateCount;
+
+	private final Alphabet<L> symbols;
+
+	private final int symbolCount;
+
+	private final BitSet initials;
+
+	private final BitSet terminals;
+
+	private final int[] offsets;
+
+	private final int[] outLabels;
+
+	private final int[] targets;
+
+	private final int[] reverseOffsets;
+
+	private final int[] inLabels;
+
+	private final int[] sources;
+
+	private final boolean deterministic;
+
+	/*
+	 * edges are given as parallel arrays of (src,symbol,dst) triples in any
+	 * order
+	 */
+	FrozenAutomaton(int stateCount, Alphabet<L> symbols, BitSet initials,
+			BitSet terminals, int[] src, int[] lbl, int[] dst) {
+		this.stateCount = stateCount;
+		this.symbols = symbols;
+		this.symbolCount = symbols.size();
+		this.initials = initials;
+		this.terminals = terminals;
+		int n = src.length;
+		this.offsets = new int[stateCount + 1];
+		this.outLabels = new int[n];
+		this.targets = new int[n];
+		this.reverseOffsets = new int[stateCount + 1];
+		this.inLabels = new int[n];
+		this.sources = new int[n];
+		fill(src, lbl, dst, offsets, outLabels, targets);
+		fill(dst, lbl, src, reverseOffsets, inLabels, sources);
+		boolean det = initials.cardinality() <= 1;
+		for (int q = 0; det && q < stateCount; q++)
+			for (int k = offsets[q]; det && k < offsets[q + 1]; k++)
+				det = outLabels[k] != EPSILON && (k == offsets[q] || outLabels[k - 1] != outLabels[k]);
+		this.deterministic = det;
+	}
+
+	/*
+	 * counting sort of edges on (from, symbol) into the given arrays
+	 */
+	private void fill(int[] from, int[] lbl, int[] to, int[] off, int[] ls, int[] ts) {
+		int n = from.length;
+		int m = symbolCount;
+		/* first sort on symbol */
+		int[] bySymbol = new int[m + 1];
+		for (int i = 0; i < n; i++)
+			bySymbol[lbl[i] + 1]++;
+		for (int i = 0; i < m; i++)
+			bySymbol[i + 1] += bySymbol[i];
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[bySymbol[lbl[i]]++] = i;
+		/* then stable sort on starting state */
+		for (int i = 0; i < n; i++)
+			off[from[i] + 1]++;
+		for (int i = 0; i < stateCount; i++)
+			off[i + 1] += off[i];
+		int[] pos = new int[stateCount];
+		System.arraycopy(off, 0, pos, 0, stateCount);
+		for (int k = 0; k < n; k++) {
+			int i = order[k];
+			int p = pos[from[i]]++;
+			ls[p] = lbl[i];
+			ts[p] = to[i];
+		}
+	}
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * @return the number of transitions of this automaton.
+	 */
+	public int transitionCount() {
+		return targets.length;
+	}
+
+	/**
+	 * @return the number of symbols of this automaton, including the
+	 *         reserved epsilon symbol.
+	 */
+	public int symbolCount() {
+		return symbolCount;
+	}
+
+	/**
+	 * @return a read-only copy of the symbol table of the automaton this
+	 *         object was frozen from, taken at freezing time.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * Returns the label associated with given symbol.
+	 *
+	 * @param symbol
+	 *            a symbol between 0 and <code>symbolCount() - 1</code>.
+	 * @return the label, <code>null</code> for {@link #EPSILON}.
+	 */
+	public L label(int symbol) {
+		return symbols.label(symbol);
+	}
+
+	/**
+	 * Returns the symbol associated with given label.
+	 *
+	 * @param label
+	 *            a label. May be null.
+	 * @return a symbol or -1 if <code>label</code> is not part of this
+	 *         automaton's alphabet.
+	 */
+	public int symbol(L label) {
+		int i = symbols.symbol(label);
+		return i < symbolCount ? i : -1;
+	}
+
+	public boolean isInitial(int state) {
+		return initials.get(state);
+	}
+
+	public boolean isTerminal(int state) {
+		return terminals.get(state);
+	}
+
+	/**
+	 * @return true if this automaton has at most one initial state, no
+	 *         epsilon transition and at most one transition per state and
+	 *         symbol.
+	 */
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
+	/**
+	 * Starts reading a word one label at a time. Deterministic automata are
+	 * run by following a single state number, others by following a set of
+	 * states kept in reused bitsets.
+	 *
+	 * @return a new Session positioned on the initial states.
+	 */
+	public Session<L> session() {
+		return new FrozenSession<>(this);
+	}
+
+	/**
+	 * @return a copy of the set of initial states.
+	 */
+	public BitSet initials() {
+		return (BitSet) initials.clone();
+	}
+
+	/**
+	 * @return a copy of the set of terminal states.
+	 */
+	public BitSet terminals() {
+		return (BitSet) terminals.clone();
+	}
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index of the first transition going out of <code>state</code>.
+	 */
+	public int outStart(int state) {
+		return offsets[state];
+	}
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index past the last transition going out of <code>state</code>.
+	 */
+	public int outEnd(int state) {
+		return offsets[state + 1];
+	}
+
+	public int outLabel(int index) {
+		return outLabels[index];
+	}
+
+	public int target(int index) {
+		return targets[index];
+	}
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index of the first transition going into <code>state</code>.
+	 */
+	public int inStart(int state) {
+		return reverseOffsets[state];
+	}
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index past the last transition going into <code>state</code>.
+	 */
+	public int inEnd(int state) {
+		return reverseOffsets[state + 1];
+	}
+
+	public int inLabel(int index) {
+		return inLabels[index];
+	}
+
+	public int source(int index) {
+		return sources[index];
+	}
+
+	/**
+	 * Returns the index of the first transition from <code>state</code>
+	 * labelled with <code>symbol</code>. Transitions with this symbol are
+	 * contiguous, so all of them can be enumerated by incrementing the result
+	 * while {@link #outLabel(int)} is equal to <code>symbol</code> and the
+	 * index is lower than {@link #outEnd(int)}.
+	 *
+	 * @param state
+	 *            a state.
+	 * @param symbol
+	 *            a symbol.
+	 * @return an index or -1 if there is no such transition.
+	 */
+	public int find(int state, int symbol) {
+		return IndexedAutomata.find(this, state, symbol);
+	}
+
+	/**
+	 * Computes the set of states reachable from <code>start</code>, including
+	 * <code>start</code> itself.
+	 *
+	 * @param start
+	 *            the set of starting states. Not modified.
+	 * @param forward
+	 *            if false, follow transitions backwards.
+	 * @return a new BitSet.
+	 */
+	public BitSet access(BitSet start, boolean forward) {
+		return IndexedAutomata.access(this, start, forward);
+	}
+
+	/**
+	 * Closes given set of states under epsilon transitions, in place.
+	 *
+	 * @param set
+	 *            the set to close.
+	 * @return <code>set</code>.
+	 */
+	public BitSet epsilonClosure(BitSet set) {
+		return IndexedAutomata.epsilonClosure(this, set);
+	}
+
+	/**
+	 * Creates a new automaton from the states of this automaton contained in
+	 * <code>keep</code> and all transitions between them.
+	 *
+	 * @param keep
+	 *            the set of states to keep.
+	 * @return a new Automaton.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton(BitSet keep) {
+		return IndexedAutomata.toAutomaton(this, keep);
+	}
+
+	/**
+	 * @return a new Automaton with the same states and transitions as this
+	 *         automaton.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton() {
+		BitSet all = new BitSet(stateCount);
+		all.set(0, stateCount);
+		return toAutomaton(all);
+	}
+}
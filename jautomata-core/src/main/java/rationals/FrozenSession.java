@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+
+/**
+ * A session over a frozen automaton.
+ * <p>
+ * Deterministic automata are followed with a single state number, others
+ * with a pair of bitsets reused at each step.
+ *
+ * @version $Id$
+ */
+final class FrozenSession<L> implements Session<L> {
+
+	private final FrozenAutomaton<L> a;
+
+	/* epsilon closure of initial states, shared by snapshots */
+	private final BitSet start;
+
+	private final boolean deterministic;
+
+	/* current state of a deterministic run, -1 if dead */
+	private int state;
+
+	private BitSet current;
+
+	private BitSet next;
+
+	private int[] stack;
+
+	FrozenSession(FrozenAutomaton<L> a) {
+		this.a = a;
+		this.deterministic = a.isDeterministic();
+		this.start = a.epsilonClosure(a.initials());
+		if (!deterministic) {
+			this.current = new BitSet(a.stateCount());
+			this.next = new BitSet(a.stateCount());
+			this.stack = new int[a.stateCount()];
+		}
+		reset();
+	}
+
+	/*
+	 * a nondeterministic session positioned on given epsilon-closed set of
+	 * states
+	 */
+	FrozenSession(FrozenAutomaton<L> a, BitSet from) {
+		this.a = a;
+		this.deterministic = false;
+		this.start = a.epsilonClosure(a.initials());
+		this.current = (BitSet) from.clone();
+		this.next = new BitSet(a.stateCount());
+		this.stack = new int[a.stateCount()];
+	}
+
+	private FrozenSession(FrozenSession<L> s) {
+		this.a = s.a;
+		this.start = s.start;
+		this.deterministic = s.deterministic;
+		this.state = s.state;
+		if (!deterministic) {
+			this.current = (BitSet) s.current.clone();
+			this.next = new BitSet(a.stateCount());
+			this.stack = new int[a.stateCount()];
+		}
+	}
+
+	public boolean feed(L label) {
+		if (label == null)
+			return !isDead();
+		int sym = a.symbol(label);
+		if (deterministic) {
+			if (state < 0)
+				return false;
+			int k = sym < 0 ? -1 : a.find(state, sym);
+			state = k < 0 ? -1 : a.target(k);
+			return state >= 0;
+		}
+		next.clear();
+		if (sym > 0) {
+			int sp = 0;
+			for (int q = current.nextSetBit(0); q >= 0; q = current.nextSetBit(q + 1)) {
+				int k = a.find(q, sym);
+				if (k < 0)
+					continue;
+				for (int end = a.outEnd(q); k < end && a.outLabel(k) == sym; k++) {
+					int r = a.target(k);
+					if (!next.get(r)) {
+						next.set(r);
+						stack[sp++] = r;
+					}
+				}
+			}
+			/* epsilon closure */
+			while (sp > 0) {
+				int q = stack[--sp];
+				for (int k = a.outStart(q), end = a.outEnd(q); k < end
+						&& a.outLabel(k) == FrozenAutomaton.EPSILON; k++) {
+					int r = a.target(k);
+					if (!next.get(r)) {
+						next.set(r);
+						stack[sp++] = r;
+					}
+				}
+			}
+		}
+		BitSet t = current;
+		current = next;
+		next = t;
+		return !current.isEmpty();
+	}
+
+	public boolean isAccepting() {
+		if (deterministic)
+			return state >= 0 && a.isTerminal(state);
+		for (int q = current.nextSetBit(0); q >= 0; q = current.nextSetBit(q + 1))
+			if (a.isTerminal(q))
+				return true;
+		return false;
+	}
+
+	public boolean isDead() {
+		return deterministic ? state < 0 : current.isEmpty();
+	}
+
+	public void reset() {
+		if (deterministic)
+			state = start.nextSetBit(0);
+		else {
+			current.clear();
+			current.or(start);
+		}
+	}
+
+	public Session<L> snapshot() {
+		return new FrozenSession<>(this);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Algorithms shared by the implementations of {@link IndexedAutomaton}.
+ * <p>
+ * These methods only go through the accessors of the interface, so that
+ * heap and off-heap automata answer queries the same way.
+ *
+ * @version $Id$
+ */
+final class IndexedAutomata {
+
+	private IndexedAutomata() {
+	}
+
+	/**
+	 * @see IndexedAutomaton#find(int, int)
+	 */
+	static int find(IndexedAutomaton<?> a, int state, int symbol) {
+		int start = a.outStart(state);
+		int lo = start;
+		int hi = a.outEnd(state) - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int l = a.outLabel(mid);
+			if (l < symbol)
+				lo = mid + 1;
+			else if (l > symbol || (mid > start && a.outLabel(mid - 1) == symbol))
+				hi = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * @see IndexedAutomaton#access(BitSet, boolean)
+	 */
+	static BitSet access(IndexedAutomaton<?> a, BitSet start, boolean forward) {
+		BitSet seen = (BitSet) start.clone();
+		int[] stack = new int[Math.max(16, seen.cardinality())];
+		int sp = 0;
+		for (int i = seen.nextSetBit(0); i >= 0; i = seen.nextSetBit(i + 1))
+			stack[sp++] = i;
+		while (sp > 0) {
+			int q = stack[--sp];
+			int end = forward ? a.outEnd(q) : a.inEnd(q);
+			for (int k = forward ? a.outStart(q) : a.inStart(q); k < end; k++) {
+				int r = forward ? a.target(k) : a.source(k);
+				if (seen.get(r))
+					continue;
+				seen.set(r);
+				if (sp == stack.length)
+					stack = Arrays.copyOf(stack, sp * 2);
+				stack[sp++] = r;
+			}
+		}
+		return seen;
+	}
+
+	/**
+	 * @see IndexedAutomaton#epsilonClosure(BitSet)
+	 */
+	static BitSet epsilonClosure(IndexedAutomaton<?> a, BitSet set) {
+		int[] stack = new int[Math.max(16, set.cardinality())];
+		int sp = 0;
+		for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1))
+			stack[sp++] = i;
+		while (sp > 0) {
+			int q = stack[--sp];
+			for (int k = a.outStart(q), end = a.outEnd(q); k < end && a.outLabel(k) == Alphabet.EPSILON; k++) {
+				int r = a.target(k);
+				if (set.get(r))
+					continue;
+				set.set(r);
+				if (sp == stack.length)
+					stack = Arrays.copyOf(stack, sp * 2);
+				stack[sp++] = r;
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Builds the result in a copy of the symbol table of <code>a</code>, so
+	 * that it does not grow the table of the automaton <code>a</code> was
+	 * built from.
+	 *
+	 * @see IndexedAutomaton#toAutomaton(BitSet)
+	 */
+	static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton(
+			IndexedAutomaton<L> a, BitSet keep) {
+		Automaton<L, Tr, T> b = new Automaton<>(null, new Alphabet<>(a.symbols()));
+		State[] map = new State[a.stateCount()];
+		for (int i = keep.nextSetBit(0); i >= 0; i = keep.nextSetBit(i + 1))
+			map[i] = b.addState(a.isInitial(i), a.isTerminal(i));
+		for (int i = keep.nextSetBit(0); i >= 0; i = keep.nextSetBit(i + 1)) {
+			for (int k = a.outStart(i); k < a.outEnd(i); k++) {
+				State to = map[a.target(k)];
+				if (to == null)
+					continue;
+				try {
+					b.addTransition(new Transition<L>(map[i], a.label(a.outLabel(k)), to));
+				} catch (NoSuchStateException x) {
+				}
+			}
+		}
+		return b;
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+
+/**
+ * A read-only automaton whose states and labels are numbered by integers.
+ * <p>
+ * States are numbered densely from <code>0</code> to
+ * <code>stateCount() - 1</code> and labels are numbered according to an
+ * {@link Alphabet}, symbol {@link Alphabet#EPSILON} being reserved for
+ * <em>epsilon</em>. Transitions are indexed by integers: the outgoing
+ * transitions of state <code>q</code> have indices <code>outStart(q)</code>
+ * (inclusive) to <code>outEnd(q)</code> (exclusive) and are sorted by symbol.
+ * Incoming transitions are indexed the same way, independently.
+ * <p>
+ * Algorithms written against this interface work on any compact
+ * representation of automata, whether on or off the heap.
+ *
+ * @version $Id$
+ * @see FrozenAutomaton
+ * @see OffHeapAutomaton
+ */
+public interface IndexedAutomaton<L> {
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	int stateCount();
+
+	/**
+	 * @return the number of transitions of this automaton.
+	 */
+	int transitionCount();
+
+	/**
+	 * @return the number of symbols of this automaton, including the
+	 *         reserved epsilon symbol.
+	 */
+	int symbolCount();
+
+	/**
+	 * @return the symbol table of this automaton. Symbols greater than or
+	 *         equal to {@link #symbolCount()} are not used by this automaton.
+	 */
+	Alphabet<L> symbols();
+
+	/**
+	 * Returns the label associated with given symbol.
+	 *
+	 * @param symbol
+	 *            a symbol between 0 and <code>symbolCount() - 1</code>.
+	 * @return the label, <code>null</code> for {@link Alphabet#EPSILON}.
+	 */
+	L label(int symbol);
+
+	/**
+	 * Returns the symbol associated with given label.
+	 *
+	 * @param label
+	 *            a label. May be null.
+	 * @return a symbol or -1 if <code>label</code> is not part of this
+	 *         automaton's alphabet.
+	 */
+	int symbol(L label);
+
+	boolean isInitial(int state);
+
+	boolean isTerminal(int state);
+
+	/**
+	 * @return a copy of the set of initial states.
+	 */
+	BitSet initials();
+
+	/**
+	 * @return a copy of the set of terminal states.
+	 */
+	BitSet terminals();
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index of the first transition going out of <code>state</code>.
+	 */
+	int outStart(int state);
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index past the last transition going out of <code>state</code>.
+	 */
+	int outEnd(int state);
+
+	int outLabel(int index);
+
+	int target(int index);
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index of the first transition going into <code>state</code>.
+	 */
+	int inStart(int state);
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return index past the last transition going into <code>state</code>.
+	 */
+	int inEnd(int state);
+
+	int inLabel(int index);
+
+	int source(int index);
+
+	/**
+	 * Returns the index of the first transition from <code>state</code>
+	 * labelled with <code>symbol</code>. Transitions with this symbol are
+	 * contiguous, so all of them can be enumerated by incrementing the result
+	 * while {@link #outLabel(int)} is equal to <code>symbol</code> and the
+	 * index is lower than {@link #outEnd(int)}.
+	 *
+	 * @param state
+	 *            a state.
+	 * @param symbol
+	 *            a symbol.
+	 * @return an index or -1 if there is no such transition.
+	 */
+	int find(int state, int symbol);
+
+	/**
+	 * Computes the set of states reachable from <code>start</code>, including
+	 * <code>start</code> itself.
+	 *
+	 * @param start
+	 *            the set of starting states. Not modified.
+	 * @param forward
+	 *            if false, follow transitions backwards.
+	 * @return a new BitSet.
+	 */
+	BitSet access(BitSet start, boolean forward);
+
+	/**
+	 * Closes given set of states under epsilon transitions, in place.
+	 *
+	 * @param set
+	 *            the set to close.
+	 * @return <code>set</code>.
+	 */
+	BitSet epsilonClosure(BitSet set);
+
+	/**
+	 * Creates a new automaton from the states of this automaton contained in
+	 * <code>keep</code> and all transitions between them.
+	 *
+	 * @param keep
+	 *            the set of states to keep.
+	 * @return a new Automaton.
+	 */
+	<Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton(BitSet keep);
+
+	/**
+	 * @return a new Automaton with the same states and transitions as this
+	 *         automaton.
+	 */
+	<Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton();
+}
@@ -0,0 +1,272 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a nondeterministic automaton through a determinized automaton built
+ * on demand.
+ * <p>
+ * States of the deterministic automaton are epsilon-closed sets of states of
+ * the frozen automaton, with the same closure as
+ * {@link rationals.transformations.TransformationsToolBox#epsilonClosure(java.util.Set, Automaton)}.
+ * They are created the first time a word reaches them and kept in a cache,
+ * together with the transitions computed so far, so that words read later
+ * follow a single state per label. The subset construction is thus only
+ * paid for the part of the automaton actually used.
+ * <p>
+ * The cache holds at most a given number of states. When it is full it is
+ * flushed and rebuilt from the states in use. If a flush happens after
+ * fewer than ten labels per cached state have been read since the previous
+ * one, the cache is considered thrashing and the session causing the flush
+ * falls back to a plain simulation of the automaton, through a
+ * {@link Session} of the frozen automaton, until it is reset.
+ * <p>
+ * Instances are not thread-safe: each thread should use its own instance.
+ *
+ * @version $Id$
+ * @see rationals.transformations.ToDFA
+ */
+public final class LazyDFA<L> {
+
+	private static final int DEFAULT_STATES = 10000;
+
+	/* minimum number of labels per cached state read between two flushes */
+	private static final int THRASH = 10;
+
+	private final FrozenAutomaton<L> nfa;
+
+	private final int maxStates;
+
+	private final Map<BitSet, DState> cache = new HashMap<>();
+
+	private final BitSet initials;
+
+	private final BitSet terminals;
+
+	private final DState dead;
+
+	private DState start;
+
+	private int generation;
+
+	private long steps;
+
+	private boolean thrashed;
+
+	private int resets;
+
+	private int fallbacks;
+
+	/**
+	 * Creates a lazy DFA caching at most 10000 states.
+	 *
+	 * @param a
+	 *            the automaton. Later modifications are not reflected.
+	 */
+	public LazyDFA(Automaton<L, ?, ?> a) {
+		this(a, DEFAULT_STATES);
+	}
+
+	/**
+	 * @param a
+	 *            the automaton. Later modifications are not reflected.
+	 * @param maxStates
+	 *            the maximum number of deterministic states kept in cache.
+	 */
+	public LazyDFA(Automaton<L, ?, ?> a, int maxStates) {
+		if (maxStates < 1)
+			throw new IllegalArgumentException("cache must hold at least one state");
+		this.nfa = a.freeze();
+		this.maxStates = maxStates;
+		this.initials = nfa.epsilonClosure(nfa.initials());
+		this.terminals = nfa.terminals();
+		this.dead = new DState(new BitSet(), false, 0, generation);
+	}
+
+	/*
+	 * a state of the deterministic automaton
+	 */
+	private static final class DState {
+
+		final BitSet set;
+
+		final boolean accepting;
+
+		/* successor by symbol, null if not yet computed */
+		final DState[] next;
+
+		final int generation;
+
+		DState(BitSet set, boolean accepting, int symbols, int generation) {
+			this.set = set;
+			this.accepting = accepting;
+			this.next = set.isEmpty() ? null : new DState[symbols];
+			this.generation = generation;
+		}
+	}
+
+	private DState intern(BitSet set) {
+		if (set.isEmpty())
+			return dead;
+		DState d = cache.get(set);
+		if (d == null) {
+			if (cache.size() >= maxStates)
+				flush();
+			d = new DState(set, set.intersects(terminals), nfa.symbolCount(), generation);
+			cache.put(set, d);
+		}
+		return d;
+	}
+
+	private void flush() {
+		cache.clear();
+		generation++;
+		resets++;
+		start = null;
+		thrashed = steps < (long) THRASH * maxStates;
+		steps = 0;
+	}
+
+	private DState start() {
+		if (start == null || start.generation != generation)
+			start = intern(initials);
+		return start;
+	}
+
+	/*
+	 * successor of d on a symbol of the automaton
+	 */
+	private DState step(DState d, int sym) {
+		steps++;
+		if (d.generation != generation)
+			d = intern(d.set);
+		DState n = d.next[sym];
+		if (n == null) {
+			BitSet to = new BitSet(nfa.stateCount());
+			for (int q = d.set.nextSetBit(0); q >= 0; q = d.set.nextSetBit(q + 1)) {
+				int k = nfa.find(q, sym);
+				if (k < 0)
+					continue;
+				for (int end = nfa.outEnd(q); k < end && nfa.outLabel(k) == sym; k++)
+					to.set(nfa.target(k));
+			}
+			n = intern(nfa.epsilonClosure(to));
+			d.next[sym] = n;
+		}
+		return n;
+	}
+
+	/**
+	 * @param word
+	 *            a list of labels.
+	 * @return true if the automaton accepts <code>word</code>. As with
+	 *         {@link Automaton#accept(List)}, words containing
+	 *         <code>null</code> are rejected.
+	 */
+	public boolean accept(List<L> word) {
+		Session<L> s = session();
+		for (L l : word)
+			if (l == null || !s.feed(l))
+				return false;
+		return s.isAccepting();
+	}
+
+	/**
+	 * @return a new Session reading words through this lazy DFA.
+	 */
+	public Session<L> session() {
+		return new LazySession(start(), null);
+	}
+
+	/**
+	 * @return the number of deterministic states currently cached.
+	 */
+	public int cacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * @return the number of times the cache has been flushed.
+	 */
+	public int resetCount() {
+		return resets;
+	}
+
+	/**
+	 * @return the number of times a session fell back to simulating the
+	 *         automaton because the cache was thrashing.
+	 */
+	public int fallbackCount() {
+		return fallbacks;
+	}
+
+	private final class LazySession implements Session<L> {
+
+		private DState current;
+
+		/* simulation used when the cache thrashes */
+		private Session<L> simulation;
+
+		LazySession(DState current, Session<L> simulation) {
+			this.current = current;
+			this.simulation = simulation;
+		}
+
+		public boolean feed(L label) {
+			if (label == null)
+				return !isDead();
+			if (simulation != null)
+				return simulation.feed(label);
+			if (current == dead)
+				return false;
+			int sym = nfa.symbol(label);
+			if (sym < 0) {
+				current = dead;
+				return false;
+			}
+			current = step(current, sym);
+			if (thrashed) {
+				thrashed = false;
+				fallbacks++;
+				simulation = new FrozenSession<>(nfa, current.set);
+			}
+			return current != dead;
+		}
+
+		public boolean isAccepting() {
+			return simulation != null ? simulation.isAccepting() : current.accepting;
+		}
+
+		public boolean isDead() {
+			return simulation != null ? simulation.isDead() : current == dead;
+		}
+
+		public void reset() {
+			simulation = null;
+			current = start();
+		}
+
+		public Session<L> snapshot() {
+			return new LazySession(current, simulation == null ? null : simulation.snapshot());
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+
+/**
+ * A read-only automaton whose transitions are stored outside the Java heap.
+ * <p>
+ * This automaton has the same layout as {@link FrozenAutomaton}, but its
+ * transition tables live in direct buffers: the heap only holds the symbol
+ * table and the sets of initial and terminal states, so automata with
+ * hundreds of millions of transitions neither need a large heap nor make
+ * garbage collections longer. Instances are created with an
+ * {@link OffHeapLoader} and can be given to the algorithms accepting an
+ * {@link IndexedAutomaton}.
+ *
+ * @version $Id$
+ * @see OffHeapLoader
+ */
+public final class OffHeapAutomaton<L> implements IndexedAutomaton<L> {
+
+	private final int stateCount;
+
+	private final int transitionCount;
+
+	private final Alphabet<L> symbols;
+
+	private final int symbolCount;
+
+	private final BitSet initials;
+
+	private final BitSet terminals;
+
+	private final OffHeapInts offsets;
+
+	private final OffHeapInts outLabels;
+
+	private final OffHeapInts targets;
+
+	private final OffHeapInts reverseOffsets;
+
+	private final OffHeapInts inLabels;
+
+	private final OffHeapInts sources;
+
+	OffHeapAutomaton(int stateCount, int transitionCount, Alphabet<L> symbols, BitSet initials, BitSet terminals,
+			OffHeapInts offsets, OffHeapInts outLabels, OffHeapInts targets, OffHeapInts reverseOffsets,
+			OffHeapInts inLabels, OffHeapInts sources) {
+		this.stateCount = stateCount;
+		this.transitionCount = transitionCount;
+		this.symbols = symbols;
+		this.symbolCount = symbols.size();
+		this.initials = initials;
+		this.terminals = terminals;
+		this.offsets = offsets;
+		this.outLabels = outLabels;
+		this.targets = targets;
+		this.reverseOffsets = reverseOffsets;
+		this.inLabels = inLabels;
+		this.sources = sources;
+	}
+
+	/**
+	 * Copies an indexed automaton off the heap.
+	 *
+	 * @param a
+	 *            an automaton, for instance a {@link FrozenAutomaton}.
+	 * @return a new OffHeapAutomaton with the same states, symbol table and
+	 *         transitions as <code>a</code>.
+	 */
+	public static <L> OffHeapAutomaton<L> of(IndexedAutomaton<L> a) {
+		OffHeapLoader<L> loader = new OffHeapLoader<>(a.symbols(), a.stateCount(), a.transitionCount());
+		for (int q = 0; q < a.stateCount(); q++) {
+			if (a.isInitial(q))
+				loader.initials(q);
+			if (a.isTerminal(q))
+				loader.terminals(q);
+			for (int k = a.outStart(q); k < a.outEnd(q); k++)
+				loader.edge(q, a.outLabel(k), a.target(k));
+		}
+		return loader.build();
+	}
+
+	public int stateCount() {
+		return stateCount;
+	}
+
+	public int transitionCount() {
+		return transitionCount;
+	}
+
+	public int symbolCount() {
+		return symbolCount;
+	}
+
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	public L label(int symbol) {
+		return symbols.label(symbol);
+	}
+
+	public int symbol(L label) {
+		int i = symbols.symbol(label);
+		return i < symbolCount ? i : -1;
+	}
+
+	public boolean isInitial(int state) {
+		return initials.get(state);
+	}
+
+	public boolean isTerminal(int state) {
+		return terminals.get(state);
+	}
+
+	public BitSet initials() {
+		return (BitSet) initials.clone();
+	}
+
+	public BitSet terminals() {
+		return (BitSet) terminals.clone();
+	}
+
+	public int outStart(int state) {
+		return offsets.get(state);
+	}
+
+	public int outEnd(int state) {
+		return offsets.get(state + 1);
+	}
+
+	public int outLabel(int index) {
+		return outLabels.get(index);
+	}
+
+	public int target(int index) {
+		return targets.get(index);
+	}
+
+	public int inStart(int state) {
+		return reverseOffsets.get(state);
+	}
+
+	public int inEnd(int state) {
+		return reverseOffsets.get(state + 1);
+	}
+
+	public int inLabel(int index) {
+		return inLabels.get(index);
+	}
+
+	public int source(int index) {
+		return sources.get(index);
+	}
+
+	public int find(int state, int symbol) {
+		return IndexedAutomata.find(this, state, symbol);
+	}
+
+	public BitSet access(BitSet start, boolean forward) {
+		return IndexedAutomata.access(this, start, forward);
+	}
+
+	public BitSet epsilonClosure(BitSet set) {
+		return IndexedAutomata.epsilonClosure(this, set);
+	}
+
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton(BitSet keep) {
+		return IndexedAutomata.toAutomaton(this, keep);
+	}
+
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton() {
+		BitSet all = new BitSet(stateCount);
+		all.set(0, stateCount);
+		return toAutomaton(all);
+	}
+}
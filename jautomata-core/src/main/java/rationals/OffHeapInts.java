@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable array of ints stored in direct buffers.
+ * <p>
+ * Values are stored in pages of at most <code>2^20</code> ints, each page
+ * being a direct buffer, so that arrays can hold up to
+ * <code>Integer.MAX_VALUE</code> values without a single huge allocation and
+ * without being scanned by the garbage collector.
+ */
+final class OffHeapInts {
+
+	private static final int PAGE_BITS = 20;
+
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private IntBuffer[] pages = new IntBuffer[0];
+
+	/* number of ints that can be written without growing */
+	private int capacity;
+
+	OffHeapInts(int capacity) {
+		ensure(capacity);
+	}
+
+	int get(int i) {
+		return pages[i >>> PAGE_BITS].get(i & PAGE_MASK);
+	}
+
+	void set(int i, int v) {
+		pages[i >>> PAGE_BITS].put(i & PAGE_MASK, v);
+	}
+
+	/*
+	 * make sure indices lower than n can be written
+	 */
+	void ensure(int n) {
+		if (n <= capacity)
+			return;
+		int last = (n - 1) >>> PAGE_BITS;
+		if (last >= pages.length)
+			pages = Arrays.copyOf(pages, last + 1);
+		for (int p = 0; p <= last; p++) {
+			int need = p < last ? PAGE_SIZE : ((n - 1) & PAGE_MASK) + 1;
+			IntBuffer old = pages[p];
+			if (old != null && old.capacity() >= need)
+				continue;
+			int cap = old == null ? Math.max(16, need) : Math.min(PAGE_SIZE, Math.max(need, old.capacity() * 2));
+			IntBuffer page = ByteBuffer.allocateDirect(cap * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+			if (old != null) {
+				old.clear();
+				page.put(old);
+				page.clear();
+			}
+			pages[p] = page;
+		}
+		capacity = (int) Math.min(Integer.MAX_VALUE, (long) last * PAGE_SIZE + pages[last].capacity());
+	}
+}
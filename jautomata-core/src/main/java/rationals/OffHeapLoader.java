@@ -0,0 +1,280 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+
+/**
+ * Builds {@link OffHeapAutomaton} instances.
+ * <p>
+ * This class is used like {@link AutomatonLoader}: states are designated by
+ * their index and transitions are recorded as <code>(src, symbol, dst)</code>
+ * triples, but these triples are kept in direct buffers. {@link #build()}
+ * sorts them by source and symbol, removes duplicates and computes the
+ * reverse table, all outside of the heap.
+ *
+ * @version $Id$
+ * @see OffHeapAutomaton
+ */
+public class OffHeapLoader<L> {
+
+	private final Alphabet<L> symbols;
+
+	private final int stateCount;
+
+	private final BitSet initials = new BitSet();
+
+	private final BitSet terminals = new BitSet();
+
+	private final OffHeapInts src;
+
+	private final OffHeapInts lbl;
+
+	private final OffHeapInts dst;
+
+	private int size;
+
+	/**
+	 * Creates a loader for an automaton with given number of states and
+	 * symbol table.
+	 *
+	 * @param symbols
+	 *            the symbol table for labels. May be null, in which case a new
+	 *            table is created.
+	 * @param stateCount
+	 *            the number of states of the automaton.
+	 * @param expectedTransitions
+	 *            an estimate of the number of transitions, used to size
+	 *            internal buffers.
+	 */
+	public OffHeapLoader(Alphabet<L> symbols, int stateCount, int expectedTransitions) {
+		if (stateCount < 0)
+			throw new IllegalArgumentException("negative number of states: " + stateCount);
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
+		this.stateCount = stateCount;
+		this.src = new OffHeapInts(expectedTransitions);
+		this.lbl = new OffHeapInts(expectedTransitions);
+		this.dst = new OffHeapInts(expectedTransitions);
+	}
+
+	/**
+	 * @return the symbol table used by this loader.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * Marks states as initial.
+	 *
+	 * @param states
+	 *            indices of initial states.
+	 * @return this loader.
+	 */
+	public OffHeapLoader<L> initials(int... states) {
+		for (int s : states)
+			initials.set(check(s));
+		return this;
+	}
+
+	/**
+	 * Marks states as terminal.
+	 *
+	 * @param states
+	 *            indices of terminal states.
+	 * @return this loader.
+	 */
+	public OffHeapLoader<L> terminals(int... states) {
+		for (int s : states)
+			terminals.set(check(s));
+		return this;
+	}
+
+	/**
+	 * Records a transition.
+	 *
+	 * @param from
+	 *            index of start state.
+	 * @param label
+	 *            label of transition. May be null.
+	 * @param to
+	 *            index of end state.
+	 * @return this loader.
+	 */
+	public OffHeapLoader<L> transition(int from, L label, int to) {
+		return edge(from, symbols.intern(label), to);
+	}
+
+	/**
+	 * Records a transition labelled with a symbol of this loader's table.
+	 *
+	 * @param from
+	 *            index of start state.
+	 * @param symbol
+	 *            a symbol of {@link #symbols()}.
+	 * @param to
+	 *            index of end state.
+	 * @return this loader.
+	 */
+	public OffHeapLoader<L> edge(int from, int symbol, int to) {
+		check(from);
+		check(to);
+		if (symbol < 0 || symbol >= symbols.size())
+			throw new IllegalArgumentException("unknown symbol " + symbol);
+		if (size == Integer.MAX_VALUE)
+			throw new IllegalStateException("too many transitions");
+		src.ensure(size + 1);
+		lbl.ensure(size + 1);
+		dst.ensure(size + 1);
+		src.set(size, from);
+		lbl.set(size, symbol);
+		dst.set(size, to);
+		size++;
+		return this;
+	}
+
+	/**
+	 * @return the number of transitions recorded so far.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates the automaton recorded by this loader.
+	 *
+	 * @return a new OffHeapAutomaton with a read-only copy of the symbol
+	 *         table of this loader.
+	 */
+	public OffHeapAutomaton<L> build() {
+		int n = stateCount;
+		OffHeapInts offsets = new OffHeapInts(n + 1);
+		OffHeapInts labels = new OffHeapInts(size);
+		OffHeapInts targets = new OffHeapInts(size);
+		bucket(n, size, src, lbl, dst, offsets, labels, targets);
+		int m = compact(n, offsets, labels, targets);
+		/* reverse table from the deduplicated one */
+		OffHeapInts from = new OffHeapInts(m);
+		for (int q = 0; q < n; q++)
+			for (int k = offsets.get(q), end = offsets.get(q + 1); k < end; k++)
+				from.set(k, q);
+		OffHeapInts reverseOffsets = new OffHeapInts(n + 1);
+		OffHeapInts inLabels = new OffHeapInts(m);
+		OffHeapInts sources = new OffHeapInts(m);
+		bucket(n, m, targets, labels, from, reverseOffsets, inLabels, sources);
+		return new OffHeapAutomaton<>(n, m, symbols.readOnly(), (BitSet) initials.clone(), (BitSet) terminals.clone(), offsets,
+				labels, targets, reverseOffsets, inLabels, sources);
+	}
+
+	/*
+	 * group m triples by key into (off, ls, ts), each group sorted on (label,
+	 * value)
+	 */
+	private static void bucket(int n, int m, OffHeapInts key, OffHeapInts label, OffHeapInts value,
+			OffHeapInts off, OffHeapInts ls, OffHeapInts ts) {
+		for (int k = 0; k < m; k++) {
+			int q = key.get(k) + 1;
+			off.set(q, off.get(q) + 1);
+		}
+		for (int q = 0; q < n; q++)
+			off.set(q + 1, off.get(q + 1) + off.get(q));
+		OffHeapInts pos = new OffHeapInts(n);
+		for (int q = 0; q < n; q++)
+			pos.set(q, off.get(q));
+		for (int k = 0; k < m; k++) {
+			int q = key.get(k);
+			int p = pos.get(q);
+			pos.set(q, p + 1);
+			ls.set(p, label.get(k));
+			ts.set(p, value.get(k));
+		}
+		for (int q = 0; q < n; q++)
+			sort(ls, ts, off.get(q), off.get(q + 1));
+	}
+
+	/*
+	 * remove duplicate pairs in each group, returns new number of pairs
+	 */
+	private static int compact(int n, OffHeapInts off, OffHeapInts ls, OffHeapInts ts) {
+		int w = 0;
+		for (int q = 0; q < n; q++) {
+			int start = off.get(q);
+			int end = off.get(q + 1);
+			off.set(q, w);
+			for (int k = start; k < end; k++) {
+				int l = ls.get(k);
+				int t = ts.get(k);
+				if (w > off.get(q) && ls.get(w - 1) == l && ts.get(w - 1) == t)
+					continue;
+				ls.set(w, l);
+				ts.set(w, t);
+				w++;
+			}
+		}
+		off.set(n, w);
+		return w;
+	}
+
+	private static long key(OffHeapInts a, OffHeapInts b, int i) {
+		return ((long) a.get(i) << 32) | b.get(i);
+	}
+
+	private static void swap(OffHeapInts a, OffHeapInts b, int i, int j) {
+		int x = a.get(i);
+		a.set(i, a.get(j));
+		a.set(j, x);
+		x = b.get(i);
+		b.set(i, b.get(j));
+		b.set(j, x);
+	}
+
+	/*
+	 * sort pairs in [lo, hi) on (a, b), values being non negative
+	 */
+	private static void sort(OffHeapInts a, OffHeapInts b, int lo, int hi) {
+		while (hi - lo > 16) {
+			long p = key(a, b, (lo + hi) >>> 1);
+			int i = lo;
+			int j = hi - 1;
+			while (i <= j) {
+				while (key(a, b, i) < p)
+					i++;
+				while (key(a, b, j) > p)
+					j--;
+				if (i <= j)
+					swap(a, b, i++, j--);
+			}
+			/* recurse on smaller part */
+			if (j - lo < hi - i) {
+				sort(a, b, lo, j + 1);
+				lo = i;
+			} else {
+				sort(a, b, i, hi);
+				hi = j + 1;
+			}
+		}
+		for (int i = lo + 1; i < hi; i++)
+			for (int j = i; j > lo && key(a, b, j - 1) > key(a, b, j); j--)
+				swap(a, b, j - 1, j);
+	}
+
+	private int check(int s) {
+		if (s < 0 || s >= stateCount)
+			throw new IllegalArgumentException("no state " + s);
+		return s;
+	}
+}
@@ -0,0 +1,420 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import rationals.converters.ConverterException;
+import rationals.converters.Expression;
+
+/**
+ * A set of patterns matched together by a single deterministic automaton.
+ * <p>
+ * Patterns are numbered from <code>0</code> in the order they are given. They
+ * are compiled into one minimal deterministic automaton for the union of
+ * their languages, in which each state carries the set of patterns accepting
+ * the words leading to it. Determinization keeps track of the pattern owning
+ * each state of the union, and minimization only merges states with equal
+ * sets of patterns. Reading a word then takes one table lookup per label,
+ * whatever the number of patterns, and gives the set of all patterns
+ * matching the word.
+ * <p>
+ * States are numbered from <code>0</code> to <code>stateCount() - 1</code>,
+ * <code>-1</code> denoting the dead state from which no pattern can match.
+ * Instances are immutable and may be shared by several threads.
+ *
+ * @version $Id$
+ */
+public final class PatternSet<L> {
+
+	private final Alphabet<L> symbols;
+
+	private final int symbolCount;
+
+	private final int patternCount;
+
+	private final int stateCount;
+
+	/* successor or -1, indexed by state * symbolCount + symbol */
+	private final int[] table;
+
+	private final BitSet[] ids;
+
+	private final int start;
+
+	private PatternSet(Alphabet<L> symbols, int patternCount, int[] table, BitSet[] ids, int start) {
+		this.symbols = symbols;
+		this.symbolCount = symbols.size();
+		this.patternCount = patternCount;
+		this.stateCount = ids.length;
+		this.table = table;
+		this.ids = ids;
+		this.start = start;
+	}
+
+	/**
+	 * Compiles regular expressions.
+	 *
+	 * @param expressions
+	 *            expressions in the syntax of {@link Expression}.
+	 * @return a new PatternSet where pattern <code>i</code> is
+	 *         <code>expressions[i]</code>.
+	 * @throws ConverterException
+	 *             if some expression cannot be parsed.
+	 */
+	public static PatternSet<String> compile(String... expressions) throws ConverterException {
+		List<Automaton<String, ?, ?>> patterns = new ArrayList<>();
+		for (String e : expressions)
+			patterns.add(new Expression<Transition<String>, TransitionBuilder<String>>().fromString(e));
+		return compile(patterns);
+	}
+
+	/**
+	 * Compiles automata.
+	 *
+	 * @param patterns
+	 *            the automata. Later modifications are not reflected.
+	 * @return a new PatternSet where pattern <code>i</code> is
+	 *         <code>patterns.get(i)</code>.
+	 */
+	public static <L> PatternSet<L> compile(List<? extends Automaton<L, ?, ?>> patterns) {
+		int n = patterns.size();
+		List<FrozenAutomaton<L>> frozen = new ArrayList<>();
+		Alphabet<L> symbols = new Alphabet<>();
+		/* common symbol of each symbol of each pattern */
+		int[][] common = new int[n][];
+		int[] offset = new int[n + 1];
+		for (int p = 0; p < n; p++) {
+			FrozenAutomaton<L> f = patterns.get(p).freeze();
+			frozen.add(f);
+			common[p] = new int[f.symbolCount()];
+			for (int s = 1; s < f.symbolCount(); s++)
+				common[p][s] = symbols.intern(f.label(s));
+			offset[p + 1] = offset[p] + f.stateCount();
+		}
+		int[] owner = new int[offset[n]];
+		for (int p = 0; p < n; p++)
+			Arrays.fill(owner, offset[p], offset[p + 1], p);
+		Union<L> u = new Union<>(frozen, common, offset, owner);
+		/* subset construction */
+		Map<BitSet, Integer> index = new HashMap<>();
+		List<BitSet> sets = new ArrayList<>();
+		List<int[]> rows = new ArrayList<>();
+		LinkedList<Integer> todo = new LinkedList<>();
+		BitSet init = new BitSet();
+		for (int p = 0; p < n; p++) {
+			BitSet i = frozen.get(p).initials();
+			for (int q = i.nextSetBit(0); q >= 0; q = i.nextSetBit(q + 1))
+				init.set(offset[p] + q);
+		}
+		u.closure(init);
+		index.put(init, 0);
+		sets.add(init);
+		rows.add(null);
+		todo.add(0);
+		int symbolCount = symbols.size();
+		long[] edges = new long[16];
+		while (!todo.isEmpty()) {
+			int d = todo.removeFirst();
+			BitSet set = sets.get(d);
+			int[] row = new int[symbolCount];
+			Arrays.fill(row, -1);
+			int m = 0;
+			for (int g = set.nextSetBit(0); g >= 0; g = set.nextSetBit(g + 1)) {
+				int p = owner[g];
+				FrozenAutomaton<L> f = frozen.get(p);
+				int q = g - offset[p];
+				for (int k = f.outStart(q); k < f.outEnd(q); k++) {
+					if (f.outLabel(k) == Alphabet.EPSILON)
+						continue;
+					if (m == edges.length)
+						edges = Arrays.copyOf(edges, m * 2);
+					edges[m++] = ((long) common[p][f.outLabel(k)] << 32) | (offset[p] + f.target(k));
+				}
+			}
+			Arrays.sort(edges, 0, m);
+			for (int i = 0; i < m;) {
+				int c = (int) (edges[i] >>> 32);
+				BitSet to = new BitSet();
+				while (i < m && (int) (edges[i] >>> 32) == c)
+					to.set((int) edges[i++]);
+				u.closure(to);
+				Integer t = index.get(to);
+				if (t == null) {
+					t = sets.size();
+					index.put(to, t);
+					sets.add(to);
+					rows.add(null);
+					todo.add(t);
+				}
+				row[c] = t;
+			}
+			rows.set(d, row);
+		}
+		int size = sets.size();
+		BitSet[] accepted = new BitSet[size];
+		for (int d = 0; d < size; d++)
+			accepted[d] = u.ids(sets.get(d));
+		return minimize(symbols, n, rows, accepted);
+	}
+
+	/*
+	 * Moore's partition refinement, starting from states grouped by their
+	 * set of patterns, after removing states from which no pattern can match
+	 */
+	private static <L> PatternSet<L> minimize(Alphabet<L> symbols, int patternCount, List<int[]> rows,
+			BitSet[] accepted) {
+		int size = rows.size();
+		int k = symbols.size();
+		BitSet live = coaccessible(rows, accepted, k);
+		int[] cls = new int[size];
+		Map<BitSet, Integer> first = new HashMap<>();
+		for (int d = 0; d < size; d++) {
+			if (!live.get(d)) {
+				cls[d] = -1;
+				continue;
+			}
+			Integer c = first.get(accepted[d]);
+			if (c == null)
+				first.put(accepted[d], c = first.size());
+			cls[d] = c;
+		}
+		int count = first.size();
+		for (;;) {
+			Map<Signature, Integer> sigs = new HashMap<>();
+			int[] next = new int[size];
+			for (int d = 0; d < size; d++) {
+				if (cls[d] < 0) {
+					next[d] = -1;
+					continue;
+				}
+				int[] v = new int[k + 1];
+				v[0] = cls[d];
+				int[] row = rows.get(d);
+				for (int c = 1; c < k; c++)
+					v[c + 1] = row[c] < 0 ? -1 : cls[row[c]];
+				Signature s = new Signature(v);
+				Integer c = sigs.get(s);
+				if (c == null)
+					sigs.put(s, c = sigs.size());
+				next[d] = c;
+			}
+			cls = next;
+			if (sigs.size() == count)
+				break;
+			count = sigs.size();
+		}
+		int[] table = new int[count * k];
+		Arrays.fill(table, -1);
+		BitSet[] ids = new BitSet[count];
+		for (int d = 0; d < size; d++) {
+			int c = cls[d];
+			if (c < 0 || ids[c] != null)
+				continue;
+			ids[c] = accepted[d];
+			int[] row = rows.get(d);
+			for (int s = 1; s < k; s++)
+				table[c * k + s] = row[s] < 0 ? -1 : cls[row[s]];
+		}
+		return new PatternSet<>(symbols, patternCount, table, ids, cls[0]);
+	}
+
+	/*
+	 * states from which a state accepted by some pattern can be reached
+	 */
+	private static BitSet coaccessible(List<int[]> rows, BitSet[] accepted, int k) {
+		int size = rows.size();
+		int[] offsets = new int[size + 1];
+		for (int[] row : rows)
+			for (int c = 1; c < k; c++)
+				if (row[c] >= 0)
+					offsets[row[c] + 1]++;
+		for (int d = 0; d < size; d++)
+			offsets[d + 1] += offsets[d];
+		int[] sources = new int[offsets[size]];
+		int[] pos = Arrays.copyOf(offsets, size);
+		for (int d = 0; d < size; d++) {
+			int[] row = rows.get(d);
+			for (int c = 1; c < k; c++)
+				if (row[c] >= 0)
+					sources[pos[row[c]]++] = d;
+		}
+		BitSet live = new BitSet(size);
+		int[] stack = new int[size];
+		int sp = 0;
+		for (int d = 0; d < size; d++)
+			if (!accepted[d].isEmpty()) {
+				live.set(d);
+				stack[sp++] = d;
+			}
+		while (sp > 0) {
+			int d = stack[--sp];
+			for (int i = offsets[d]; i < offsets[d + 1]; i++)
+				if (!live.get(sources[i])) {
+					live.set(sources[i]);
+					stack[sp++] = sources[i];
+				}
+		}
+		return live;
+	}
+
+	/*
+	 * a class and the classes of its successors
+	 */
+	private static final class Signature {
+
+		private final int[] v;
+
+		private final int hash;
+
+		Signature(int[] v) {
+			this.v = v;
+			this.hash = Arrays.hashCode(v);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Signature && Arrays.equals(v, ((Signature) o).v);
+		}
+	}
+
+	/*
+	 * disjoint union of the frozen patterns, state g of the union being
+	 * state g - offset[p] of pattern p = owner[g]
+	 */
+	private static final class Union<L> {
+
+		final List<FrozenAutomaton<L>> frozen;
+
+		final int[][] common;
+
+		final int[] offset;
+
+		final int[] owner;
+
+		Union(List<FrozenAutomaton<L>> frozen, int[][] common, int[] offset, int[] owner) {
+			this.frozen = frozen;
+			this.common = common;
+			this.offset = offset;
+			this.owner = owner;
+		}
+
+		void closure(BitSet set) {
+			int[] stack = new int[Math.max(16, set.cardinality())];
+			int sp = 0;
+			for (int g = set.nextSetBit(0); g >= 0; g = set.nextSetBit(g + 1))
+				stack[sp++] = g;
+			while (sp > 0) {
+				int g = stack[--sp];
+				int p = owner[g];
+				FrozenAutomaton<L> f = frozen.get(p);
+				int q = g - offset[p];
+				for (int k = f.outStart(q); k < f.outEnd(q) && f.outLabel(k) == Alphabet.EPSILON; k++) {
+					int r = offset[p] + f.target(k);
+					if (set.get(r))
+						continue;
+					set.set(r);
+					if (sp == stack.length)
+						stack = Arrays.copyOf(stack, sp * 2);
+					stack[sp++] = r;
+				}
+			}
+		}
+
+		BitSet ids(BitSet set) {
+			BitSet ids = new BitSet();
+			for (int g = set.nextSetBit(0); g >= 0; g = set.nextSetBit(g + 1)) {
+				int p = owner[g];
+				if (frozen.get(p).isTerminal(g - offset[p]))
+					ids.set(p);
+			}
+			return ids;
+		}
+	}
+
+	/**
+	 * @return the number of patterns.
+	 */
+	public int patternCount() {
+		return patternCount;
+	}
+
+	/**
+	 * @return the number of states of the minimal automaton.
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * @return the initial state, -1 if no pattern matches any word.
+	 */
+	public int initial() {
+		return start;
+	}
+
+	/**
+	 * @param state
+	 *            a state or -1.
+	 * @param label
+	 *            a label. <code>null</code> labels are ignored.
+	 * @return the successor of <code>state</code> on <code>label</code>, -1
+	 *         if no pattern can match any more.
+	 */
+	public int step(int state, L label) {
+		if (state < 0 || label == null)
+			return state;
+		int s = symbols.symbol(label);
+		return s <= 0 || s >= symbolCount ? -1 : table[state * symbolCount + s];
+	}
+
+	/**
+	 * @param state
+	 *            a state or -1.
+	 * @return a new BitSet of the patterns matching words leading to
+	 *         <code>state</code>.
+	 */
+	public BitSet ids(int state) {
+		return state < 0 ? new BitSet() : (BitSet) ids[state].clone();
+	}
+
+	/**
+	 * @param word
+	 *            a sequence of labels.
+	 * @return a new BitSet of the patterns matching <code>word</code>.
+	 */
+	public BitSet matches(Iterable<L> word) {
+		int q = start;
+		for (L l : word) {
+			if (q < 0)
+				break;
+			q = step(q, l);
+		}
+		return ids(q);
+	}
+}
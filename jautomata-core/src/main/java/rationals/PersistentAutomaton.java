@@ -0,0 +1,488 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable automaton whose versions share structure.
+ * <p>
+ * States are numbered densely from <code>0</code> to
+ * <code>stateCount() - 1</code> and labels are numbered according to an
+ * {@link Alphabet}, as in {@link FrozenAutomaton}. Each state is stored with
+ * its flags and its sorted outgoing transitions in a 32-way trie indexed by
+ * state number. Methods which modify the automaton leave this instance
+ * unchanged and return a new version which shares all but the path to the
+ * modified state, so that an edit costs <code>O(log32(n))</code> plus the
+ * out-degree of the modified state, and {@link #clone()} costs nothing.
+ * <p>
+ * Symbol tables are {@link Alphabet#readOnly() read-only} too, and
+ * persistent: versions share an append-only store of labels and each sees
+ * a prefix of it, so that adding a transition with a new label costs
+ * constant time when done on the latest version knowing the most labels,
+ * and a copy of the table otherwise. Labels keep their symbol in all
+ * versions derived from a version knowing them.
+ * <p>
+ * This class does not implement {@link Rational} nor {@link StateMachine},
+ * whose methods deal with {@link State} objects and sets rather than state
+ * numbers: transformations apply to the result of {@link #toAutomaton()}.
+ *
+ * @version $Id$
+ * @see #of(Automaton)
+ */
+public final class PersistentAutomaton<L> {
+
+	private static final int BITS = 5;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final int[] NO_TRANSITIONS = new int[0];
+
+	/*
+	 * a state: flags and outgoing transitions as sorted (symbol, target)
+	 * pairs
+	 */
+	private static final class Row {
+
+		final boolean initial;
+
+		final boolean terminal;
+
+		final int[] out;
+
+		Row(boolean initial, boolean terminal, int[] out) {
+			this.initial = initial;
+			this.terminal = terminal;
+			this.out = out;
+		}
+	}
+
+	private final Alphabet<L> symbols;
+
+	private final Object[] root;
+
+	private final int shift;
+
+	private final int stateCount;
+
+	private final int transitionCount;
+
+	private final int epsilons;
+
+	/**
+	 * Creates an empty automaton with a new symbol table.
+	 */
+	public PersistentAutomaton() {
+		this(null);
+	}
+
+	/**
+	 * Creates an empty automaton with given symbols.
+	 *
+	 * @param symbols
+	 *            the symbol table whose read-only copy is used. May be null,
+	 *            in which case a new table is created.
+	 */
+	public PersistentAutomaton(Alphabet<L> symbols) {
+		this((symbols == null ? new Alphabet<L>() : symbols).persistent(), new Object[1 << BITS], 0, 0, 0, 0);
+	}
+
+	private PersistentAutomaton(Alphabet<L> symbols, Object[] root, int shift, int stateCount,
+			int transitionCount, int epsilons) {
+		this.symbols = symbols;
+		this.root = root;
+		this.shift = shift;
+		this.stateCount = stateCount;
+		this.transitionCount = transitionCount;
+		this.epsilons = epsilons;
+	}
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * @return the number of transitions of this automaton.
+	 */
+	public int transitionCount() {
+		return transitionCount;
+	}
+
+	/**
+	 * @return the read-only symbol table of this automaton.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	public boolean isInitial(int state) {
+		return row(state).initial;
+	}
+
+	public boolean isTerminal(int state) {
+		return row(state).terminal;
+	}
+
+	/**
+	 * @param state
+	 *            a state number.
+	 * @return the number of transitions starting from <code>state</code>.
+	 */
+	public int outDegree(int state) {
+		return row(state).out.length >> 1;
+	}
+
+	/**
+	 * @param state
+	 *            a state number.
+	 * @param k
+	 *            an index lower than {@link #outDegree(int)}.
+	 * @return the symbol of the <code>k</code>-th transition from
+	 *         <code>state</code>, transitions being sorted by symbol.
+	 */
+	public int outLabel(int state, int k) {
+		return row(state).out[k << 1];
+	}
+
+	/**
+	 * @param state
+	 *            a state number.
+	 * @param k
+	 *            an index lower than {@link #outDegree(int)}.
+	 * @return the end state of the <code>k</code>-th transition from
+	 *         <code>state</code>.
+	 */
+	public int target(int state, int k) {
+		return row(state).out[(k << 1) + 1];
+	}
+
+	/**
+	 * Returns this automaton. Instances are immutable so they can be shared
+	 * freely.
+	 *
+	 * @return this automaton.
+	 */
+	@Override
+	public PersistentAutomaton<L> clone() {
+		return this;
+	}
+
+	/**
+	 * Adds a new state.
+	 *
+	 * @param initial
+	 *            if true, the new state is initial.
+	 * @param terminal
+	 *            if true, the new state is terminal.
+	 * @return a new version of this automaton where state number
+	 *         {@link #stateCount()} has been added.
+	 */
+	public PersistentAutomaton<L> addState(boolean initial, boolean terminal) {
+		Object[] r = root;
+		int sh = shift;
+		if (stateCount == 1 << (shift + BITS)) {
+			r = new Object[1 << BITS];
+			r[0] = root;
+			sh += BITS;
+		}
+		r = assoc(r, sh, stateCount, new Row(initial, terminal, NO_TRANSITIONS));
+		return new PersistentAutomaton<>(symbols, r, sh, stateCount + 1, transitionCount, epsilons);
+	}
+
+	/**
+	 * Changes the initial flag of a state.
+	 *
+	 * @param state
+	 *            a state number.
+	 * @param initial
+	 *            the new flag.
+	 * @return a new version of this automaton, or this automaton if nothing
+	 *         changed.
+	 */
+	public PersistentAutomaton<L> setInitial(int state, boolean initial) {
+		Row row = row(state);
+		if (row.initial == initial)
+			return this;
+		return with(state, new Row(initial, row.terminal, row.out), transitionCount, epsilons);
+	}
+
+	/**
+	 * Changes the terminal flag of a state.
+	 *
+	 * @param state
+	 *            a state number.
+	 * @param terminal
+	 *            the new flag.
+	 * @return a new version of this automaton, or this automaton if nothing
+	 *         changed.
+	 */
+	public PersistentAutomaton<L> setTerminal(int state, boolean terminal) {
+		Row row = row(state);
+		if (row.terminal == terminal)
+			return this;
+		return with(state, new Row(row.initial, terminal, row.out), transitionCount, epsilons);
+	}
+
+	/**
+	 * Adds a transition.
+	 *
+	 * @param from
+	 *            start state.
+	 * @param label
+	 *            label of transition. May be null.
+	 * @param to
+	 *            end state.
+	 * @return a new version of this automaton, or this automaton if the
+	 *         transition already exists.
+	 */
+	public PersistentAutomaton<L> addTransition(int from, L label, int to) {
+		row(to);
+		Row row = row(from);
+		Alphabet<L> syms = symbols.with(label);
+		int l = syms.symbol(label);
+		int k = search(row.out, l, to);
+		if (k >= 0)
+			return this;
+		k = -k - 1;
+		int[] out = new int[row.out.length + 2];
+		System.arraycopy(row.out, 0, out, 0, k);
+		out[k] = l;
+		out[k + 1] = to;
+		System.arraycopy(row.out, k, out, k + 2, row.out.length - k);
+		return new PersistentAutomaton<>(syms, assoc(root, shift, from, new Row(row.initial, row.terminal, out)),
+				shift, stateCount, transitionCount + 1, l == Alphabet.EPSILON ? epsilons + 1 : epsilons);
+	}
+
+	/**
+	 * Removes a transition.
+	 *
+	 * @param from
+	 *            start state.
+	 * @param label
+	 *            label of transition. May be null.
+	 * @param to
+	 *            end state.
+	 * @return a new version of this automaton, or this automaton if there is
+	 *         no such transition.
+	 */
+	public PersistentAutomaton<L> removeTransition(int from, L label, int to) {
+		Row row = row(from);
+		int l = symbols.symbol(label);
+		int k = l < 0 ? -1 : search(row.out, l, to);
+		if (k < 0)
+			return this;
+		int[] out = new int[row.out.length - 2];
+		System.arraycopy(row.out, 0, out, 0, k);
+		System.arraycopy(row.out, k + 2, out, k, out.length - k);
+		return with(from, new Row(row.initial, row.terminal, out), transitionCount - 1,
+				l == Alphabet.EPSILON ? epsilons - 1 : epsilons);
+	}
+
+	/**
+	 * Tells whether a state has a transition.
+	 *
+	 * @param from
+	 *            start state.
+	 * @param label
+	 *            label of transition. May be null.
+	 * @param to
+	 *            end state.
+	 * @return true if this automaton contains transition
+	 *         <code>(from, label, to)</code>.
+	 */
+	public boolean hasTransition(int from, L label, int to) {
+		int l = symbols.symbol(label);
+		return l >= 0 && search(row(from).out, l, to) >= 0;
+	}
+
+	/**
+	 * @return the initial states of this automaton.
+	 */
+	public BitSet initials() {
+		BitSet b = new BitSet(stateCount);
+		for (int q = 0; q < stateCount; q++)
+			if (row(q).initial)
+				b.set(q);
+		return b;
+	}
+
+	/**
+	 * @return the terminal states of this automaton.
+	 */
+	public BitSet terminals() {
+		BitSet b = new BitSet(stateCount);
+		for (int q = 0; q < stateCount; q++)
+			if (row(q).terminal)
+				b.set(q);
+		return b;
+	}
+
+	/**
+	 * Computes in place the epsilon closure of a set of states.
+	 *
+	 * @param set
+	 *            a set of state numbers, which is modified.
+	 * @return <code>set</code>.
+	 */
+	public BitSet epsilonClosure(BitSet set) {
+		if (epsilons == 0)
+			return set;
+		int[] todo = new int[stateCount];
+		int n = 0;
+		for (int q = set.nextSetBit(0); q >= 0; q = set.nextSetBit(q + 1))
+			todo[n++] = q;
+		while (n > 0) {
+			int[] out = row(todo[--n]).out;
+			for (int k = 0; k < out.length && out[k] == Alphabet.EPSILON; k += 2)
+				if (!set.get(out[k + 1])) {
+					set.set(out[k + 1]);
+					todo[n++] = out[k + 1];
+				}
+		}
+		return set;
+	}
+
+	/**
+	 * Tells whether this automaton accepts a word.
+	 *
+	 * @param word
+	 *            a List of labels.
+	 * @return true if some path labelled with <code>word</code> leads from an
+	 *         initial state to a terminal state.
+	 */
+	public boolean accept(List<L> word) {
+		BitSet cur = epsilonClosure(initials());
+		for (L o : word) {
+			int l = symbols.symbol(o);
+			if (l <= Alphabet.EPSILON)
+				return false;
+			BitSet next = new BitSet(stateCount);
+			for (int q = cur.nextSetBit(0); q >= 0; q = cur.nextSetBit(q + 1)) {
+				int[] out = row(q).out;
+				/* no target is negative so this is the first pair with l */
+				for (int i = -search(out, l, -1) - 1; i < out.length && out[i] == l; i += 2)
+					next.set(out[i + 1]);
+			}
+			cur = epsilonClosure(next);
+			if (cur.isEmpty())
+				return false;
+		}
+		for (int q = cur.nextSetBit(0); q >= 0; q = cur.nextSetBit(q + 1))
+			if (row(q).terminal)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Creates an automaton with the same states and transitions as this
+	 * automaton. State <code>i</code> of this automaton is the
+	 * <code>i</code>-th state created.
+	 *
+	 * @return a new Automaton with a modifiable copy of the symbol table of
+	 *         this automaton.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> toAutomaton() {
+		AutomatonLoader<L, Tr, T> loader = new AutomatonLoader<>(new Alphabet<>(symbols), stateCount,
+				transitionCount);
+		for (int q = 0; q < stateCount; q++) {
+			Row row = row(q);
+			if (row.initial)
+				loader.initials(q);
+			if (row.terminal)
+				loader.terminals(q);
+			for (int k = 0; k < row.out.length; k += 2)
+				loader.edge(q, row.out[k], row.out[k + 1]);
+		}
+		return loader.build();
+	}
+
+	/**
+	 * Creates a persistent automaton from an automaton. State <code>i</code>
+	 * of the result is the <code>i</code>-th state of {@link Automaton#states()}.
+	 *
+	 * @param a
+	 *            an automaton.
+	 * @return a new PersistentAutomaton with a read-only copy of the symbol
+	 *         table of <code>a</code>.
+	 */
+	public static <L> PersistentAutomaton<L> of(Automaton<L, ?, ?> a) {
+		Map<State, Integer> ids = new HashMap<>(a.states().size() * 2);
+		PersistentAutomaton<L> p = new PersistentAutomaton<>(a.symbols());
+		for (State s : a.states()) {
+			ids.put(s, ids.size());
+			p = p.addState(s.isInitial(), s.isTerminal());
+		}
+		for (Transition<L> t : a.transitions())
+			p = p.addTransition(ids.get(t.start()), t.label(), ids.get(t.end()));
+		return p;
+	}
+
+	/*
+	 * index of (symbol, target) pair in out, or -(insertion point + 1)
+	 */
+	private static int search(int[] out, int symbol, int target) {
+		int lo = 0;
+		int hi = (out.length >> 1) - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int s = out[mid << 1];
+			int t = out[(mid << 1) + 1];
+			int c = s != symbol ? (s < symbol ? -1 : 1) : (t < target ? -1 : (t == target ? 0 : 1));
+			if (c < 0)
+				lo = mid + 1;
+			else if (c > 0)
+				hi = mid - 1;
+			else
+				return mid << 1;
+		}
+		return -((lo << 1) + 1);
+	}
+
+	private Row row(int state) {
+		if (state < 0 || state >= stateCount)
+			throw new IndexOutOfBoundsException("no state " + state);
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS)
+			node = (Object[]) node[(state >>> level) & MASK];
+		return (Row) node[state & MASK];
+	}
+
+	private PersistentAutomaton<L> with(int state, Row row, int transitions, int eps) {
+		return new PersistentAutomaton<>(symbols, assoc(root, shift, state, row), shift, stateCount,
+				transitions, eps);
+	}
+
+	/*
+	 * copy path to index i, creating missing nodes
+	 */
+	private static Object[] assoc(Object[] node, int level, int i, Row row) {
+		Object[] copy = node == null ? new Object[1 << BITS] : Arrays.copyOf(node, node.length);
+		int k = (i >>> level) & MASK;
+		if (level == 0)
+			copy[k] = row;
+		else
+			copy[k] = assoc((Object[]) copy[k], level - BITS, i, row);
+		return copy;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+/**
+ * A cursor reading a word one label at a time.
+ * <p>
+ * A session holds the set of states reached by the labels fed so far, so
+ * that words arriving as streams of events can be checked without keeping
+ * them. Feeding a label takes time independent of the length of the word
+ * read so far and allocates no object. Sessions are not thread-safe, but
+ * several sessions of the same automaton can be used concurrently.
+ *
+ * @version $Id$
+ * @see Acceptor#session()
+ */
+public interface Session<L> {
+
+	/**
+	 * Reads one label. Labels not in the alphabet of the automaton lead to a
+	 * dead session. Feeding <code>null</code> does not change the session.
+	 *
+	 * @param label
+	 *            the next label of the word.
+	 * @return false if this session is dead after reading
+	 *         <code>label</code>.
+	 */
+	boolean feed(L label);
+
+	/**
+	 * @return true if the labels fed since the last reset form a word
+	 *         accepted by the automaton.
+	 */
+	boolean isAccepting();
+
+	/**
+	 * @return true if no state is reached, hence no continuation of the
+	 *         labels fed since the last reset can be accepted.
+	 */
+	boolean isDead();
+
+	/**
+	 * Goes back to the initial states, as if no label had been fed.
+	 */
+	void reset();
+
+	/**
+	 * @return a new session in the same state as this session, which
+	 *         evolves independently.
+	 */
+	Session<L> snapshot();
+}
@@ -34,6 +34,13 @@ class StateLabels {
     private Map<Object, State> labelToStates = new HashMap<Object, State>();
 
 
+    /**
+     * @return the number of labelled states.
+     */
+    public int size() {
+        return stateToLabels.size();
+    }
+
     public State state(Object label) {
         return labelToStates.get(label);
     }
@@ -165,6 +165,7 @@ public class Transition<L> {
    */
   void setLabel(L obj) {
     this.label = obj;
+    this.hashCodeCache = Integer.MIN_VALUE;
   }
 
 }
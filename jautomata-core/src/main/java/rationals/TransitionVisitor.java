@@ -0,0 +1,40 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+/**
+ * An interface for visiting the transitions of an automaton.
+ * <p>
+ * Objects implementing this interface are given each transition of an
+ * automaton in turn, without the automaton copying its transitions.
+ * 
+ * @version $Id$
+ * @see Automaton#forEachTransition(TransitionVisitor)
+ */
+public interface TransitionVisitor<L> {
+
+    /**
+     * Callback method called once for each transition visited.
+     * 
+     * @param transition
+     *            a transition of the visited automaton. This transition must
+     *            not be modified nor may the automaton be modified during the
+     *            visit.
+     */
+    public void visit(Transition<L> transition);
+
+}
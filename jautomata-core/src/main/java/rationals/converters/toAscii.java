@@ -33,7 +33,7 @@ public class toAscii<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
         sb.append("T = ").append(a.terminals().toString()).append("\n");
         sb.append("delta = [\n");
         List<String> list = new ArrayList<>();
-        Iterator<Transition<L>> i = a.delta().iterator();
+        Iterator<Transition<L>> i = a.transitions().iterator();
         while (i.hasNext())
         	list.add(i.next().toString());
         java.util.Collections.sort(list);
@@ -0,0 +1,294 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.implicit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.State;
+import rationals.Transition;
+
+/**
+ * On-the-fly algorithms over {@link ImplicitAutomaton}s.
+ * <p>
+ * These algorithms explore states breadth-first from the initial states and
+ * stop as soon as the answer is known. Only visited states are kept in
+ * memory, together with the label and predecessor they were reached from so
+ * that traces can be reported.
+ *
+ * @version $Id$
+ */
+public final class Exploration {
+
+	private Exploration() {
+	}
+
+	/*
+	 * how a state was first reached
+	 */
+	private static final class Step<S, L> {
+
+		final S from;
+
+		final L label;
+
+		Step(S from, L label) {
+			this.from = from;
+			this.label = label;
+		}
+	}
+
+	/**
+	 * Computes the set of states reachable from the initial states.
+	 *
+	 * @param a
+	 *            an implicit automaton with finitely many reachable states.
+	 * @return a new set of states.
+	 */
+	public static <S, L> Set<S> reachable(ImplicitAutomaton<S, L> a) {
+		Set<S> visited = new HashSet<>(a.initials());
+		Deque<S> todo = new ArrayDeque<>(visited);
+		while (!todo.isEmpty()) {
+			S s = todo.removeFirst();
+			for (L l : a.labels(s))
+				for (S t : a.successors(s, l))
+					if (visited.add(t))
+						todo.addLast(t);
+		}
+		return visited;
+	}
+
+	/**
+	 * Tells whether an implicit automaton recognizes no word. Exploration
+	 * stops at the first terminal state reached.
+	 *
+	 * @param a
+	 *            an implicit automaton.
+	 * @return true iff no terminal state is reachable.
+	 */
+	public static <S, L> boolean isEmpty(ImplicitAutomaton<S, L> a) {
+		return acceptedTrace(a) == null;
+	}
+
+	/**
+	 * Finds a shortest word recognized by an implicit automaton. Epsilon
+	 * transitions do not count in the length of a word, so states are
+	 * explored by a 0-1 breadth-first search: states reached by an epsilon
+	 * transition are explored before states reached by a labelled one.
+	 *
+	 * @param a
+	 *            an implicit automaton.
+	 * @return the labels of a path from an initial state to a terminal state
+	 *         with the fewest non epsilon labels, without epsilons, or null if
+	 *         there is none.
+	 */
+	public static <S, L> List<L> acceptedTrace(ImplicitAutomaton<S, L> a) {
+		Map<S, Step<S, L>> visited = new HashMap<>();
+		Map<S, Integer> length = new HashMap<>();
+		Set<S> done = new HashSet<>();
+		Deque<S> todo = new ArrayDeque<>();
+		for (S s : a.initials())
+			if (!visited.containsKey(s)) {
+				visited.put(s, null);
+				length.put(s, 0);
+				todo.addLast(s);
+			}
+		while (!todo.isEmpty()) {
+			S s = todo.removeFirst();
+			/* already explored with a shorter trace */
+			if (!done.add(s))
+				continue;
+			if (a.isTerminal(s))
+				return trace(visited, s);
+			int n = length.get(s);
+			for (L l : a.labels(s)) {
+				int m = l == null ? n : n + 1;
+				for (S t : a.successors(s, l)) {
+					Integer k = length.get(t);
+					if (k == null || m < k) {
+						visited.put(t, new Step<>(s, l));
+						length.put(t, m);
+						if (l == null)
+							todo.addFirst(t);
+						else
+							todo.addLast(t);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private static <S, L> List<L> trace(Map<S, Step<S, L>> visited, S s) {
+		LinkedList<L> trace = new LinkedList<>();
+		for (Step<S, L> st = visited.get(s); st != null; st = visited.get(st.from))
+			if (st.label != null)
+				trace.addFirst(st.label);
+		return trace;
+	}
+
+	/**
+	 * Checks that every word of an implicit system is recognized by a
+	 * property automaton, without building the system. As in
+	 * {@link rationals.properties.ModelCheck}, the product of the system with
+	 * the complement of the property is checked for emptiness, but the
+	 * property is determinized and complemented on the fly. Labels outside
+	 * the alphabet of the property are not constrained by it.
+	 *
+	 * @param system
+	 *            the implicit automaton to check.
+	 * @param property
+	 *            an automaton recognizing the allowed words.
+	 * @return a shortest word of <code>system</code> not recognized by
+	 *         <code>property</code>, or null if there is none.
+	 */
+	public static <S, L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> List<L> counterExample(
+			ImplicitAutomaton<S, L> system, Automaton<L, Tr, T> property) {
+		return acceptedTrace(new ImplicitProduct<>(system, new Complemented<>(property)));
+	}
+
+	/*
+	 * the complement of an automaton, determinized on the fly, which stays in
+	 * place on labels outside its alphabet
+	 */
+	private static final class Complemented<L> implements ImplicitAutomaton<Set<State>, L> {
+
+		private final Automaton<L, ?, ?> a;
+
+		private final Set<L> alphabet;
+
+		Complemented(Automaton<L, ?, ?> a) {
+			this.a = a;
+			this.alphabet = new HashSet<>(a.alphabet());
+		}
+
+		public Collection<Set<State>> initials() {
+			return Collections.singleton(a.epsilonClosure(a.initials()));
+		}
+
+		public boolean isTerminal(Set<State> state) {
+			for (State q : state)
+				if (q.isTerminal())
+					return false;
+			return true;
+		}
+
+		public Collection<L> labels(Set<State> state) {
+			return alphabet;
+		}
+
+		public Collection<Set<State>> successors(Set<State> state, L label) {
+			if (label == null)
+				return Collections.emptySet();
+			if (!alphabet.contains(label))
+				return Collections.singleton(state);
+			return Collections.singleton(a.epsilonClosure(a.step(state, label)));
+		}
+	}
+
+	/**
+	 * Checks trace equivalence of two implicit automata, that is whether
+	 * they can perform the same sequences of labels. Both automata are
+	 * determinized on the fly and terminal states are ignored, as in
+	 * {@link rationals.properties.TraceEquivalence}.
+	 *
+	 * @param a
+	 *            an implicit automaton.
+	 * @param b
+	 *            another implicit automaton.
+	 * @return a shortest trace which can be performed by only one of the
+	 *         automata, or null if they are trace equivalent.
+	 */
+	public static <A, B, L> List<L> traceDifference(ImplicitAutomaton<A, L> a, ImplicitAutomaton<B, L> b) {
+		ImplicitProduct.Pair<Set<A>, Set<B>> start = new ImplicitProduct.Pair<>(closure(a, a.initials()), closure(b,
+				b.initials()));
+		Map<ImplicitProduct.Pair<Set<A>, Set<B>>, Step<ImplicitProduct.Pair<Set<A>, Set<B>>, L>> visited = new HashMap<>();
+		Deque<ImplicitProduct.Pair<Set<A>, Set<B>>> todo = new ArrayDeque<>();
+		visited.put(start, null);
+		todo.add(start);
+		while (!todo.isEmpty()) {
+			ImplicitProduct.Pair<Set<A>, Set<B>> p = todo.removeFirst();
+			Map<L, Set<A>> am = moves(a, p.left());
+			Map<L, Set<B>> bm = moves(b, p.right());
+			for (L l : am.keySet())
+				if (!bm.containsKey(l))
+					return append(trace(visited, p), l);
+			for (L l : bm.keySet())
+				if (!am.containsKey(l))
+					return append(trace(visited, p), l);
+			for (Map.Entry<L, Set<A>> e : am.entrySet()) {
+				ImplicitProduct.Pair<Set<A>, Set<B>> q = new ImplicitProduct.Pair<>(e.getValue(), bm.get(e.getKey()));
+				if (!visited.containsKey(q)) {
+					visited.put(q, new Step<>(p, e.getKey()));
+					todo.addLast(q);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static <L> List<L> append(List<L> trace, L l) {
+		List<L> t = new ArrayList<>(trace);
+		t.add(l);
+		return t;
+	}
+
+	/*
+	 * sets of states reached by each non epsilon label from s, closed under
+	 * epsilon transitions
+	 */
+	private static <S, L> Map<L, Set<S>> moves(ImplicitAutomaton<S, L> a, Set<S> s) {
+		Map<L, Set<S>> m = new LinkedHashMap<>();
+		for (S q : s)
+			for (L l : a.labels(q)) {
+				if (l == null)
+					continue;
+				Set<S> to = m.get(l);
+				if (to == null)
+					m.put(l, to = new HashSet<>());
+				to.addAll(a.successors(q, l));
+			}
+		for (Map.Entry<L, Set<S>> e : m.entrySet())
+			e.setValue(closure(a, e.getValue()));
+		return m;
+	}
+
+	/*
+	 * epsilon closure of a set of states
+	 */
+	private static <S, L> Set<S> closure(ImplicitAutomaton<S, L> a, Collection<S> s) {
+		Set<S> c = new HashSet<>(s);
+		Deque<S> todo = new ArrayDeque<>(c);
+		while (!todo.isEmpty())
+			for (S t : a.successors(todo.removeFirst(), null))
+				if (c.add(t))
+					todo.addLast(t);
+		return c;
+	}
+}
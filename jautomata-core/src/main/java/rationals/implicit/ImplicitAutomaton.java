@@ -0,0 +1,63 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.implicit;
+
+import java.util.Collection;
+
+/**
+ * An automaton whose states and transitions are computed on demand.
+ * <p>
+ * States are arbitrary user objects which must implement
+ * <code>equals</code> and <code>hashCode</code> consistently, as algorithms
+ * of {@link Exploration} keep visited states in hash tables. Only the
+ * initial states and a successor function need to be given, so the state
+ * space of a simulator or a model can be explored without building an
+ * {@link rationals.Automaton}. The <code>null</code> label denotes epsilon
+ * transitions, as in {@link rationals.Automaton}.
+ *
+ * @param <S>
+ *            type of states.
+ * @param <L>
+ *            type of labels.
+ * @version $Id$
+ * @see Exploration
+ * @see StateMachineAutomaton
+ */
+public interface ImplicitAutomaton<S, L> {
+
+	/**
+	 * @return the initial states of this automaton.
+	 */
+	Collection<S> initials();
+
+	/**
+	 * @return true iff <code>state</code> is terminal.
+	 */
+	boolean isTerminal(S state);
+
+	/**
+	 * @return the labels of transitions leaving <code>state</code>,
+	 *         including <code>null</code> if there are epsilon transitions.
+	 */
+	Collection<L> labels(S state);
+
+	/**
+	 * @return the states reached from <code>state</code> by a transition
+	 *         labelled with <code>label</code>, possibly none.
+	 */
+	Collection<S> successors(S state, L label);
+}
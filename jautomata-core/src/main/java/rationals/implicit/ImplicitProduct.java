@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.implicit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Synchronized product of two implicit automata, computed on demand.
+ * <p>
+ * Both automata move together on each label and independently on epsilon
+ * transitions, so the product recognizes the intersection of their
+ * languages. Labels are enumerated from the left automaton only: the right
+ * one is merely asked for its successors, so it may accept labels it cannot
+ * enumerate.
+ *
+ * @version $Id$
+ */
+public class ImplicitProduct<A, B, L> implements ImplicitAutomaton<ImplicitProduct.Pair<A, B>, L> {
+
+	/**
+	 * A state of the product.
+	 */
+	public static final class Pair<A, B> {
+
+		private final A left;
+
+		private final B right;
+
+		private final int hash;
+
+		public Pair(A left, B right) {
+			this.left = left;
+			this.right = right;
+			this.hash = 31 * left.hashCode() + right.hashCode();
+		}
+
+		public A left() {
+			return left;
+		}
+
+		public B right() {
+			return right;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Pair))
+				return false;
+			Pair<?, ?> p = (Pair<?, ?>) obj;
+			return left.equals(p.left) && right.equals(p.right);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			return "<" + left + "," + right + ">";
+		}
+	}
+
+	private final ImplicitAutomaton<A, L> left;
+
+	private final ImplicitAutomaton<B, L> right;
+
+	public ImplicitProduct(ImplicitAutomaton<A, L> left, ImplicitAutomaton<B, L> right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	public Collection<Pair<A, B>> initials() {
+		List<Pair<A, B>> init = new ArrayList<>();
+		for (A a : left.initials())
+			for (B b : right.initials())
+				init.add(new Pair<>(a, b));
+		return init;
+	}
+
+	public boolean isTerminal(Pair<A, B> state) {
+		return left.isTerminal(state.left) && right.isTerminal(state.right);
+	}
+
+	public Collection<L> labels(Pair<A, B> state) {
+		Set<L> labels = new LinkedHashSet<>(left.labels(state.left));
+		if (!right.successors(state.right, null).isEmpty())
+			labels.add(null);
+		return labels;
+	}
+
+	public Collection<Pair<A, B>> successors(Pair<A, B> state, L label) {
+		Set<Pair<A, B>> to = new LinkedHashSet<>();
+		if (label == null) {
+			for (A a : left.successors(state.left, null))
+				to.add(new Pair<>(a, state.right));
+			for (B b : right.successors(state.right, null))
+				to.add(new Pair<>(state.left, b));
+			return to;
+		}
+		Collection<B> bs = right.successors(state.right, label);
+		if (bs.isEmpty())
+			return to;
+		for (A a : left.successors(state.left, label))
+			for (B b : bs)
+				to.add(new Pair<>(a, b));
+		return to;
+	}
+}
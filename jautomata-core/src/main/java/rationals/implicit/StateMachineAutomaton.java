@@ -0,0 +1,67 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.implicit;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import rationals.State;
+import rationals.StateMachine;
+import rationals.Transition;
+
+/**
+ * Views a {@link StateMachine} as an implicit automaton. Transitions are
+ * queried through {@link StateMachine#delta(State)} and
+ * {@link StateMachine#delta(State, Object)} as exploration proceeds.
+ *
+ * @version $Id$
+ */
+public class StateMachineAutomaton<L> implements ImplicitAutomaton<State, L> {
+
+	private final StateMachine<L> machine;
+
+	/**
+	 * @param machine
+	 *            the state machine to explore.
+	 */
+	public StateMachineAutomaton(StateMachine<L> machine) {
+		this.machine = machine;
+	}
+
+	public Collection<State> initials() {
+		return machine.initials();
+	}
+
+	public boolean isTerminal(State state) {
+		return state.isTerminal();
+	}
+
+	public Collection<L> labels(State state) {
+		Set<L> labels = new HashSet<>();
+		for (Transition<L> t : machine.delta(state))
+			labels.add(t.label());
+		return labels;
+	}
+
+	public Collection<State> successors(State state, L label) {
+		Set<State> to = new HashSet<>();
+		for (Transition<L> t : machine.delta(state, label))
+			to.add(t.end());
+		return to;
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer of JVM class files.
+ * <p>
+ * Classes are written in version 49 format, which does not require stack map
+ * frames, and may only contain public methods with integer arithmetic,
+ * branches, switches and method calls: this is all {@link DFACompiler} needs.
+ *
+ * @version $Id$
+ */
+final class ClassFile {
+
+	static final int ILOAD = 0x15, ISTORE = 0x36, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ICONST_0 = 0x03, BIPUSH = 0x10,
+			SIPUSH = 0x11, LDC_W = 0x13, IALOAD = 0x2e, IADD = 0x60, IINC = 0x84, ARRAYLENGTH = 0xbe,
+			IF_ICMPEQ = 0x9f, IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2, IF_ICMPGT = 0xa3, IF_ICMPLE = 0xa4, GOTO = 0xa7,
+			TABLESWITCH = 0xaa, LOOKUPSWITCH = 0xab, IRETURN = 0xac, RETURN = 0xb1, INVOKESPECIAL = 0xb7,
+			INVOKESTATIC = 0xb8, INVOKEINTERFACE = 0xb9;
+
+	private final Bytes pool = new Bytes();
+
+	private final Map<String, Integer> entries = new HashMap<>();
+
+	private int poolSize = 1;
+
+	private final String name;
+
+	private final List<byte[]> methods = new ArrayList<>();
+
+	/**
+	 * @param name
+	 *            internal name of the class, with slashes.
+	 */
+	ClassFile(String name) {
+		this.name = name;
+	}
+
+	/*
+	 * constant pool
+	 */
+	private int entry(String key, int tag, int a, int b, String utf) {
+		Integer i = entries.get(key);
+		if (i != null)
+			return i;
+		pool.u1(tag);
+		if (utf != null)
+			pool.utf(utf);
+		else if (tag == 3)
+			pool.u4(a);
+		else {
+			pool.u2(a);
+			if (b >= 0)
+				pool.u2(b);
+		}
+		entries.put(key, poolSize);
+		return poolSize++;
+	}
+
+	int utf8(String s) {
+		return entry("U" + s, 1, 0, 0, s);
+	}
+
+	int integer(int v) {
+		return entry("I" + v, 3, v, 0, null);
+	}
+
+	int type(String internalName) {
+		return entry("C" + internalName, 7, utf8(internalName), -1, null);
+	}
+
+	private int nameAndType(String n, String desc) {
+		return entry("N" + n + ":" + desc, 12, utf8(n), utf8(desc), null);
+	}
+
+	int method(String owner, String n, String desc) {
+		return entry("M" + owner + "." + n + desc, 10, type(owner), nameAndType(n, desc), null);
+	}
+
+	int interfaceMethod(String owner, String n, String desc) {
+		return entry("J" + owner + "." + n + desc, 11, type(owner), nameAndType(n, desc), null);
+	}
+
+	/**
+	 * Adds a public method.
+	 */
+	void addMethod(String n, String desc, Code code, int maxStack, int maxLocals) {
+		byte[] c = code.toBytes();
+		Bytes m = new Bytes();
+		m.u2(0x0001);
+		m.u2(utf8(n));
+		m.u2(utf8(desc));
+		m.u2(1);
+		m.u2(utf8("Code"));
+		m.u4(12 + c.length);
+		m.u2(maxStack);
+		m.u2(maxLocals);
+		m.u4(c.length);
+		m.bytes(c, c.length);
+		m.u2(0);
+		m.u2(0);
+		methods.add(m.toBytes());
+	}
+
+	/**
+	 * @return the class file of a public final class extending
+	 *         <code>Object</code> and implementing given interface.
+	 */
+	byte[] toBytes(String iface) {
+		int self = type(name);
+		int sup = type("java/lang/Object");
+		int itf = type(iface);
+		Bytes b = new Bytes();
+		b.u4(0xCAFEBABE);
+		b.u2(0);
+		b.u2(49);
+		b.u2(poolSize);
+		byte[] p = pool.toBytes();
+		b.bytes(p, p.length);
+		b.u2(0x0031);
+		b.u2(self);
+		b.u2(sup);
+		b.u2(1);
+		b.u2(itf);
+		b.u2(0);
+		b.u2(methods.size());
+		for (byte[] m : methods)
+			b.bytes(m, m.length);
+		b.u2(0);
+		return b.toBytes();
+	}
+
+	/*
+	 * growable byte array
+	 */
+	static class Bytes {
+
+		byte[] data = new byte[256];
+
+		int size;
+
+		private void ensure(int n) {
+			if (size + n > data.length)
+				data = Arrays.copyOf(data, Math.max(data.length * 2, size + n));
+		}
+
+		void u1(int v) {
+			ensure(1);
+			data[size++] = (byte) v;
+		}
+
+		void u2(int v) {
+			ensure(2);
+			data[size++] = (byte) (v >>> 8);
+			data[size++] = (byte) v;
+		}
+
+		void u4(int v) {
+			ensure(4);
+			data[size++] = (byte) (v >>> 24);
+			data[size++] = (byte) (v >>> 16);
+			data[size++] = (byte) (v >>> 8);
+			data[size++] = (byte) v;
+		}
+
+		void put4(int pos, int v) {
+			data[pos] = (byte) (v >>> 24);
+			data[pos + 1] = (byte) (v >>> 16);
+			data[pos + 2] = (byte) (v >>> 8);
+			data[pos + 3] = (byte) v;
+		}
+
+		void bytes(byte[] b, int n) {
+			ensure(n);
+			System.arraycopy(b, 0, data, size, n);
+			size += n;
+		}
+
+		void utf(String s) {
+			/* only ASCII names and descriptors are written */
+			u2(s.length());
+			for (int i = 0; i < s.length(); i++)
+				u1(s.charAt(i));
+		}
+
+		byte[] toBytes() {
+			return Arrays.copyOf(data, size);
+		}
+	}
+
+	/**
+	 * A position in the code of a method.
+	 */
+	static final class Label {
+
+		int pos = -1;
+	}
+
+	/**
+	 * The code of a method, with forward references to labels.
+	 */
+	final class Code {
+
+		private final Bytes code = new Bytes();
+
+		/* instruction position, patch position, label, wide offset */
+		private final List<Object[]> fixups = new ArrayList<>();
+
+		void op(int opcode) {
+			code.u1(opcode);
+		}
+
+		void op(int opcode, int arg) {
+			code.u1(opcode);
+			code.u1(arg);
+		}
+
+		void iinc(int local, int inc) {
+			code.u1(IINC);
+			code.u1(local);
+			code.u1(inc);
+		}
+
+		void push(int v) {
+			if (v >= -1 && v <= 5)
+				code.u1(ICONST_0 + v);
+			else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE)
+				op(BIPUSH, v & 0xff);
+			else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+				code.u1(SIPUSH);
+				code.u2(v);
+			} else {
+				code.u1(LDC_W);
+				code.u2(integer(v));
+			}
+		}
+
+		void invoke(int opcode, int ref) {
+			code.u1(opcode);
+			code.u2(ref);
+		}
+
+		void invokeInterface(int ref, int argSlots) {
+			code.u1(INVOKEINTERFACE);
+			code.u2(ref);
+			code.u1(argSlots);
+			code.u1(0);
+		}
+
+		void mark(Label l) {
+			l.pos = code.size;
+		}
+
+		void jump(int opcode, Label l) {
+			int at = code.size;
+			code.u1(opcode);
+			fixups.add(new Object[] { at, code.size, l, false });
+			code.u2(0);
+		}
+
+		/**
+		 * Emits a lookupswitch on sorted keys.
+		 */
+		void lookupSwitch(Label dflt, int[] keys, Label[] targets) {
+			int at = code.size;
+			code.u1(LOOKUPSWITCH);
+			while (code.size % 4 != 0)
+				code.u1(0);
+			wide(at, dflt);
+			code.u4(keys.length);
+			for (int i = 0; i < keys.length; i++) {
+				code.u4(keys[i]);
+				wide(at, targets[i]);
+			}
+		}
+
+		/**
+		 * Emits a tableswitch on keys from <code>low</code> to
+		 * <code>low + targets.length - 1</code>.
+		 */
+		void tableSwitch(Label dflt, int low, Label[] targets) {
+			int at = code.size;
+			code.u1(TABLESWITCH);
+			while (code.size % 4 != 0)
+				code.u1(0);
+			wide(at, dflt);
+			code.u4(low);
+			code.u4(low + targets.length - 1);
+			for (Label t : targets)
+				wide(at, t);
+		}
+
+		private void wide(int at, Label l) {
+			fixups.add(new Object[] { at, code.size, l, true });
+			code.u4(0);
+		}
+
+		int size() {
+			return code.size;
+		}
+
+		byte[] toBytes() {
+			if (code.size >= 65536)
+				throw new IllegalArgumentException("method too large: " + code.size + " bytes");
+			for (Object[] f : fixups) {
+				int at = (Integer) f[0], patch = (Integer) f[1];
+				int off = ((Label) f[2]).pos - at;
+				if ((Boolean) f[3])
+					code.put4(patch, off);
+				else {
+					if (off < Short.MIN_VALUE || off > Short.MAX_VALUE)
+						throw new IllegalArgumentException("branch offset too large: " + off);
+					code.data[patch] = (byte) (off >>> 8);
+					code.data[patch + 1] = (byte) off;
+				}
+			}
+			return code.toBytes();
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CharAutomaton;
+import rationals.Transition;
+
+/**
+ * Compiles deterministic automata over characters to JVM classes.
+ * <p>
+ * The generated {@link Matcher} has one block of code per state: the block
+ * reads the next code point and jumps to the block of the next state through
+ * a <code>tableswitch</code> or <code>lookupswitch</code> instruction, or
+ * through a sequence of comparisons for large ranges. There is no table
+ * lookup left at run time, and the JIT compiler sees the whole automaton as
+ * straight-line code.
+ * <p>
+ * Each compiled class is defined in its own class loader so that it can be
+ * unloaded once the matcher is no longer used. Automata whose code would not
+ * fit in a single method are rejected, and should be matched with the
+ * interpreted {@link CharAutomaton} instead.
+ *
+ * @version $Id$
+ */
+public final class DFACompiler {
+
+	/* states with at most this number of characters use a switch */
+	private static final int SWITCH_KEYS = 256;
+
+	private static final AtomicInteger COUNT = new AtomicInteger();
+
+	private DFACompiler() {
+	}
+
+	/**
+	 * Compiles a deterministic automaton labelled with characters.
+	 *
+	 * @param a
+	 *            a deterministic automaton accepted by
+	 *            {@link CharAutomaton#of(Automaton)}.
+	 * @return a new compiled Matcher.
+	 * @throws IllegalArgumentException
+	 *             if <code>a</code> is not deterministic or too large.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> Matcher compile(Automaton<L, Tr, T> a) {
+		return compile(CharAutomaton.of(a));
+	}
+
+	/**
+	 * Compiles a deterministic char automaton.
+	 *
+	 * @param a
+	 *            a deterministic automaton.
+	 * @return a new compiled Matcher.
+	 * @throws IllegalArgumentException
+	 *             if <code>a</code> is not deterministic or too large.
+	 */
+	public static Matcher compile(CharAutomaton a) {
+		if (!a.isDeterministic())
+			throw new IllegalArgumentException("automaton is not deterministic");
+		String name = "rationals/matching/CompiledMatcher" + COUNT.incrementAndGet();
+		ClassFile cf = new ClassFile(name);
+		ClassFile.Code init = cf.new Code();
+		init.op(ClassFile.ALOAD_0);
+		init.invoke(ClassFile.INVOKESPECIAL, cf.method("java/lang/Object", "<init>", "()V"));
+		init.op(ClassFile.RETURN);
+		cf.addMethod("<init>", "()V", init, 1, 1);
+		cf.addMethod("matches", "([I)Z", body(cf, a, false, false), 3, 5);
+		cf.addMethod("matches", "(Ljava/lang/CharSequence;)Z", body(cf, a, true, false), 3, 5);
+		cf.addMethod("longestPrefix", "([I)I", body(cf, a, false, true), 3, 6);
+		cf.addMethod("longestPrefix", "(Ljava/lang/CharSequence;)I", body(cf, a, true, true), 3, 6);
+		byte[] bytes = cf.toBytes("rationals/matching/Matcher");
+		try {
+			Class<?> c = new Loader(Matcher.class.getClassLoader()).define(name.replace('/', '.'), bytes);
+			return (Matcher) c.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("cannot instantiate compiled matcher", e);
+		}
+	}
+
+	/*
+	 * Code of a matches or longestPrefix method. Locals are: 1 the word, 2 the
+	 * current index, 3 the length of the word, 4 the current code point and,
+	 * for longestPrefix, 5 the end of the last accepted prefix.
+	 */
+	private static ClassFile.Code body(ClassFile cf, CharAutomaton a, boolean string, boolean prefix) {
+		ClassFile.Code c = cf.new Code();
+		int n = a.stateCount();
+		ClassFile.Label[] states = new ClassFile.Label[n];
+		for (int q = 0; q < n; q++)
+			states[q] = new ClassFile.Label();
+		ClassFile.Label reject = new ClassFile.Label();
+		c.push(0);
+		c.op(ClassFile.ISTORE, 2);
+		c.op(ClassFile.ALOAD_1);
+		if (string)
+			c.invokeInterface(cf.interfaceMethod("java/lang/CharSequence", "length", "()I"), 1);
+		else
+			c.op(ClassFile.ARRAYLENGTH);
+		c.op(ClassFile.ISTORE, 3);
+		int[] init = a.initials();
+		if (init.length == 0) {
+			c.push(prefix ? -1 : 0);
+			c.op(ClassFile.IRETURN);
+			return c;
+		}
+		if (prefix) {
+			c.push(-1);
+			c.op(ClassFile.ISTORE, 5);
+		}
+		c.jump(ClassFile.GOTO, states[init[0]]);
+		for (int q = 0; q < n; q++) {
+			ClassFile.Label read = new ClassFile.Label();
+			c.mark(states[q]);
+			if (prefix && a.isTerminal(q)) {
+				c.op(ClassFile.ILOAD, 2);
+				c.op(ClassFile.ISTORE, 5);
+			}
+			/* end of word */
+			c.op(ClassFile.ILOAD, 2);
+			c.op(ClassFile.ILOAD, 3);
+			c.jump(ClassFile.IF_ICMPLT, read);
+			if (prefix)
+				c.op(ClassFile.ILOAD, 5);
+			else
+				c.push(a.isTerminal(q) ? 1 : 0);
+			c.op(ClassFile.IRETURN);
+			/* next code point */
+			c.mark(read);
+			c.op(ClassFile.ALOAD_1);
+			c.op(ClassFile.ILOAD, 2);
+			if (string) {
+				c.invoke(ClassFile.INVOKESTATIC,
+						cf.method("java/lang/Character", "codePointAt", "(Ljava/lang/CharSequence;I)I"));
+				c.op(ClassFile.ISTORE, 4);
+				c.op(ClassFile.ILOAD, 2);
+				c.op(ClassFile.ILOAD, 4);
+				c.invoke(ClassFile.INVOKESTATIC, cf.method("java/lang/Character", "charCount", "(I)I"));
+				c.op(ClassFile.IADD);
+				c.op(ClassFile.ISTORE, 2);
+			} else {
+				c.op(ClassFile.IALOAD);
+				c.op(ClassFile.ISTORE, 4);
+				c.iinc(2, 1);
+			}
+			dispatch(c, a, q, states, reject);
+		}
+		c.mark(reject);
+		if (prefix)
+			c.op(ClassFile.ILOAD, 5);
+		else
+			c.push(0);
+		c.op(ClassFile.IRETURN);
+		return c;
+	}
+
+	/*
+	 * jumps to the state reached from q on the current code point
+	 */
+	private static void dispatch(ClassFile.Code c, CharAutomaton a, int q, ClassFile.Label[] states,
+			ClassFile.Label reject) {
+		int from = a.outStart(q), to = a.outEnd(q);
+		if (from == to) {
+			c.jump(ClassFile.GOTO, reject);
+			return;
+		}
+		long keys = 0;
+		for (int k = from; k < to; k++)
+			keys += (long) a.upper(k) - a.lower(k) + 1;
+		if (keys > SWITCH_KEYS) {
+			/* ranges are disjoint and sorted */
+			for (int k = from; k < to; k++) {
+				if (a.lower(k) == a.upper(k)) {
+					c.op(ClassFile.ILOAD, 4);
+					c.push(a.lower(k));
+					c.jump(ClassFile.IF_ICMPEQ, states[a.target(k)]);
+					continue;
+				}
+				c.op(ClassFile.ILOAD, 4);
+				c.push(a.lower(k));
+				c.jump(ClassFile.IF_ICMPLT, reject);
+				c.op(ClassFile.ILOAD, 4);
+				c.push(a.upper(k));
+				c.jump(ClassFile.IF_ICMPLE, states[a.target(k)]);
+			}
+			c.jump(ClassFile.GOTO, reject);
+			return;
+		}
+		int low = a.lower(from), high = a.upper(to - 1);
+		c.op(ClassFile.ILOAD, 4);
+		if ((long) high - low + 1 <= 2 * keys) {
+			ClassFile.Label[] targets = new ClassFile.Label[(int) ((long) high - low + 1)];
+			for (int i = 0; i < targets.length; i++)
+				targets[i] = reject;
+			for (int k = from; k < to; k++)
+				for (long v = a.lower(k); v <= a.upper(k); v++)
+					targets[(int) (v - low)] = states[a.target(k)];
+			c.tableSwitch(reject, low, targets);
+		} else {
+			int[] values = new int[(int) keys];
+			ClassFile.Label[] targets = new ClassFile.Label[(int) keys];
+			int i = 0;
+			for (int k = from; k < to; k++)
+				for (long v = a.lower(k); v <= a.upper(k); v++, i++) {
+					values[i] = (int) v;
+					targets[i] = states[a.target(k)];
+				}
+			c.lookupSwitch(reject, values, targets);
+		}
+	}
+
+	/*
+	 * defines one compiled class
+	 */
+	private static final class Loader extends ClassLoader {
+
+		Loader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] b) {
+			return defineClass(name, b, 0, b.length);
+		}
+	}
+}
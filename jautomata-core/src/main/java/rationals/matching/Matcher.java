@@ -0,0 +1,64 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+/**
+ * Matches words against a fixed regular language.
+ * <p>
+ * Words are sequences of Unicode code points, either given directly as an
+ * array or read from a string. Implementations are immutable and may be
+ * shared by several threads.
+ *
+ * @version $Id$
+ * @see rationals.CharAutomaton
+ * @see DFACompiler
+ * @see TableMatcher
+ */
+public interface Matcher {
+
+	/**
+	 * @param s
+	 *            a string.
+	 * @return true iff the code points of <code>s</code> form a word of the
+	 *         language.
+	 */
+	boolean matches(CharSequence s);
+
+	/**
+	 * @param word
+	 *            a sequence of code points.
+	 * @return true iff <code>word</code> is a word of the language.
+	 */
+	boolean matches(int[] word);
+
+	/**
+	 * @param s
+	 *            a string.
+	 * @return the number of chars of the longest prefix of <code>s</code>
+	 *         that is a word of the language, or -1 if there is none.
+	 */
+	int longestPrefix(CharSequence s);
+
+	/**
+	 * @param word
+	 *            a sequence of code points.
+	 * @return the number of code points of the longest prefix of
+	 *         <code>word</code> that is a word of the language, or -1 if
+	 *         there is none.
+	 */
+	int longestPrefix(int[] word);
+}
@@ -0,0 +1,359 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CharAutomaton;
+import rationals.Transition;
+
+/**
+ * Finds the ends of matches of an automaton in large files, using several
+ * threads.
+ * <p>
+ * The file is memory-mapped and split into chunks scanned in parallel by a
+ * deterministic automaton for <code>A*L</code>, where <code>L</code> is the
+ * language searched. As the state at the start of a chunk is not known in
+ * advance, each chunk is first read from all states at once, merging runs as
+ * soon as they reach the same state. This gives the transfer function of the
+ * chunk, mapping its start states to its end states. The true start state of
+ * each chunk is then obtained by composing the transfer functions of the
+ * chunks before it. Automata for <code>A*L</code> usually synchronize after
+ * a few symbols, so that all runs soon merge into one whose matches are
+ * recorded during the first pass: a second parallel pass only reads again,
+ * from the true start state, the part of each chunk before that point.
+ * <p>
+ * Bytes are read as characters <code>0</code> to <code>255</code>, that is as
+ * ISO-8859-1 text. Results are exact for patterns over ASCII characters in
+ * UTF-8 files.
+ *
+ * @version $Id$
+ * @see Searcher
+ */
+public final class ParallelScanner {
+
+	private static final int MIN_CHUNK = 1 << 16;
+
+	private static final int MAX_CHUNK = 1 << 30;
+
+	private final TableMatcher dfa;
+
+	private final ForkJoinPool pool;
+
+	private final int chunkSize;
+
+	/*
+	 * shared pool used when none is given
+	 */
+	private static final class DefaultPool {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+	/**
+	 * Creates a scanner using a pool shared by all scanners, with one thread
+	 * per available processor, and chunks sized after the number of threads.
+	 *
+	 * @param a
+	 *            an automaton whose labels are characters, as accepted by
+	 *            {@link CharAutomaton#of(Automaton)}.
+	 */
+	public <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> ParallelScanner(Automaton<L, Tr, T> a) {
+		this(a, DefaultPool.POOL, 0);
+	}
+
+	/**
+	 * @param a
+	 *            an automaton whose labels are characters, as accepted by
+	 *            {@link CharAutomaton#of(Automaton)}.
+	 * @param pool
+	 *            the pool running the tasks.
+	 * @param chunkSize
+	 *            the number of bytes of each chunk, or 0 to size chunks after
+	 *            the parallelism of <code>pool</code>.
+	 */
+	public <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> ParallelScanner(Automaton<L, Tr, T> a,
+			ForkJoinPool pool, int chunkSize) {
+		if (chunkSize < 0)
+			throw new IllegalArgumentException("negative chunk size");
+		this.dfa = Searcher.unanchored(CharAutomaton.of(a));
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Scans a file.
+	 *
+	 * @param file
+	 *            the file to scan.
+	 * @return the sorted positions <code>e</code> such that some factor of
+	 *         the file ending before byte <code>e</code> is in the language.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	public long[] scan(Path file) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			return scan(ch);
+		}
+	}
+
+	/**
+	 * Scans the content of a channel, from its first byte to its current
+	 * size.
+	 *
+	 * @param ch
+	 *            an open channel.
+	 * @return the sorted positions <code>e</code> such that some factor of
+	 *         the content ending before byte <code>e</code> is in the
+	 *         language.
+	 * @throws IOException
+	 *             if the channel cannot be mapped.
+	 */
+	public long[] scan(FileChannel ch) throws IOException {
+		long size = ch.size();
+		int start = dfa.initial();
+		Chunk[] chunks = split(ch, size);
+		/* first pass, from all states except for the first chunk */
+		List<Callable<Chunk>> tasks = new ArrayList<>();
+		for (int k = 0; k < chunks.length; k++) {
+			final Chunk c = chunks[k];
+			final boolean first = k == 0;
+			tasks.add(new Callable<Chunk>() {
+				public Chunk call() {
+					c.speculate(first);
+					return c;
+				}
+			});
+		}
+		run(tasks);
+		/* compose transfer functions */
+		int q = start;
+		for (Chunk c : chunks) {
+			c.start = q;
+			q = c.transfer(q);
+		}
+		/* second pass on parts read before runs merged */
+		tasks.clear();
+		for (final Chunk c : chunks)
+			if (c.converged > c.from)
+				tasks.add(new Callable<Chunk>() {
+					public Chunk call() {
+						c.prefix();
+						return c;
+					}
+				});
+		run(tasks);
+		/* collect positions */
+		int total = start >= 0 && dfa.isAccepting(start) ? 1 : 0;
+		for (Chunk c : chunks)
+			total += c.before.size + c.after.size;
+		long[] result = new long[total];
+		int i = 0;
+		if (start >= 0 && dfa.isAccepting(start))
+			result[i++] = 0;
+		for (Chunk c : chunks) {
+			System.arraycopy(c.before.values, 0, result, i, c.before.size);
+			i += c.before.size;
+			System.arraycopy(c.after.values, 0, result, i, c.after.size);
+			i += c.after.size;
+		}
+		return result;
+	}
+
+	/*
+	 * Chunks are slices of mappings of at most MAX_CHUNK bytes, so that
+	 * small chunks do not each need their own mapping.
+	 */
+	private Chunk[] split(FileChannel ch, long size) throws IOException {
+		long len = chunkSize;
+		if (len == 0)
+			len = Math.max(MIN_CHUNK, size / (4L * pool.getParallelism()) + 1);
+		len = Math.min(MAX_CHUNK, len);
+		List<Chunk> chunks = new ArrayList<>();
+		for (long seg = 0; seg < size; seg += MAX_CHUNK) {
+			int segLen = (int) Math.min(MAX_CHUNK, size - seg);
+			ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, seg, segLen);
+			for (int from = 0; from < segLen; from += len) {
+				int to = (int) Math.min(segLen, from + len);
+				ByteBuffer slice = map.duplicate();
+				((Buffer) slice).limit(to);
+				((Buffer) slice).position(from);
+				chunks.add(new Chunk(slice.slice(), seg + from, seg + to));
+			}
+		}
+		return chunks.toArray(new Chunk[chunks.size()]);
+	}
+
+	private void run(List<Callable<Chunk>> tasks) throws IOException {
+		for (Future<Chunk> f : pool.invokeAll(tasks))
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("scan interrupted", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new IOException(e.getCause());
+			}
+	}
+
+	private int next(int q, int b) {
+		return q < 0 ? -1 : dfa.step(q, b);
+	}
+
+	/*
+	 * growable array of positions
+	 */
+	private static final class Positions {
+
+		long[] values = new long[16];
+
+		int size;
+
+		void add(long v) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = v;
+		}
+	}
+
+	/*
+	 * A part of the input. Positions of match ends in (from, converged] are
+	 * found by the second pass, those in (converged, to] by the first one.
+	 */
+	private final class Chunk {
+
+		final ByteBuffer data;
+
+		final long from;
+
+		final long to;
+
+		/* position where all runs merged */
+		long converged;
+
+		/* end state of the run from each state, indexed by state + 1 */
+		int[] ends;
+
+		/* true start state */
+		int start;
+
+		final Positions before = new Positions();
+
+		final Positions after = new Positions();
+
+		Chunk(ByteBuffer data, long from, long to) {
+			this.data = data;
+			this.from = from;
+			this.to = to;
+		}
+
+		/*
+		 * Runs from all states, including the dead state -1, at once. Runs
+		 * are kept as distinct states cur[0..count) and origin states are
+		 * mapped to their run by group.
+		 */
+		void speculate(boolean first) {
+			int n = dfa.stateCount() + 1;
+			int[] cur;
+			int count;
+			int[] group = new int[n];
+			if (first) {
+				cur = new int[] { dfa.initial() };
+				count = 1;
+			} else {
+				cur = new int[n];
+				for (int q = 0; q < n; q++) {
+					cur[q] = q - 1;
+					group[q] = q;
+				}
+				count = n;
+			}
+			/* index of the run of state q - 1 at current step, if seen[q] == stamp */
+			int[] seen = new int[n];
+			int[] index = new int[n];
+			int[] remap = new int[n];
+			int stamp = 0;
+			int len = (int) (to - from);
+			int i = 0;
+			for (; i < len && count > 1; i++) {
+				int b = data.get(i) & 0xff;
+				stamp++;
+				int k = 0;
+				for (int j = 0; j < count; j++) {
+					int q = next(cur[j], b);
+					if (seen[q + 1] == stamp) {
+						remap[j] = index[q + 1];
+						continue;
+					}
+					seen[q + 1] = stamp;
+					index[q + 1] = k;
+					remap[j] = k;
+					cur[k++] = q;
+				}
+				if (k < count)
+					for (int q = 0; q < n; q++)
+						group[q] = remap[group[q]];
+				count = k;
+			}
+			this.converged = from + i;
+			int q = cur[0];
+			if (count == 1) {
+				for (; i < len; i++) {
+					q = next(q, data.get(i) & 0xff);
+					if (q >= 0 && dfa.isAccepting(q))
+						after.add(from + i + 1);
+				}
+				cur[0] = q;
+			}
+			ends = new int[n];
+			for (int p = 0; p < n; p++)
+				ends[p] = cur[group[p]];
+		}
+
+		int transfer(int q) {
+			return ends[q + 1];
+		}
+
+		/*
+		 * reads again from the true start state up to the merge point
+		 */
+		void prefix() {
+			int q = start;
+			int len = (int) (converged - from);
+			for (int i = 0; i < len; i++) {
+				q = next(q, data.get(i) & 0xff);
+				if (q >= 0 && dfa.isAccepting(q))
+					before.add(from + i + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,725 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CharAutomaton;
+import rationals.FrozenAutomaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.symbolic.IntervalSet;
+import rationals.transformations.Pruner;
+import rationals.transformations.Reverser;
+import rationals.transformations.ToDFA;
+
+/**
+ * Finds the factors of a text or sequence of labels belonging to the language
+ * of an automaton.
+ * <p>
+ * Input is read once, left to right. A deterministic automaton for
+ * <code>A*L</code> finds the positions where a match ends, then a
+ * deterministic automaton for the reverse of <code>L</code>, built with
+ * {@link Reverser}, is run backwards from these positions to find where
+ * matches start. Only the last symbols read are kept, so that memory does not
+ * depend on the length of the input: matches longer than the <em>window</em>
+ * given at construction are not reported.
+ * <p>
+ * Two modes are available:
+ * <ul>
+ * <li>{@link Mode#ALL} reports every pair <code>(start, end)</code> such that
+ * the factor between <code>start</code> and <code>end</code> is in the
+ * language, sorted by end then start,</li>
+ * <li>{@link Mode#LEFTMOST_LONGEST} reports non-overlapping matches, each
+ * being the longest of the leftmost matches starting after the previous one.
+ * An empty match is not reported right after another match. Deciding that a
+ * match cannot be extended uses a third deterministic automaton for
+ * <code>L</code>.</li>
+ * </ul>
+ * Positions are indices of chars for texts and indices of elements for
+ * iterators. Texts can only be searched when labels of the automaton are
+ * characters, as accepted by {@link CharAutomaton#of(Automaton)}: they are
+ * then read as sequences of code points.
+ * <p>
+ * Instances do not reflect later modifications of the automaton and are
+ * safe for use by several threads.
+ *
+ * @version $Id$
+ */
+public final class Searcher<L> {
+
+	/**
+	 * How matches are reported.
+	 */
+	public enum Mode {
+		/** non-overlapping longest matches, leftmost first */
+		LEFTMOST_LONGEST,
+		/** every factor in the language */
+		ALL
+	}
+
+	/**
+	 * Receives matches found by a search.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param start
+		 *            position of the first symbol of the match.
+		 * @param end
+		 *            position following the last symbol of the match.
+		 */
+		void match(long start, long end);
+	}
+
+	/**
+	 * A match found by {@link Searcher#findAll(CharSequence, Mode)}.
+	 */
+	public static final class Match {
+
+		private final long start;
+
+		private final long end;
+
+		public Match(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		public long start() {
+			return start;
+		}
+
+		public long end() {
+			return end;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Match))
+				return false;
+			Match m = (Match) o;
+			return start == m.start && end == m.end;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (start * 31 + end);
+		}
+
+		@Override
+		public String toString() {
+			return "[" + start + ", " + end + ")";
+		}
+	}
+
+	private static final int DEFAULT_WINDOW = 1 << 16;
+
+	private final int window;
+
+	private final Alphabet<L> symbols;
+
+	private final int symbolCount;
+
+	/* forward unanchored, reverse and anchored automata over labels */
+	private final Dfa[] labels;
+
+	/* the same over code points, null if labels are not characters */
+	private final Dfa[] text;
+
+	/**
+	 * Creates a searcher reporting matches of at most 65536 symbols.
+	 *
+	 * @param a
+	 *            the automaton whose language is searched.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Searcher(Automaton<L, Tr, T> a) {
+		this(a, DEFAULT_WINDOW);
+	}
+
+	/**
+	 * @param a
+	 *            the automaton whose language is searched.
+	 * @param window
+	 *            the maximum length of matches, in symbols.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Searcher(Automaton<L, Tr, T> a, int window) {
+		if (window < 1)
+			throw new IllegalArgumentException("window must be positive");
+		this.window = window;
+		this.symbols = a.symbols().readOnly();
+		this.symbolCount = symbols.size();
+		Automaton<L, Tr, T> trimmed = new Pruner<L, Tr, T>().transform(a);
+		ToDFA<L, Tr, T> dfa = new ToDFA<>();
+		this.labels = new Dfa[] {
+				new LabelDfa<>(dfa.transform(unanchored(trimmed, trimmed.alphabet())), symbols, symbolCount),
+				new LabelDfa<>(dfa.transform(new Reverser<L, Tr, T>().transform(trimmed)), symbols, symbolCount),
+				new LabelDfa<>(dfa.transform(trimmed), symbols, symbolCount) };
+		if (CharAutomaton.convertible(trimmed)) {
+			CharAutomaton c = CharAutomaton.of(trimmed);
+			this.text = new Dfa[] {
+					new TextDfa(unanchored(c)),
+					new TextDfa(TableMatcher.compile(new Reverser<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>>()
+							.transform(c.toSymbolic()))), new TextDfa(TableMatcher.compile(c)) };
+		} else
+			this.text = null;
+	}
+
+	/*
+	 * a table recognizing words with a suffix in the language of c
+	 */
+	static TableMatcher unanchored(CharAutomaton c) {
+		return TableMatcher.compile(unanchored(c.toSymbolic(),
+				Arrays.asList(IntervalSet.range(0, Character.MAX_CODE_POINT))));
+	}
+
+	/*
+	 * a copy of a with a new initial state looping on given labels
+	 */
+	private static <X, Tr extends Transition<X>, T extends Builder<X, Tr, T>> Automaton<X, Tr, T> unanchored(
+			Automaton<X, Tr, T> a, Iterable<X> loops) {
+		Automaton<X, Tr, T> u = a.clone();
+		List<State> init = new ArrayList<>(u.initials());
+		State x = u.addState(true, false);
+		try {
+			for (X l : loops)
+				u.addTransition(new Transition<>(x, l, x));
+			for (State q : init)
+				u.addTransition(new Transition<X>(x, null, q));
+		} catch (NoSuchStateException e) {
+			assert false;
+		}
+		return u;
+	}
+
+	/**
+	 * Searches a text.
+	 *
+	 * @param s
+	 *            the text.
+	 * @param mode
+	 *            how matches are reported.
+	 * @param listener
+	 *            receives matches, as positions of chars in <code>s</code>.
+	 * @throws IllegalStateException
+	 *             if labels of the automaton are not characters.
+	 */
+	public void search(final CharSequence s, Mode mode, Listener listener) {
+		try {
+			new Scan(textDfas(), mode, listener, new Source() {
+				int i;
+
+				boolean advance() {
+					if (i >= s.length())
+						return false;
+					start = i;
+					sym = Character.codePointAt(s, i);
+					end = i += Character.charCount(sym);
+					return true;
+				}
+			}).run();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Searches a stream of characters.
+	 *
+	 * @param r
+	 *            the stream, read until its end but not closed.
+	 * @param mode
+	 *            how matches are reported.
+	 * @param listener
+	 *            receives matches, as positions of chars read from
+	 *            <code>r</code>.
+	 * @throws IOException
+	 *             if <code>r</code> cannot be read.
+	 * @throws IllegalStateException
+	 *             if labels of the automaton are not characters.
+	 */
+	public void search(final Reader r, Mode mode, Listener listener) throws IOException {
+		new Scan(textDfas(), mode, listener, new Source() {
+			final char[] buf = new char[4096];
+
+			int len, pos, pending = -1;
+
+			private int read() throws IOException {
+				if (pos == len) {
+					len = r.read(buf);
+					pos = 0;
+					if (len <= 0) {
+						len = 0;
+						return -1;
+					}
+				}
+				return buf[pos++];
+			}
+
+			boolean advance() throws IOException {
+				int c = pending >= 0 ? pending : read();
+				pending = -1;
+				if (c < 0)
+					return false;
+				start = end;
+				sym = c;
+				end++;
+				if (Character.isHighSurrogate((char) c)) {
+					int d = read();
+					if (d >= 0 && Character.isLowSurrogate((char) d)) {
+						sym = Character.toCodePoint((char) c, (char) d);
+						end++;
+					} else
+						pending = d;
+				}
+				return true;
+			}
+		}).run();
+	}
+
+	/**
+	 * Searches a sequence of labels. Labels not in the alphabet of the
+	 * automaton, including <code>null</code>, are never part of a match.
+	 *
+	 * @param input
+	 *            the labels.
+	 * @param mode
+	 *            how matches are reported.
+	 * @param listener
+	 *            receives matches, as indices of elements of
+	 *            <code>input</code>.
+	 */
+	public void search(final Iterator<L> input, Mode mode, Listener listener) {
+		try {
+			new Scan(labels, mode, listener, new Source() {
+				boolean advance() {
+					if (!input.hasNext())
+						return false;
+					L l = input.next();
+					int s = l == null ? -1 : symbols.symbol(l);
+					sym = s < symbolCount ? s : -1;
+					start = end++;
+					return true;
+				}
+			}).run();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param s
+	 *            a text.
+	 * @param mode
+	 *            how matches are reported.
+	 * @return the list of matches found in <code>s</code>.
+	 */
+	public List<Match> findAll(CharSequence s, Mode mode) {
+		Collector c = new Collector();
+		search(s, mode, c);
+		return c.matches;
+	}
+
+	/**
+	 * @param input
+	 *            a sequence of labels.
+	 * @param mode
+	 *            how matches are reported.
+	 * @return the list of matches found in <code>input</code>.
+	 */
+	public List<Match> findAll(Iterator<L> input, Mode mode) {
+		Collector c = new Collector();
+		search(input, mode, c);
+		return c.matches;
+	}
+
+	private Dfa[] textDfas() {
+		if (text == null)
+			throw new IllegalStateException("labels are not characters");
+		return text;
+	}
+
+	private static final class Collector implements Listener {
+
+		final List<Match> matches = new ArrayList<>();
+
+		public void match(long start, long end) {
+			matches.add(new Match(start, end));
+		}
+	}
+
+	/*
+	 * a deterministic automaton over integer symbols, -1 being the dead state
+	 */
+	private interface Dfa {
+
+		int initial();
+
+		int next(int q, int sym);
+
+		boolean accepting(int q);
+
+		int stateCount();
+	}
+
+	private static final class LabelDfa<L> implements Dfa {
+
+		private final FrozenAutomaton<L> f;
+
+		/* symbol of f for each symbol of the searched automaton */
+		private final int[] trans;
+
+		private final int start;
+
+		LabelDfa(Automaton<L, ?, ?> a, Alphabet<L> symbols, int count) {
+			this.f = a.freeze();
+			this.trans = new int[count];
+			for (int i = 1; i < count; i++)
+				trans[i] = f.symbol(symbols.label(i));
+			this.start = f.initials().nextSetBit(0);
+		}
+
+		public int initial() {
+			return start;
+		}
+
+		public int next(int q, int sym) {
+			if (q < 0 || sym <= 0)
+				return -1;
+			int s = trans[sym];
+			int k = s <= 0 ? -1 : f.find(q, s);
+			return k < 0 ? -1 : f.target(k);
+		}
+
+		public boolean accepting(int q) {
+			return q >= 0 && f.isTerminal(q);
+		}
+
+		public int stateCount() {
+			return f.stateCount();
+		}
+	}
+
+	private static final class TextDfa implements Dfa {
+
+		private final TableMatcher m;
+
+		TextDfa(TableMatcher m) {
+			this.m = m;
+		}
+
+		public int initial() {
+			return m.initial();
+		}
+
+		public int next(int q, int sym) {
+			return q < 0 ? -1 : m.step(q, sym);
+		}
+
+		public boolean accepting(int q) {
+			return q >= 0 && m.isAccepting(q);
+		}
+
+		public int stateCount() {
+			return m.stateCount();
+		}
+	}
+
+	/*
+	 * symbols read from the input with their positions
+	 */
+	private abstract static class Source {
+
+		int sym;
+
+		long start;
+
+		long end;
+
+		abstract boolean advance() throws IOException;
+	}
+
+	/*
+	 * One search. Symbols from max(floor, n - window - 1) to n are kept in
+	 * ring buffers.
+	 */
+	private final class Scan {
+
+		private final Dfa fwd, rev, anc;
+
+		private final boolean all;
+
+		private final Listener listener;
+
+		private final Source source;
+
+		private int[] syms = new int[256];
+
+		private long[] offsets = new long[256];
+
+		private int mask = 255;
+
+		/* number of symbols read and position after the last one */
+		private long n;
+
+		private long endOffset;
+
+		/* next symbol to process, state of fwd before it */
+		private long cursor;
+
+		private int f;
+
+		/* matches may not start before floor, nor be empty at noEmpty */
+		private long floor;
+
+		private long noEmpty = -1;
+
+		/*
+		 * best candidate match and anchored states of its competitors, each
+		 * with the leftmost start reaching it
+		 */
+		private boolean pending;
+
+		private long bestStart, bestEnd;
+
+		private int[] live;
+
+		private long[] liveStarts;
+
+		private int liveCount;
+
+		private int[] scratch;
+
+		private long[] scratchStarts;
+
+		private final int[] mark;
+
+		/* index in scratch of states marked by the current step */
+		private final int[] slot;
+
+		private int stamp;
+
+		private long[] starts = new long[16];
+
+		Scan(Dfa[] dfas, Mode mode, Listener listener, Source source) {
+			this.fwd = dfas[0];
+			this.rev = dfas[1];
+			this.anc = dfas[2];
+			this.all = mode == Mode.ALL;
+			this.listener = listener;
+			this.source = source;
+			this.live = new int[anc.stateCount()];
+			this.liveStarts = new long[anc.stateCount()];
+			this.scratch = new int[anc.stateCount()];
+			this.scratchStarts = new long[anc.stateCount()];
+			this.mark = new int[anc.stateCount()];
+			this.slot = new int[anc.stateCount()];
+		}
+
+		private long offset(long i) {
+			return i == n ? endOffset : offsets[(int) (i & mask)];
+		}
+
+		private int symbol(long i) {
+			return syms[(int) (i & mask)];
+		}
+
+		private boolean read() throws IOException {
+			if (!source.advance())
+				return false;
+			/* a pending match may start up to window + 1 symbols back */
+			long low = Math.max(floor, n - window - 1);
+			if (n - low + 1 > syms.length) {
+				int cap = syms.length * 2;
+				int[] s = new int[cap];
+				long[] o = new long[cap];
+				for (long i = low; i < n; i++) {
+					s[(int) (i & (cap - 1))] = symbol(i);
+					o[(int) (i & (cap - 1))] = offsets[(int) (i & mask)];
+				}
+				syms = s;
+				offsets = o;
+				mask = cap - 1;
+			}
+			syms[(int) (n & mask)] = source.sym;
+			offsets[(int) (n & mask)] = source.start;
+			endOffset = source.end;
+			n++;
+			return true;
+		}
+
+		void run() throws IOException {
+			restart();
+			boolean eof = false;
+			for (;;) {
+				if (cursor == n && (eof || !read())) {
+					eof = true;
+					if (!pending)
+						return;
+					emit();
+					continue;
+				}
+				int sym = symbol(cursor++);
+				f = fwd.next(f, sym);
+				if (f < 0)
+					f = fwd.initial();
+				if (pending) {
+					stepLive(sym, cursor - window);
+					if (liveCount == 0 || cursor - bestStart > window)
+						emit();
+					else
+						extend(cursor);
+					continue;
+				}
+				check(cursor);
+			}
+		}
+
+		/*
+		 * starts searching again from floor
+		 */
+		private void restart() {
+			cursor = floor;
+			f = fwd.initial();
+			check(cursor);
+		}
+
+		/*
+		 * handles matches ending at e when no candidate is pending
+		 */
+		private void check(long e) {
+			if (!fwd.accepting(f))
+				return;
+			long low = Math.max(floor, e - window);
+			int count = 0;
+			int r = rev.initial();
+			for (long s = e;; s--) {
+				if (rev.accepting(r) && (s < e || e != noEmpty)) {
+					if (count == starts.length)
+						starts = Arrays.copyOf(starts, count * 2);
+					starts[count++] = s;
+				}
+				if (s == low || (r = rev.next(r, symbol(s - 1))) < 0)
+					break;
+			}
+			if (count == 0)
+				return;
+			if (all) {
+				for (int i = count - 1; i >= 0; i--)
+					listener.match(offset(starts[i]), offset(e));
+				return;
+			}
+			pending = true;
+			bestStart = starts[count - 1];
+			bestEnd = e;
+			computeLive(low, e);
+		}
+
+		/*
+		 * updates the pending candidate with matches ending at e, found
+		 * without scanning backwards: starts after bestStart cannot win and
+		 * the others all lead to some live state
+		 */
+		private void extend(long e) {
+			long s = -1;
+			for (int i = 0; i < liveCount; i++)
+				if (anc.accepting(live[i]) && (s < 0 || liveStarts[i] < s))
+					s = liveStarts[i];
+			if (s >= 0 && s <= bestStart) {
+				bestStart = s;
+				bestEnd = e;
+			}
+		}
+
+		/*
+		 * anchored states reached at e from starts between low and
+		 * bestStart
+		 */
+		private void computeLive(long low, long e) {
+			liveCount = 0;
+			for (long p = low; p < e; p++) {
+				if (p <= bestStart)
+					addLive(anc.initial(), p);
+				stepLive(symbol(p), low);
+			}
+			if (e <= bestStart)
+				addLive(anc.initial(), e);
+		}
+
+		/*
+		 * starts are added in increasing order, so a state already live
+		 * keeps its start
+		 */
+		private void addLive(int q, long start) {
+			if (q < 0)
+				return;
+			for (int i = 0; i < liveCount; i++)
+				if (live[i] == q)
+					return;
+			liveStarts[liveCount] = start;
+			live[liveCount++] = q;
+		}
+
+		/*
+		 * moves live states on sym, dropping those reached from starts
+		 * before min
+		 */
+		private void stepLive(int sym, long min) {
+			stamp++;
+			int k = 0;
+			for (int i = 0; i < liveCount; i++) {
+				if (liveStarts[i] < min)
+					continue;
+				int q = anc.next(live[i], sym);
+				if (q < 0)
+					continue;
+				if (mark[q] != stamp) {
+					mark[q] = stamp;
+					slot[q] = k;
+					scratch[k] = q;
+					scratchStarts[k++] = liveStarts[i];
+				} else if (liveStarts[i] < scratchStarts[slot[q]])
+					scratchStarts[slot[q]] = liveStarts[i];
+			}
+			int[] t = live;
+			live = scratch;
+			scratch = t;
+			long[] ts = liveStarts;
+			liveStarts = scratchStarts;
+			scratchStarts = ts;
+			liveCount = k;
+		}
+
+		private void emit() {
+			listener.match(offset(bestStart), offset(bestEnd));
+			pending = false;
+			floor = bestEnd;
+			noEmpty = bestEnd;
+			restart();
+		}
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CharAutomaton;
+import rationals.Transition;
+
+/**
+ * A deterministic automaton stored as a flat transition table.
+ * <p>
+ * Code points are partitioned into classes such that all code points of a
+ * class lead to the same state from every state. The successor of state
+ * <code>q</code> on class <code>c</code> is then stored at index
+ * <code>q * classCount() + c</code> of a single array of integers, and
+ * accepting states are stored in a bitset. The class of a code point below
+ * 256 is read from an array, others are found by binary search on class
+ * bounds, so matching allocates no object and does a constant amount of
+ * work per code point.
+ * <p>
+ * Nondeterministic automata are determinized with the subset construction
+ * while building the table.
+ *
+ * @version $Id$
+ * @see CharAutomaton
+ */
+public final class TableMatcher implements Matcher {
+
+	/* number of code points whose class is read from an array */
+	private static final int DIRECT = 256;
+
+	/* lowest code point of each class, sorted */
+	private final int[] bounds;
+
+	private final int[] direct;
+
+	private final int classes;
+
+	/* successor state or -1, indexed by state * classes + class */
+	private final int[] table;
+
+	private final long[] accepting;
+
+	/* initial state or -1 if the language is empty */
+	private final int start;
+
+	private final int stateCount;
+
+	private TableMatcher(int[] bounds, int[] table, long[] accepting, int start, int stateCount) {
+		this.bounds = bounds;
+		this.classes = bounds.length;
+		this.direct = new int[DIRECT];
+		for (int c = 0; c < DIRECT; c++)
+			direct[c] = search(c);
+		this.table = table;
+		this.accepting = accepting;
+		this.start = start;
+		this.stateCount = stateCount;
+	}
+
+	/**
+	 * Builds the table of an automaton labelled with characters.
+	 *
+	 * @param a
+	 *            an automaton accepted by {@link CharAutomaton#of(Automaton)}.
+	 * @return a new TableMatcher recognizing the same language.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> TableMatcher compile(Automaton<L, Tr, T> a) {
+		return compile(CharAutomaton.of(a));
+	}
+
+	/**
+	 * Builds the table of a char automaton, determinizing it if needed.
+	 *
+	 * @param a
+	 *            a char automaton.
+	 * @return a new TableMatcher recognizing the same language.
+	 * @throws IllegalArgumentException
+	 *             if the table would not fit in an array.
+	 */
+	public static TableMatcher compile(CharAutomaton a) {
+		/*
+		 * class bounds are the bounds of all ranges, classes covering every
+		 * int so that values read by no transition get a rejecting class
+		 */
+		int m = a.transitionCount();
+		int[] cuts = new int[2 * m + 1];
+		int k = 0;
+		cuts[k++] = Integer.MIN_VALUE;
+		for (int t = 0; t < m; t++) {
+			cuts[k++] = a.lower(t);
+			if (a.upper(t) < Integer.MAX_VALUE)
+				cuts[k++] = a.upper(t) + 1;
+		}
+		Arrays.sort(cuts, 0, k);
+		int[] bounds = new int[k];
+		int nb = 0;
+		for (int i = 0; i < k; i++)
+			if (nb == 0 || bounds[nb - 1] != cuts[i])
+				bounds[nb++] = cuts[i];
+		bounds = Arrays.copyOf(bounds, nb);
+		/* subset construction on representatives of classes */
+		Map<BitSet, Integer> ids = new HashMap<>();
+		List<BitSet> sets = new ArrayList<>();
+		List<int[]> rows = new ArrayList<>();
+		BitSet init = new BitSet();
+		for (int q : a.initials())
+			init.set(q);
+		int start = -1;
+		if (!init.isEmpty()) {
+			ids.put(init, 0);
+			sets.add(init);
+			start = 0;
+		}
+		for (int s = 0; s < sets.size(); s++) {
+			BitSet from = sets.get(s);
+			int[] row = new int[nb];
+			for (int c = 0; c < nb; c++) {
+				BitSet to = new BitSet();
+				for (int q = from.nextSetBit(0); q >= 0; q = from.nextSetBit(q + 1))
+					for (int t = a.outStart(q); t < a.outEnd(q) && a.lower(t) <= bounds[c]; t++)
+						if (bounds[c] <= a.upper(t))
+							to.set(a.target(t));
+				if (to.isEmpty()) {
+					row[c] = -1;
+					continue;
+				}
+				Integer id = ids.get(to);
+				if (id == null) {
+					id = sets.size();
+					if ((long) (id + 1) * nb > Integer.MAX_VALUE - 8)
+						throw new IllegalArgumentException("transition table too large");
+					ids.put(to, id);
+					sets.add(to);
+				}
+				row[c] = id;
+			}
+			rows.add(row);
+		}
+		int n = sets.size();
+		int[] table = new int[n * nb];
+		long[] accepting = new long[(n + 63) >>> 6];
+		for (int s = 0; s < n; s++) {
+			System.arraycopy(rows.get(s), 0, table, s * nb, nb);
+			BitSet set = sets.get(s);
+			for (int q = set.nextSetBit(0); q >= 0; q = set.nextSetBit(q + 1))
+				if (a.isTerminal(q)) {
+					accepting[s >>> 6] |= 1L << s;
+					break;
+				}
+		}
+		return new TableMatcher(bounds, table, accepting, start, n);
+	}
+
+	/*
+	 * index of the last bound lower or equal to c
+	 */
+	private int search(int c) {
+		int l = 0, h = bounds.length - 1;
+		while (l < h) {
+			int mid = (l + h + 1) >>> 1;
+			if (bounds[mid] <= c)
+				l = mid;
+			else
+				h = mid - 1;
+		}
+		return l;
+	}
+
+	/**
+	 * @param c
+	 *            a code point or any other int.
+	 * @return the class of <code>c</code>. Values read by no transition,
+	 *         such as negative values or values above
+	 *         <code>Character.MAX_CODE_POINT</code> when no range covers
+	 *         them, have classes on which {@link #step(int, int)} returns
+	 *         -1 from every state.
+	 */
+	public int classOf(int c) {
+		return c >= 0 && c < DIRECT ? direct[c] : search(c);
+	}
+
+	/**
+	 * @return the number of classes of code points.
+	 */
+	public int classCount() {
+		return classes;
+	}
+
+	/**
+	 * @return the number of states of the table.
+	 */
+	public int stateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * @return the initial state, or -1 if the language is empty.
+	 */
+	public int initial() {
+		return start;
+	}
+
+	/**
+	 * @param q
+	 *            a state.
+	 * @param c
+	 *            a code point.
+	 * @return the successor of <code>q</code> on <code>c</code>, or -1.
+	 */
+	public int step(int q, int c) {
+		return table[q * classes + classOf(c)];
+	}
+
+	/**
+	 * @param q
+	 *            a state.
+	 * @return true if <code>q</code> is accepting.
+	 */
+	public boolean isAccepting(int q) {
+		return (accepting[q >>> 6] & (1L << q)) != 0;
+	}
+
+	public boolean matches(CharSequence s) {
+		int q = start;
+		for (int i = 0, n = s.length(); i < n && q >= 0;) {
+			int c = Character.codePointAt(s, i);
+			i += Character.charCount(c);
+			q = table[q * classes + classOf(c)];
+		}
+		return q >= 0 && isAccepting(q);
+	}
+
+	public boolean matches(int[] word) {
+		int q = start;
+		for (int i = 0; i < word.length && q >= 0; i++)
+			q = table[q * classes + classOf(word[i])];
+		return q >= 0 && isAccepting(q);
+	}
+
+	public int longestPrefix(CharSequence s) {
+		int q = start;
+		if (q < 0)
+			return -1;
+		int last = isAccepting(q) ? 0 : -1;
+		for (int i = 0, n = s.length(); i < n;) {
+			int c = Character.codePointAt(s, i);
+			i += Character.charCount(c);
+			if ((q = table[q * classes + classOf(c)]) < 0)
+				break;
+			if (isAccepting(q))
+				last = i;
+		}
+		return last;
+	}
+
+	public int longestPrefix(int[] word) {
+		int q = start;
+		if (q < 0)
+			return -1;
+		int last = isAccepting(q) ? 0 : -1;
+		for (int i = 0; i < word.length; i++) {
+			if ((q = table[q * classes + classOf(word[i])]) < 0)
+				break;
+			if (isAccepting(q))
+				last = i + 1;
+		}
+		return last;
+	}
+}
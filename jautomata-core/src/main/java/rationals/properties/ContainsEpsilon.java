@@ -35,6 +35,15 @@ import java.util.Set;
 public class ContainsEpsilon<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTest<L, Tr, T> {
 
     public boolean test(Automaton<L, Tr, T> a) {
+        Boolean cached = (Boolean) a.getProperty(ContainsEpsilon.class);
+        if(cached != null)
+            return cached;
+        boolean eps = containsEpsilon(a);
+        a.setProperty(ContainsEpsilon.class, eps);
+        return eps;
+    }
+
+    private boolean containsEpsilon(Automaton<L, Tr, T> a) {
         Iterator<State> i = a.initials().iterator();
         Set<State> s = a.getStateFactory().stateSet();
         while (i.hasNext()) {
@@ -43,6 +43,15 @@ public class IsDeterministic<L, Tr extends Transition<L>, T extends Builder<L, T
      * @see rationals.properties.UnaryTest#test(rationals.Automaton)
      */
     public boolean test(Automaton<L, Tr, T> a) {
+        Boolean cached = (Boolean) a.getProperty(IsDeterministic.class);
+        if(cached != null)
+            return cached;
+        boolean det = deterministic(a);
+        a.setProperty(IsDeterministic.class, det);
+        return det;
+    }
+
+    private boolean deterministic(Automaton<L, Tr, T> a) {
         if(a.alphabet().contains(null))
             return false;
         if(a.initials().size() > 1)
@@ -50,7 +59,7 @@ public class IsDeterministic<L, Tr extends Transition<L>, T extends Builder<L, T
         for(Iterator<State> it = a.states().iterator();it.hasNext();) {
             State s = it.next();
             Set<L> tra = new HashSet<>();
-            for(Iterator<Transition<L>> it2 = a.delta(s).iterator();it2.hasNext();) {
+            for(Iterator<Transition<L>> it2 = a.deltaView(s).iterator();it2.hasNext();) {
                 Transition<L> tr = it2.next();
                 if(tra.contains(tr.label()))
                     return false;
@@ -110,7 +110,7 @@ public class Simulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
             return true;
         exp.add(cpl);
         /* iterate over all transitions */
-        Set<Transition<L>> tas = a1.delta(q0a);
+        Set<Transition<L>> tas = a1.deltaView(q0a);
         Set<Transition<L>> tbs = a2.delta(q0b);
         Iterator<Transition<L>> it = tas.iterator();
         while (it.hasNext()) {
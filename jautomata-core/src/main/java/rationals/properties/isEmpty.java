@@ -18,20 +18,36 @@ package rationals.properties;
 
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.IndexedAutomaton;
 import rationals.State;
 import rationals.Transition;
 
+import java.util.BitSet;
 import java.util.Iterator;
 
 
 public class isEmpty<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTest<L, Tr, T> {
 	
   public boolean test(Automaton<L, Tr, T> a) {
+    Boolean cached = (Boolean) a.getProperty(isEmpty.class) ;
+    if (cached != null) return cached ;
+    boolean empty = true ;
     Iterator<State> i = a.accessibleStates().iterator() ;
-    while (i.hasNext()) {
-      if (i.next().isTerminal()) return false ;
+    while (empty && i.hasNext()) {
+      if (i.next().isTerminal()) empty = false ;
     }
-    return true ;
+    a.setProperty(isEmpty.class, empty) ;
+    return empty ;
+  }
+
+  /**
+   * Checks emptiness directly on the compact form of an automaton.
+   *
+   * @param a the indexed automaton to test.
+   * @return true iff no terminal state is accessible.
+   */
+  public boolean test(IndexedAutomaton<L> a) {
+    return !a.access(a.initials(), true).intersects(a.terminals()) ;
   }
   
 }
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+/**
+ * An effective Boolean algebra of predicates over a domain.
+ * <p>
+ * Symbolic automata are ordinary {@link rationals.Automaton} objects whose
+ * labels are predicates of such an algebra: a transition labelled with
+ * predicate <code>p</code> may be taken on any element <code>d</code> of the
+ * domain such that <code>contains(p, d)</code>. The <code>null</code> label
+ * still denotes epsilon transitions.
+ * <p>
+ * Implementations should return canonical predicates, so that two predicates
+ * denoting the same set are equal, as this keeps the number of distinct labels
+ * small. Algorithms in this package are correct without this property.
+ *
+ * @param <P>
+ *            type of predicates.
+ * @param <D>
+ *            type of domain elements.
+ * @version $Id$
+ * @see IntervalAlgebra
+ */
+public interface BooleanAlgebra<P, D> {
+
+	/**
+	 * @return the predicate satisfied by all elements of the domain.
+	 */
+	P top();
+
+	/**
+	 * @return the predicate satisfied by no element.
+	 */
+	P bottom();
+
+	/**
+	 * @return a predicate satisfied by elements satisfying both
+	 *         <code>p</code> and <code>q</code>.
+	 */
+	P and(P p, P q);
+
+	/**
+	 * @return a predicate satisfied by elements satisfying <code>p</code>
+	 *         or <code>q</code>.
+	 */
+	P or(P p, P q);
+
+	/**
+	 * @return a predicate satisfied by elements of the domain not satisfying
+	 *         <code>p</code>.
+	 */
+	P not(P p);
+
+	/**
+	 * @return true iff some element of the domain satisfies <code>p</code>.
+	 */
+	boolean isSatisfiable(P p);
+
+	/**
+	 * @return true iff <code>d</code> satisfies <code>p</code>.
+	 */
+	boolean contains(P p, D d);
+}
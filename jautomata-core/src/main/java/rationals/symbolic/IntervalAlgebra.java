@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+/**
+ * The Boolean algebra of {@link IntervalSet} predicates over a bounded range
+ * of integers.
+ *
+ * @version $Id$
+ */
+public final class IntervalAlgebra implements BooleanAlgebra<IntervalSet, Integer> {
+
+	/**
+	 * Intervals over UTF-16 code units.
+	 */
+	public static final IntervalAlgebra CHARS = new IntervalAlgebra(Character.MIN_VALUE, Character.MAX_VALUE);
+
+	/**
+	 * Intervals over Unicode code points.
+	 */
+	public static final IntervalAlgebra CODE_POINTS = new IntervalAlgebra(Character.MIN_CODE_POINT,
+			Character.MAX_CODE_POINT);
+
+	/**
+	 * Intervals over all <code>int</code> values.
+	 */
+	public static final IntervalAlgebra INTEGERS = new IntervalAlgebra(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+	private final int min;
+
+	private final int max;
+
+	private final IntervalSet top;
+
+	/**
+	 * Creates an algebra over integers from <code>min</code> to
+	 * <code>max</code>, inclusive.
+	 */
+	public IntervalAlgebra(int min, int max) {
+		if (min > max)
+			throw new IllegalArgumentException("empty domain [" + min + ", " + max + "]");
+		this.min = min;
+		this.max = max;
+		this.top = IntervalSet.range(min, max);
+	}
+
+	public IntervalSet top() {
+		return top;
+	}
+
+	public IntervalSet bottom() {
+		return IntervalSet.EMPTY;
+	}
+
+	public IntervalSet and(IntervalSet p, IntervalSet q) {
+		return p.intersection(q);
+	}
+
+	public IntervalSet or(IntervalSet p, IntervalSet q) {
+		return p.union(q).intersection(top);
+	}
+
+	public IntervalSet not(IntervalSet p) {
+		return p.complement(min, max);
+	}
+
+	public boolean isSatisfiable(IntervalSet p) {
+		return !p.intersection(top).isEmpty();
+	}
+
+	public boolean contains(IntervalSet p, Integer d) {
+		return d >= min && d <= max && p.contains(d);
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of integers represented as a sorted list of disjoint
+ * intervals.
+ * <p>
+ * Intervals are closed and the representation is canonical: intervals are
+ * sorted, never overlap nor touch, so that two sets are equal iff they contain
+ * the same integers. Characters are handled as their integer value, which
+ * makes this class suitable for character classes over UTF-16 units or
+ * Unicode code points.
+ *
+ * @version $Id$
+ * @see IntervalAlgebra
+ */
+public final class IntervalSet {
+
+	/**
+	 * The empty set.
+	 */
+	public static final IntervalSet EMPTY = new IntervalSet(new int[0]);
+
+	/* lower and upper bounds of intervals, interleaved */
+	private final int[] bounds;
+
+	private IntervalSet(int[] bounds) {
+		this.bounds = bounds;
+	}
+
+	/**
+	 * @param lo
+	 *            lower bound, inclusive.
+	 * @param hi
+	 *            upper bound, inclusive.
+	 * @return the set of integers between <code>lo</code> and <code>hi</code>,
+	 *         which is empty if <code>lo &gt; hi</code>.
+	 */
+	public static IntervalSet range(int lo, int hi) {
+		if (lo > hi)
+			return EMPTY;
+		return new IntervalSet(new int[] { lo, hi });
+	}
+
+	/**
+	 * @return the set containing only <code>value</code>.
+	 */
+	public static IntervalSet point(int value) {
+		return range(value, value);
+	}
+
+	/**
+	 * @return the set of the characters of <code>chars</code>.
+	 */
+	public static IntervalSet of(CharSequence chars) {
+		IntervalSet s = EMPTY;
+		for (int i = 0; i < chars.length(); i++)
+			s = s.union(point(chars.charAt(i)));
+		return s;
+	}
+
+	/**
+	 * @return the number of disjoint intervals of this set.
+	 */
+	public int rangeCount() {
+		return bounds.length / 2;
+	}
+
+	/**
+	 * @return the lower bound of the <code>i</code>-th interval.
+	 */
+	public int lower(int i) {
+		return bounds[2 * i];
+	}
+
+	/**
+	 * @return the upper bound of the <code>i</code>-th interval.
+	 */
+	public int upper(int i) {
+		return bounds[2 * i + 1];
+	}
+
+	/**
+	 * @return true iff this set contains no integer.
+	 */
+	public boolean isEmpty() {
+		return bounds.length == 0;
+	}
+
+	/**
+	 * @return true iff <code>value</code> belongs to this set.
+	 */
+	public boolean contains(int value) {
+		int lo = 0, hi = rangeCount() - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (value < bounds[2 * mid])
+				hi = mid - 1;
+			else if (value > bounds[2 * mid + 1])
+				lo = mid + 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the set of integers in this set or in <code>other</code>.
+	 */
+	public IntervalSet union(IntervalSet other) {
+		if (other.isEmpty())
+			return this;
+		if (isEmpty())
+			return other;
+		int[] a = bounds, b = other.bounds;
+		int[] r = new int[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length || j < b.length) {
+			int lo, hi;
+			if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+				lo = a[i];
+				hi = a[i + 1];
+				i += 2;
+			} else {
+				lo = b[j];
+				hi = b[j + 1];
+				j += 2;
+			}
+			if (n > 0 && (long) lo <= (long) r[n - 1] + 1) {
+				if (hi > r[n - 1])
+					r[n - 1] = hi;
+			} else {
+				r[n++] = lo;
+				r[n++] = hi;
+			}
+		}
+		return new IntervalSet(Arrays.copyOf(r, n));
+	}
+
+	/**
+	 * @return the set of integers both in this set and in <code>other</code>.
+	 */
+	public IntervalSet intersection(IntervalSet other) {
+		int[] a = bounds, b = other.bounds;
+		int[] r = new int[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length) {
+			int lo = Math.max(a[i], b[j]);
+			int hi = Math.min(a[i + 1], b[j + 1]);
+			if (lo <= hi) {
+				r[n++] = lo;
+				r[n++] = hi;
+			}
+			if (a[i + 1] < b[j + 1])
+				i += 2;
+			else
+				j += 2;
+		}
+		return n == 0 ? EMPTY : new IntervalSet(Arrays.copyOf(r, n));
+	}
+
+	/**
+	 * @param min
+	 *            lower bound of the domain, inclusive.
+	 * @param max
+	 *            upper bound of the domain, inclusive.
+	 * @return the set of integers between <code>min</code> and
+	 *         <code>max</code> not in this set.
+	 */
+	public IntervalSet complement(int min, int max) {
+		int[] r = new int[bounds.length + 2];
+		int n = 0;
+		long next = min;
+		for (int i = 0; i < bounds.length && next <= max; i += 2) {
+			if (bounds[i] > next) {
+				r[n++] = (int) next;
+				r[n++] = (int) Math.min(max, (long) bounds[i] - 1);
+			}
+			next = Math.max(next, (long) bounds[i + 1] + 1);
+		}
+		if (next <= max) {
+			r[n++] = (int) next;
+			r[n++] = max;
+		}
+		return n == 0 ? EMPTY : new IntervalSet(Arrays.copyOf(r, n));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof IntervalSet && Arrays.equals(bounds, ((IntervalSet) obj).bounds);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(bounds);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < bounds.length; i += 2) {
+			if (i > 0)
+				sb.append(',');
+			sb.append(bounds[i]);
+			if (bounds[i + 1] != bounds[i])
+				sb.append("..").append(bounds[i + 1]);
+		}
+		return sb.append(']').toString();
+	}
+}
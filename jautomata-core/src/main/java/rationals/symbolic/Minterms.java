@@ -0,0 +1,103 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The minterms of a collection of predicates: the satisfiable conjunctions
+ * of each predicate or its negation. Minterms partition the domain and each
+ * predicate is the disjunction of the minterms it contains.
+ *
+ * @version $Id$
+ */
+final class Minterms<P> {
+
+	private final Map<P, Integer> index = new HashMap<>();
+
+	private final List<P> minterms = new ArrayList<>();
+
+	private final List<BitSet> members = new ArrayList<>();
+
+	Minterms(BooleanAlgebra<P, ?> algebra, Collection<P> predicates) {
+		minterms.add(algebra.top());
+		members.add(new BitSet());
+		for (P p : predicates) {
+			if (index.containsKey(p))
+				continue;
+			int i = index.size();
+			index.put(p, i);
+			P np = null;
+			for (int k = 0, n = minterms.size(); k < n; k++) {
+				P m = minterms.get(k);
+				P in = algebra.and(m, p);
+				if (!algebra.isSatisfiable(in))
+					continue;
+				if (np == null)
+					np = algebra.not(p);
+				P out = algebra.and(m, np);
+				if (!algebra.isSatisfiable(out)) {
+					members.get(k).set(i);
+					continue;
+				}
+				/* split m */
+				BitSet b = (BitSet) members.get(k).clone();
+				b.set(i);
+				minterms.set(k, out);
+				minterms.add(in);
+				members.add(b);
+			}
+		}
+	}
+
+	/*
+	 * number of minterms
+	 */
+	int size() {
+		return minterms.size();
+	}
+
+	P minterm(int k) {
+		return minterms.get(k);
+	}
+
+	/*
+	 * indices of predicates containing k-th minterm
+	 */
+	BitSet members(int k) {
+		return members.get(k);
+	}
+
+	/*
+	 * index of a predicate given at construction time
+	 */
+	int index(P p) {
+		return index.get(p);
+	}
+
+	/*
+	 * number of distinct predicates
+	 */
+	int predicates() {
+		return index.size();
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.ArrayList;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.State;
+import rationals.Transition;
+import rationals.transformations.UnaryTransformation;
+
+/**
+ * Complement of symbolic automata.
+ * <p>
+ * The automaton is determinized, completed with a sink state for the
+ * elements of the domain it cannot read, and its terminal states are
+ * swapped. Unlike {@link rationals.transformations.Complement}, the result
+ * does not depend on the alphabet of the automaton but on the domain of the
+ * algebra.
+ *
+ * @version $Id$
+ */
+public class SymbolicComplement<P, Tr extends Transition<P>, T extends Builder<P, Tr, T>> implements
+		UnaryTransformation<P, Tr, T> {
+
+	private final BooleanAlgebra<P, ?> algebra;
+
+	/**
+	 * @param algebra
+	 *            the algebra of labels of transformed automata.
+	 */
+	public SymbolicComplement(BooleanAlgebra<P, ?> algebra) {
+		this.algebra = algebra;
+	}
+
+	public Automaton<P, Tr, T> transform(Automaton<P, Tr, T> a) {
+		Automaton<P, Tr, T> b = new SymbolicToDFA<P, Tr, T>(algebra).transform(a);
+		SymbolicToolBox.complete(b, algebra);
+		for (State q : new ArrayList<>(b.states()))
+			q.setTerminal(!q.isTerminal());
+		return b;
+	}
+}
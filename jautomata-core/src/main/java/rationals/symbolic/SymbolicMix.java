@@ -0,0 +1,103 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.Couple;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.transformations.BinaryTransformation;
+
+/**
+ * Synchronized product of symbolic automata.
+ * <p>
+ * As every label of one automaton may share elements with any label of the
+ * other, all letters are synchronized: the product moves on the conjunction
+ * of two labels when it is satisfiable, and epsilon transitions are taken
+ * independently. The result recognizes the intersection of both languages.
+ * Only states accessible from the initial couples are built.
+ *
+ * @version $Id$
+ * @see rationals.transformations.Mix
+ */
+public class SymbolicMix<P, Tr extends Transition<P>, T extends Builder<P, Tr, T>> implements
+		BinaryTransformation<P, Tr, T> {
+
+	private final BooleanAlgebra<P, ?> algebra;
+
+	/**
+	 * @param algebra
+	 *            the algebra of labels of both automata.
+	 */
+	public SymbolicMix(BooleanAlgebra<P, ?> algebra) {
+		this.algebra = algebra;
+	}
+
+	public Automaton<P, Tr, T> transform(Automaton<P, Tr, T> a, Automaton<P, Tr, T> b) {
+		Automaton<P, Tr, T> c = new Automaton<>();
+		Map<Couple, State> map = new HashMap<>();
+		LinkedList<Couple> todo = new LinkedList<>();
+		for (State p : a.initials())
+			for (State q : b.initials()) {
+				Couple k = new Couple(p, q);
+				map.put(k, c.addState(true, p.isTerminal() && q.isTerminal()));
+				todo.add(k);
+			}
+		while (!todo.isEmpty()) {
+			Couple k = todo.removeFirst();
+			State from = map.get(k);
+			for (Transition<P> t : a.deltaView(k.getFrom())) {
+				if (t.label() == null) {
+					add(c, map, todo, from, null, t.end(), k.getTo());
+					continue;
+				}
+				for (Transition<P> u : b.deltaView(k.getTo())) {
+					if (u.label() == null)
+						continue;
+					P l = algebra.and(t.label(), u.label());
+					if (algebra.isSatisfiable(l))
+						add(c, map, todo, from, l, t.end(), u.end());
+				}
+			}
+			for (Transition<P> u : b.deltaView(k.getTo()))
+				if (u.label() == null)
+					add(c, map, todo, from, null, k.getFrom(), u.end());
+		}
+		return c;
+	}
+
+	private void add(Automaton<P, Tr, T> c, Map<Couple, State> map, LinkedList<Couple> todo, State from, P label,
+			State p, State q) {
+		Couple k = new Couple(p, q);
+		State to = map.get(k);
+		if (to == null) {
+			to = c.addState(false, p.isTerminal() && q.isTerminal());
+			map.put(k, to);
+			todo.add(k);
+		}
+		try {
+			c.addTransition(new Transition<>(from, label, to));
+		} catch (NoSuchStateException e) {
+		}
+	}
+}
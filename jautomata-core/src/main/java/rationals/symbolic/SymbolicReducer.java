@@ -0,0 +1,207 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.transformations.UnaryTransformation;
+
+/**
+ * Minimization of symbolic automata.
+ * <p>
+ * The automaton is determinized and completed, then states are partitioned
+ * by Moore's algorithm using the minterms of all its labels as letters. The
+ * minimal automaton has one state per class, minus the class of states from
+ * which no terminal state can be reached, and the minterms leading from a
+ * class to another are merged into a single transition.
+ *
+ * @version $Id$
+ * @see rationals.transformations.Reducer
+ */
+public class SymbolicReducer<P, Tr extends Transition<P>, T extends Builder<P, Tr, T>> implements
+		UnaryTransformation<P, Tr, T> {
+
+	private final BooleanAlgebra<P, ?> algebra;
+
+	/**
+	 * @param algebra
+	 *            the algebra of labels of transformed automata.
+	 */
+	public SymbolicReducer(BooleanAlgebra<P, ?> algebra) {
+		this.algebra = algebra;
+	}
+
+	public Automaton<P, Tr, T> transform(Automaton<P, Tr, T> a) {
+		Automaton<P, Tr, T> d = new SymbolicToDFA<P, Tr, T>(algebra).transform(a);
+		SymbolicToolBox.complete(d, algebra);
+		/* number states and collect labels */
+		List<State> st = new ArrayList<>(d.states());
+		int n = st.size();
+		Map<State, Integer> ids = new HashMap<>();
+		List<P> labels = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			ids.put(st.get(i), i);
+			for (Transition<P> t : d.deltaView(st.get(i)))
+				labels.add(t.label());
+		}
+		Minterms<P> mt = new Minterms<>(algebra, labels);
+		int k = mt.size();
+		/* minterms contained in each label */
+		int[][] byLabel = new int[mt.predicates()][];
+		int[] count = new int[mt.predicates()];
+		for (int m = 0; m < k; m++)
+			for (int j = mt.members(m).nextSetBit(0); j >= 0; j = mt.members(m).nextSetBit(j + 1))
+				count[j]++;
+		for (int j = 0; j < byLabel.length; j++)
+			byLabel[j] = new int[count[j]];
+		Arrays.fill(count, 0);
+		for (int m = 0; m < k; m++)
+			for (int j = mt.members(m).nextSetBit(0); j >= 0; j = mt.members(m).nextSetBit(j + 1))
+				byLabel[j][count[j]++] = m;
+		/* transition table over minterms */
+		int[][] delta = new int[n][k];
+		for (int i = 0; i < n; i++) {
+			Arrays.fill(delta[i], -1);
+			for (Transition<P> t : d.deltaView(st.get(i)))
+				for (int m : byLabel[mt.index(t.label())])
+					delta[i][m] = ids.get(t.end());
+		}
+		int[] cls = partition(st, delta, k);
+		int classes = 0;
+		for (int c : cls)
+			classes = Math.max(classes, c + 1);
+		/* classes from which a terminal class is reachable */
+		BitSet live = new BitSet();
+		for (int i = 0; i < n; i++)
+			if (st.get(i).isTerminal())
+				live.set(cls[i]);
+		for (boolean changed = true; changed;) {
+			changed = false;
+			for (int i = 0; i < n; i++)
+				if (!live.get(cls[i]))
+					for (int m = 0; m < k && !live.get(cls[i]); m++)
+						if (delta[i][m] >= 0 && live.get(cls[delta[i][m]])) {
+							live.set(cls[i]);
+							changed = true;
+						}
+		}
+		/* build quotient */
+		Automaton<P, Tr, T> b = new Automaton<>();
+		State[] qs = new State[classes];
+		int[] rep = new int[classes];
+		Arrays.fill(rep, -1);
+		for (int i = 0; i < n; i++) {
+			State s = st.get(i);
+			int c = cls[i];
+			if (rep[c] < 0)
+				rep[c] = i;
+			if ((live.get(c) || s.isInitial()) && qs[c] == null)
+				qs[c] = b.addState(false, s.isTerminal());
+		}
+		for (int i = 0; i < n; i++)
+			if (st.get(i).isInitial())
+				qs[cls[i]].setInitial(true);
+		for (int c = 0; c < classes; c++) {
+			if (qs[c] == null)
+				continue;
+			Map<Integer, P> out = new TreeMap<>();
+			int i = rep[c];
+			for (int m = 0; m < k; m++) {
+				if (delta[i][m] < 0 || qs[cls[delta[i][m]]] == null)
+					continue;
+				int to = cls[delta[i][m]];
+				P old = out.get(to);
+				out.put(to, old == null ? mt.minterm(m) : algebra.or(old, mt.minterm(m)));
+			}
+			for (Map.Entry<Integer, P> e : out.entrySet())
+				try {
+					b.addTransition(new Transition<>(qs[c], e.getValue(), qs[e.getKey()]));
+				} catch (NoSuchStateException x) {
+				}
+		}
+		return b;
+	}
+
+	/*
+	 * Moore's partition refinement
+	 */
+	private static int[] partition(List<State> st, int[][] delta, int k) {
+		int n = st.size();
+		int[] cls = new int[n];
+		int count = 0;
+		boolean[] seen = new boolean[2];
+		for (int i = 0; i < n; i++) {
+			cls[i] = st.get(i).isTerminal() ? 1 : 0;
+			if (!seen[cls[i]]) {
+				seen[cls[i]] = true;
+				count++;
+			}
+		}
+		while (true) {
+			Map<Signature, Integer> sigs = new HashMap<>();
+			int[] next = new int[n];
+			for (int i = 0; i < n; i++) {
+				int[] sig = new int[k + 1];
+				sig[0] = cls[i];
+				for (int m = 0; m < k; m++)
+					sig[m + 1] = delta[i][m] < 0 ? -1 : cls[delta[i][m]];
+				Signature s = new Signature(sig);
+				Integer c = sigs.get(s);
+				if (c == null)
+					sigs.put(s, c = sigs.size());
+				next[i] = c;
+			}
+			cls = next;
+			if (sigs.size() == count)
+				return cls;
+			count = sigs.size();
+		}
+	}
+
+	private static final class Signature {
+
+		private final int[] sig;
+
+		private final int hash;
+
+		Signature(int[] sig) {
+			this.sig = sig;
+			this.hash = Arrays.hashCode(sig);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Signature && Arrays.equals(sig, ((Signature) obj).sig);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.transformations.UnaryTransformation;
+
+/**
+ * Determinization of symbolic automata.
+ * <p>
+ * This is the subset construction of {@link rationals.transformations.ToDFA}
+ * where the letters leaving a set of states are replaced by the minterms of
+ * the predicates labelling its transitions. Minterms leading to the same set
+ * of states are merged into a single transition, so the result has at most
+ * one transition between two states and the labels leaving a state are
+ * pairwise disjoint.
+ *
+ * @version $Id$
+ */
+public class SymbolicToDFA<P, Tr extends Transition<P>, T extends Builder<P, Tr, T>> implements
+		UnaryTransformation<P, Tr, T> {
+
+	private final BooleanAlgebra<P, ?> algebra;
+
+	/**
+	 * @param algebra
+	 *            the algebra of labels of transformed automata.
+	 */
+	public SymbolicToDFA(BooleanAlgebra<P, ?> algebra) {
+		this.algebra = algebra;
+	}
+
+	public Automaton<P, Tr, T> transform(Automaton<P, Tr, T> a) {
+		Automaton<P, Tr, T> b = new Automaton<>();
+		Map<Set<State>, State> map = new HashMap<>();
+		LinkedList<Set<State>> todo = new LinkedList<>();
+		Set<State> start = a.epsilonClosure(a.initials());
+		map.put(start, b.addState(true, terminal(start)));
+		todo.add(start);
+		while (!todo.isEmpty()) {
+			Set<State> s = todo.removeFirst();
+			State from = map.get(s);
+			List<Transition<P>> trs = new ArrayList<>();
+			List<P> labels = new ArrayList<>();
+			for (State q : s)
+				for (Transition<P> t : a.deltaView(q))
+					if (t.label() != null) {
+						trs.add(t);
+						labels.add(t.label());
+					}
+			Minterms<P> mt = new Minterms<>(algebra, labels);
+			Map<Set<State>, P> targets = new LinkedHashMap<>();
+			for (int k = 0; k < mt.size(); k++) {
+				BitSet in = mt.members(k);
+				if (in.isEmpty())
+					continue;
+				Set<State> to = new HashSet<State>();
+				for (Transition<P> t : trs)
+					if (in.get(mt.index(t.label())))
+						to.add(t.end());
+				to = a.epsilonClosure(to);
+				P old = targets.get(to);
+				targets.put(to, old == null ? mt.minterm(k) : algebra.or(old, mt.minterm(k)));
+			}
+			for (Map.Entry<Set<State>, P> e : targets.entrySet()) {
+				State to = map.get(e.getKey());
+				if (to == null) {
+					to = b.addState(false, terminal(e.getKey()));
+					map.put(e.getKey(), to);
+					todo.add(e.getKey());
+				}
+				try {
+					b.addTransition(new Transition<>(from, e.getValue(), to));
+				} catch (NoSuchStateException x) {
+				}
+			}
+		}
+		return b;
+	}
+
+	private static boolean terminal(Set<State> s) {
+		for (State q : s)
+			if (q.isTerminal())
+				return true;
+		return false;
+	}
+}
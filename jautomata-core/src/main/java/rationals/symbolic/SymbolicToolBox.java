@@ -0,0 +1,138 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+
+/**
+ * Utility methods for symbolic automata.
+ *
+ * @version $Id$
+ * @see BooleanAlgebra
+ */
+public final class SymbolicToolBox {
+
+	private SymbolicToolBox() {
+	}
+
+	/**
+	 * Computes the states reached from <code>s</code> by reading
+	 * <code>d</code>, including epsilon moves before and after.
+	 *
+	 * @param a
+	 *            a symbolic automaton.
+	 * @param algebra
+	 *            the algebra of labels of <code>a</code>.
+	 * @param s
+	 *            a set of states of <code>a</code>.
+	 * @param d
+	 *            an element of the domain.
+	 * @return a new set of states.
+	 */
+	public static <P, D, Tr extends Transition<P>, T extends Builder<P, Tr, T>> Set<State> step(
+			Automaton<P, Tr, T> a, BooleanAlgebra<P, D> algebra, Set<State> s, D d) {
+		Set<State> to = new HashSet<State>();
+		for (State q : a.epsilonClosure(s))
+			for (Transition<P> t : a.deltaView(q))
+				if (t.label() != null && algebra.contains(t.label(), d))
+					to.add(t.end());
+		return a.epsilonClosure(to);
+	}
+
+	/**
+	 * Tells whether a symbolic automaton accepts a word.
+	 *
+	 * @param a
+	 *            a symbolic automaton.
+	 * @param algebra
+	 *            the algebra of labels of <code>a</code>.
+	 * @param word
+	 *            a sequence of elements of the domain.
+	 * @return true iff a terminal state is reached by reading
+	 *         <code>word</code>.
+	 */
+	public static <P, D, Tr extends Transition<P>, T extends Builder<P, Tr, T>> boolean accept(
+			Automaton<P, Tr, T> a, BooleanAlgebra<P, D> algebra, List<D> word) {
+		Set<State> s = a.epsilonClosure(a.initials());
+		for (D d : word) {
+			if (s.isEmpty())
+				return false;
+			s = step(a, algebra, s, d);
+		}
+		for (State q : s)
+			if (q.isTerminal())
+				return true;
+		return false;
+	}
+
+	/**
+	 * Tells whether the outgoing transitions of every state of a symbolic
+	 * automaton have pairwise disjoint labels and there is at most one
+	 * initial state and no epsilon transition.
+	 *
+	 * @return true iff <code>a</code> is deterministic.
+	 */
+	public static <P, Tr extends Transition<P>, T extends Builder<P, Tr, T>> boolean isDeterministic(
+			Automaton<P, Tr, T> a, BooleanAlgebra<P, ?> algebra) {
+		if (a.initials().size() > 1 || a.hasEpsilonTransitions())
+			return false;
+		for (State q : a.states()) {
+			P seen = algebra.bottom();
+			for (Transition<P> t : a.deltaView(q)) {
+				if (algebra.isSatisfiable(algebra.and(seen, t.label())))
+					return false;
+				seen = algebra.or(seen, t.label());
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Adds a sink state to a deterministic automaton so that the labels
+	 * leaving each state cover the domain. Does nothing if the automaton is
+	 * already complete.
+	 */
+	static <P, Tr extends Transition<P>, T extends Builder<P, Tr, T>> void complete(Automaton<P, Tr, T> a,
+			BooleanAlgebra<P, ?> algebra) {
+		State sink = null;
+		for (State q : new ArrayList<>(a.states())) {
+			P covered = algebra.bottom();
+			for (Transition<P> t : a.deltaView(q))
+				covered = algebra.or(covered, t.label());
+			P missing = algebra.not(covered);
+			if (!algebra.isSatisfiable(missing))
+				continue;
+			try {
+				if (sink == null) {
+					sink = a.addState(false, false);
+					a.addTransition(new Transition<>(sink, algebra.top(), sink));
+				}
+				a.addTransition(new Transition<>(q, missing, sink));
+			} catch (NoSuchStateException e) {
+			}
+		}
+	}
+}
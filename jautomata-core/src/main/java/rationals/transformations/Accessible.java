@@ -16,13 +16,17 @@
  */
 package rationals.transformations;
 
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.IndexedAutomaton;
 import rationals.NoSuchStateException;
 import rationals.State;
 import rationals.Transition;
@@ -36,6 +40,10 @@ public class Accessible<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
 
 	private State state;
 
+	private int stateId = -1;
+
+	private Alphabet<L> symbols;
+
 	/**
 	 * The state we must start exploration from
 	 * 
@@ -44,12 +52,49 @@ public class Accessible<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
 		this.state = s;
 	}
 
+	/**
+	 * The state we must start exploration from, and the symbol table of the
+	 * result.
+	 * 
+	 * @param symbols
+	 *            the symbol table of automata built by this transformation.
+	 *            May be null, in which case each result gets a new table.
+	 */
+	public Accessible(State s, Alphabet<L> symbols) {
+		this.state = s;
+		this.symbols = symbols;
+	}
+
+	/**
+	 * The state we must start exploration from, as an index into a
+	 * {@link IndexedAutomaton}.
+	 * 
+	 * @see #transform(IndexedAutomaton)
+	 */
+	public Accessible(int s) {
+		this.stateId = s;
+	}
+
+	/**
+	 * The state we must start exploration from, as an index into a
+	 * {@link IndexedAutomaton}, and the symbol table of the result.
+	 * 
+	 * @param symbols
+	 *            the symbol table of automata built by this transformation.
+	 *            May be null, in which case each result gets a new table.
+	 * @see #transform(IndexedAutomaton)
+	 */
+	public Accessible(int s, Alphabet<L> symbols) {
+		this.stateId = s;
+		this.symbols = symbols;
+	}
+
 	/* (non-Javadoc)
 	 * @see rationals.transformations.UnaryTransformation#transform(rationals.Automaton)
 	 */
 	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-		Set<Transition<L>> trs = a.delta();
-		Automaton<L, Tr, T> b = new Automaton<>();
+		Collection<Transition<L>> trs = a.transitions();
+		Automaton<L, Tr, T> b = new Automaton<>(null, symbols);
 		Map<State, State> stmap = new HashMap<>();
 		/* initial state = state */
 		State ns = b.addState(true, state.isTerminal());
@@ -72,6 +117,37 @@ public class Accessible<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
 		return b;
 	}
 
+	/**
+	 * Compute the automaton accessible from the state given at construction
+	 * time as an index into <code>a</code>.
+	 * 
+	 * @param a
+	 *            an indexed automaton.
+	 * @return a new Automaton.
+	 */
+	public Automaton<L, Tr, T> transform(IndexedAutomaton<L> a) {
+		if (stateId < 0)
+			throw new IllegalStateException("no starting state index given");
+		BitSet start = new BitSet();
+		start.set(stateId);
+		BitSet keep = a.access(start, true);
+		Automaton<L, Tr, T> b = new Automaton<>(null, symbols);
+		State[] map = new State[a.stateCount()];
+		map[stateId] = b.addState(true, a.isTerminal(stateId));
+		for (int i = keep.nextSetBit(0); i >= 0; i = keep.nextSetBit(i + 1))
+			if (i != stateId)
+				map[i] = b.addState(a.isInitial(i), a.isTerminal(i));
+		for (int i = keep.nextSetBit(0); i >= 0; i = keep.nextSetBit(i + 1))
+			for (int k = a.outStart(i); k < a.outEnd(i); k++)
+				try {
+					b.addTransition(new Transition<>(map[i], a.label(a.outLabel(k)), map[a.target(k)]));
+				} catch (NoSuchStateException e) {
+					System.err.println(e.getMessage());
+					return null;
+				}
+		return b;
+	}
+
 	/**
 	 * Recursive function to explore transitions from a state
 	 * @param state
@@ -79,7 +155,7 @@ public class Accessible<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
 	 * @param b
 	 */
 	private void explore(State curstate, Map<State, State> stmap, Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
-		Iterator<Transition<L>> it = a.delta(curstate).iterator();
+		Iterator<Transition<L>> it = a.deltaView(curstate).iterator();
 		while(it.hasNext()) {
 			Transition<L> tr = it.next();
 			State e = tr.end();
@@ -69,7 +69,7 @@ public class CompleteNop<L, Tr extends Transition<L>, T extends Builder<L, Tr, T
         for (Iterator<State> it = a.states().iterator(); it.hasNext();) {
             State q = it.next();
             alph.addAll(alphabet);
-            for (Iterator<Transition<L>> i2 = a.delta(q).iterator(); i2.hasNext();) {
+            for (Iterator<Transition<L>> i2 = a.deltaView(q).iterator(); i2.hasNext();) {
                 Transition<L> tr = i2.next();
                 try {
                     b.addTransition(new Transition<>(qm.get(tr.start()), tr.label(), qm.get(tr.end())));
@@ -90,7 +90,7 @@ public class Concatenation<L, Tr extends Transition<L>, T extends Builder<L, Tr,
         }
         /* create junction state */
         junc = c.addState(ace,bce);
-        Iterator<Transition<L>> i3 = ap.delta().iterator();
+        Iterator<Transition<L>> i3 = ap.transitions().iterator();
         while (i3.hasNext()) {
         	Transition<L> t = i3.next();
             try {
@@ -102,7 +102,7 @@ public class Concatenation<L, Tr extends Transition<L>, T extends Builder<L, Tr,
             }
 
         }
-        Iterator<Transition<L>> i4 = bp.delta().iterator();
+        Iterator<Transition<L>> i4 = bp.transitions().iterator();
         while (i4.hasNext()) {
             Transition<L> t = i4.next();
             try {
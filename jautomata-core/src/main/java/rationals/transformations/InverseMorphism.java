@@ -81,7 +81,7 @@ public class InverseMorphism implements UnaryTransformation {
         Automaton b = new Automaton();
         /* state map */
         Map stm = new HashMap();
-        for(Iterator i = a.delta().iterator();i.hasNext();) {
+        for(Iterator i = a.transitions().iterator();i.hasNext();) {
             Transition tr = (Transition)i.next();
             State ns = tr.start();
             State nss = (State)stm.get(ns);
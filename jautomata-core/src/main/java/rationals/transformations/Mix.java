@@ -41,6 +41,8 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 
 	private Synchronization<L> synchronization;
 
+	private Alphabet<L> symbols;
+
 	/**
 	 * Compute mix of two automata using default synchronization scheme which is
 	 * the equality of labels.
@@ -62,6 +64,22 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 		this.synchronization = synch;
 	}
 
+	/**
+	 * Compute mix of two automata using given synchronization scheme and
+	 * symbol table.
+	 * 
+	 * @param synch
+	 *            a Synchronization object. Must not be null.
+	 * @param symbols
+	 *            the symbol table of automata built by
+	 *            {@link #transform(Automaton, Automaton)}. May be null, in
+	 *            which case each result gets a new table.
+	 */
+	public Mix(Synchronization<L> synch, Alphabet<L> symbols) {
+		this.synchronization = synch;
+		this.symbols = symbols;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -70,7 +88,7 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 	 * , rationals.Automaton)
 	 */
 	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
-		Automaton<L, Tr, T> ret = new Automaton();
+		Automaton<L, Tr, T> ret = new Automaton<L, Tr, T>(null, symbols);
 		// FIXME: Potentially unsafe cast, but adding generics reveals an inconsistency in the APIs 
 		ret.setBuilder((T) new TransitionBuilder<L>());
 		return transformTo(a, b, ret);
@@ -78,6 +96,11 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 
 	/**
 	 * Compute transformation and stores the result in the given automaton.
+	 * <p>
+	 * Transitions are handled through the symbol tables of the automata. When
+	 * <code>a</code> and <code>b</code> share the same table and the
+	 * synchronization is the default one, synchronizing letters are matched
+	 * on their symbols without comparing labels.
 	 * 
 	 * @param a
 	 * @param b
@@ -86,10 +109,23 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 	 *         transformation.
 	 */
 	public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b, Automaton<L, Tr, T> ret) {
-		Set alph = synchronization.synchronizable(a.alphabet(), b.alphabet());
+		Set<L> alph = synchronization.synchronizable(a.alphabet(), b.alphabet());
+		Alphabet<L> syma = a.symbols();
+		Alphabet<L> symb = b.symbols();
+		Alphabet<L> symr = ret.symbols();
+		boolean shared = syma == symb && synchronization.getClass() == DefaultSynchronization.class;
 		/* check alphabets */
+		BitSet synca = new BitSet();
+		BitSet syncb = new BitSet();
+		for (L l : alph) {
+			int i = syma.symbol(l);
+			if (i >= 0)
+				synca.set(i);
+			i = symb.symbol(l);
+			if (i >= 0)
+				syncb.set(i);
+		}
 		Map<StatesCouple, State> amap = new HashMap();
-		Map<StatesCouple, State> bmap = new HashMap();
 		List<StatesCouple> todo = new ArrayList();
 		Set<StatesCouple> done = new HashSet();
 		Set<State> as = TransformationsToolBox.epsilonClosure(a.initials(), a);
@@ -107,18 +143,18 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 				continue;
 			done.add(couple);
 			/* get transition sets */
-			Map<L, Set<State>> tam = TransformationsToolBox.mapAlphabet(a.delta(couple.sa), a);
-			Map<L, Set<State>> tbm = TransformationsToolBox.mapAlphabet(b.delta(couple.sb), b);
-			/* create label map for synchronized trans */
-			Map<L, StatesCouple> tcm = new HashMap();
+			Map<Integer, Set<State>> tam = TransformationsToolBox.mapSymbols(a.delta(couple.sa), a);
+			Map<Integer, Set<State>> tbm = TransformationsToolBox.mapSymbols(b.delta(couple.sb), b);
+			/* create symbol map for synchronized trans */
+			Map<Integer, StatesCouple> tcm = new HashMap();
 			/* unsynchronizable transitions in A */
-			for (Iterator<Map.Entry<L, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<L, Set<State>> me = i.next();
-				L l = me.getKey();
+			for (Iterator<Map.Entry<Integer, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<Integer, Set<State>> me = i.next();
+				int l = me.getKey();
 				as = me.getValue();
-				if (!alph.contains(l)) {
+				if (!synca.get(l)) {
 					Set<State> asc = TransformationsToolBox.epsilonClosure(as, a);
-					tcm.put(l, sc = new StatesCouple(asc, couple.sb));
+					tcm.put(symr.intern(syma.label(l)), sc = new StatesCouple(asc, couple.sb));
 					State to = (State) amap.get(sc);
 					makeNewState(ret, amap, sc, to);
 					todo.add(sc);
@@ -126,13 +162,13 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 				}
 			}
 			/* unsynchronizable transition(s) in B */
-			for (Iterator<Map.Entry<L, Set<State>>> i = tbm.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<L, Set<State>> me =  i.next();
-				L l = me.getKey();
+			for (Iterator<Map.Entry<Integer, Set<State>>> i = tbm.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<Integer, Set<State>> me =  i.next();
+				int l = me.getKey();
 				bs = me.getValue();
-				if (!alph.contains(l)) {
+				if (!syncb.get(l)) {
 					Set<State> bsc = TransformationsToolBox.epsilonClosure(bs, b);
-					tcm.put(l, sc = new StatesCouple(couple.sa, bsc));
+					tcm.put(symr.intern(symb.label(l)), sc = new StatesCouple(couple.sa, bsc));
 					State to = amap.get(sc);
 					makeNewState(ret, amap, sc, to);
 					todo.add(sc);
@@ -143,32 +179,32 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 			 * there remains in tam and tbm only possibly synchronizing
 			 * transitions
 			 */
-			for (Iterator<Map.Entry<L, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<L, Set<State>> me = i.next();
-				L l = me.getKey();
+			for (Iterator<Map.Entry<Integer, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<Integer, Set<State>> me = i.next();
+				int l = me.getKey();
 				as = me.getValue();
-				for (Iterator<Map.Entry<L, Set<State>>> j = tbm.entrySet().iterator(); j.hasNext();) {
-					Map.Entry<L, Set<State>> mbe = j.next();
-					L k = mbe.getKey();
+				if (shared) {
+					bs = tbm.get(l);
+					if (bs != null)
+						synchronize(a, b, ret, amap, todo, tcm, symr.intern(syma.label(l)), as, bs);
+					continue;
+				}
+				for (Iterator<Map.Entry<Integer, Set<State>>> j = tbm.entrySet().iterator(); j.hasNext();) {
+					Map.Entry<Integer, Set<State>> mbe = j.next();
+					L k = symb.label(mbe.getKey());
 					bs = mbe.getValue();
-					L sy = synchronization.synchronize(l, k);
-					if (sy != null) {
-						Set<State> asc = TransformationsToolBox.epsilonClosure(as, a);
-						Set<State> bsc = TransformationsToolBox.epsilonClosure(bs, b);
-						tcm.put(sy, sc = new StatesCouple(asc, bsc));
-						State to = amap.get(sc);
-						makeNewState(ret, amap, sc, to);
-						todo.add(sc);
-					}
+					L sy = synchronization.synchronize(syma.label(l), k);
+					if (sy != null)
+						synchronize(a, b, ret, amap, todo, tcm, symr.intern(sy), as, bs);
 				}
 			}
 			/*
 			 * 
 			 * create new transitions in return automaton, update maps
 			 */
-			for (Iterator<Map.Entry<L, StatesCouple>> i = tcm.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<L, StatesCouple> me =  i.next();
-				L l = me.getKey();
+			for (Iterator<Map.Entry<Integer, StatesCouple>> i = tcm.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<Integer, StatesCouple> me =  i.next();
+				L l = symr.label(me.getKey());
 				sc = me.getValue();
 				State to = amap.get(sc);
 				makeNewState(ret, amap, sc, to);
@@ -182,6 +218,18 @@ public class Mix<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imple
 		return ret;
 	}
 
+	private void synchronize(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b, Automaton<L, Tr, T> ret,
+			Map<StatesCouple, State> amap, List<StatesCouple> todo, Map<Integer, StatesCouple> tcm, int sy,
+			Set<State> as, Set<State> bs) {
+		Set<State> asc = TransformationsToolBox.epsilonClosure(as, a);
+		Set<State> bsc = TransformationsToolBox.epsilonClosure(bs, b);
+		StatesCouple sc = new StatesCouple(asc, bsc);
+		tcm.put(sy, sc);
+		State to = amap.get(sc);
+		makeNewState(ret, amap, sc, to);
+		todo.add(sc);
+	}
+
 	private void makeNewState(Automaton ret, Map amap, StatesCouple sc, State to) {
 		if (to == null) {
 			to = ret.addState(false, TransformationsToolBox
@@ -60,7 +60,7 @@ public class Normalizer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
                 b.addTransition(new Transition<L>(ni, null, nt));
             } catch (NoSuchStateException e) {
             }
-        Iterator<Transition<L>> i2 = a.delta().iterator();
+        Iterator<Transition<L>> i2 = a.transitions().iterator();
         while (i2.hasNext()) {
             Transition<L> t =  i2.next();
             if (t.start().isInitial() && t.end().isTerminal()) {
@@ -57,7 +57,7 @@ public class PrefixClosure implements UnaryTransformation {
             sm.put(st, sr);
         }
         /* add all transitions */
-        for (Iterator it = a.delta().iterator(); it.hasNext();) {
+        for (Iterator it = a.transitions().iterator(); it.hasNext();) {
             Transition tr = (Transition) it.next();
             try {
                 ret.addTransition(new Transition((State) sm.get(tr.start()), tr
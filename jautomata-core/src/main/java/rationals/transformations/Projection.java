@@ -54,7 +54,7 @@ public class Projection implements UnaryTransformation {
     public Automaton transform(Automaton a) {
         Automaton b = new Automaton();
         Map smap = new HashMap();
-        Iterator it = a.delta().iterator();
+        Iterator it = a.transitions().iterator();
         while (it.hasNext()) {
             Transition tr = (Transition) it.next();
             State os = tr.start();
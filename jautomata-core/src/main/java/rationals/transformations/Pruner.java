@@ -18,10 +18,12 @@ package rationals.transformations;
 
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.IndexedAutomaton;
 import rationals.NoSuchStateException;
 import rationals.State;
 import rationals.Transition;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -41,7 +43,7 @@ public class Pruner<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> im
       State e = i1.next() ;
       conversion.put(e , b.addState(e.isInitial() , e.isTerminal())) ;
     }
-    Iterator<Transition<L>> i2 = a.delta().iterator();
+    Iterator<Transition<L>> i2 = a.transitions().iterator();
     while(i2.hasNext()) {
       Transition<L> t = i2.next() ;
       State bs = conversion.get(t.start()) ;
@@ -53,5 +55,17 @@ public class Pruner<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> im
     }
     return b ;
   }
+
+  /**
+   * Prunes the compact form of an automaton.
+   *
+   * @param a the indexed automaton to prune.
+   * @return a new Automaton containing only accessible and coaccessible states of <code>a</code>.
+   */
+  public Automaton<L, Tr, T> transform(IndexedAutomaton<L> a) {
+    BitSet keep = a.access(a.initials(), true) ;
+    keep.and(a.access(a.terminals(), false)) ;
+    return a.toAutomaton(keep) ;
+  }
 }
   
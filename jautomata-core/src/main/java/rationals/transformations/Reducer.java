@@ -16,8 +16,11 @@
  */
 package rationals.transformations;
 
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.FrozenAutomaton;
+import rationals.IndexedAutomaton;
 import rationals.NoSuchStateException;
 import rationals.State;
 import rationals.Transition;
@@ -35,6 +38,26 @@ import java.util.*;
  */
 public class Reducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
 
+    private final Alphabet<L> symbols;
+
+    /**
+     * Minimization giving each result its own symbol table.
+     */
+    public Reducer() {
+        this(null);
+    }
+
+    /**
+     * Minimization sharing a symbol table with its results.
+     * 
+     * @param symbols
+     *            the symbol table of automata built by this transformation.
+     *            May be null, in which case each result gets a new table.
+     */
+    public Reducer(Alphabet<L> symbols) {
+        this.symbols = symbols;
+    }
+
     /*
      * equivalence on DFA
      */
@@ -42,7 +65,7 @@ public class Reducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
         if (!m.get(e1).equals(m.get(e2)))
             return false;
         /* iterate over all transitions */
-        Set<Transition<L>> tas = a.delta(e1);
+        Set<Transition<L>> tas = a.deltaView(e1);
         Set<Transition<L>> tbs = a.delta(e2);
         Iterator<Transition<L>> it = tas.iterator();
         while (it.hasNext()) {
@@ -68,7 +91,24 @@ public class Reducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
         return true;
     }
 
+    /**
+     * Computes the minimal automaton of <code>a</code>. The result is kept
+     * as a property of <code>a</code> so that later calls return a copy of
+     * it until <code>a</code> is modified.
+     *
+     * @see Automaton#getProperty(Object)
+     */
+    @SuppressWarnings("unchecked")
     public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+        Automaton<L, Tr, T> cached = (Automaton<L, Tr, T>) a.getProperty(Reducer.class);
+        if (cached != null)
+            return cached.clone(symbols);
+        Automaton<L, Tr, T> c = minimize(a);
+        a.setProperty(Reducer.class, c.clone());
+        return c;
+    }
+
+    private Automaton<L, Tr, T> minimize(Automaton<L, Tr, T> a) {
         Automaton<L, Tr, T> b = new ToDFA<L, Tr, T>().transform(a);
         Map<State, Set<State>> current = new HashMap<State, Set<State>>();
         Set<State> s1 = b.getStateFactory().stateSet();
@@ -105,7 +145,7 @@ public class Reducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
             }
         } while (!new HashSet<Set<State>>(current.values())
                 .equals(new HashSet<Set<State>>(old.values())));
-        Automaton<L, Tr, T> c = new Automaton<L, Tr, T>();
+        Automaton<L, Tr, T> c = new Automaton<L, Tr, T>(null, symbols);
         Set<Set<State>> setSet = new HashSet<Set<State>>(current.values());
         Iterator<Set<State>> sets = setSet.iterator();
         Map<Set<State>, State> newStates = new HashMap<>();
@@ -137,4 +177,98 @@ public class Reducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
         return c;
     }
 
+    /**
+     * Computes the minimal automaton from the compact form of an automaton.
+     * The automaton is first determinized then equivalence classes are
+     * computed by iterative refinement over state indices.
+     * 
+     * @param a
+     *            the automaton to minimize.
+     * @return a new minimal Automaton.
+     */
+    public Automaton<L, Tr, T> transform(IndexedAutomaton<L> a) {
+        FrozenAutomaton<L> d = new ToDFA<L, Tr, T>().transform(a).freeze();
+        int n = d.stateCount();
+        int[] cls = new int[n];
+        int count = 0;
+        boolean[] seen = new boolean[2];
+        for (int i = 0; i < n; i++) {
+            cls[i] = d.isTerminal(i) ? 1 : 0;
+            if (!seen[cls[i]]) {
+                seen[cls[i]] = true;
+                count++;
+            }
+        }
+        while (true) {
+            Map<Signature, Integer> sigs = new HashMap<Signature, Integer>();
+            int[] ncls = new int[n];
+            for (int i = 0; i < n; i++) {
+                int[] sig = new int[1 + 2 * (d.outEnd(i) - d.outStart(i))];
+                int j = 0;
+                sig[j++] = cls[i];
+                for (int k = d.outStart(i); k < d.outEnd(i); k++) {
+                    sig[j++] = d.outLabel(k);
+                    sig[j++] = cls[d.target(k)];
+                }
+                Signature key = new Signature(sig);
+                Integer c = sigs.get(key);
+                if (c == null) {
+                    c = sigs.size();
+                    sigs.put(key, c);
+                }
+                ncls[i] = c;
+            }
+            cls = ncls;
+            if (sigs.size() == count)
+                break;
+            count = sigs.size();
+        }
+        Automaton<L, Tr, T> c = new Automaton<L, Tr, T>(null, symbols);
+        State[] newStates = new State[count];
+        int[] rep = new int[count];
+        for (int i = n - 1; i >= 0; i--)
+            rep[cls[i]] = i;
+        for (int k = 0; k < count; k++)
+            newStates[k] = c.addState(false, d.isTerminal(rep[k]));
+        for (int i = 0; i < n; i++)
+            if (d.isInitial(i))
+                newStates[cls[i]].setInitial(true);
+        for (int k = 0; k < count; k++) {
+            int r = rep[k];
+            for (int j = d.outStart(r); j < d.outEnd(r); j++) {
+                try {
+                    c.addTransition(new Transition<>(newStates[k], d.label(d.outLabel(j)), newStates[cls[d.target(j)]]));
+                } catch (NoSuchStateException x) {
+                }
+            }
+        }
+        return c;
+    }
+
+    /*
+     * a state's class and outgoing (symbol,class) pairs
+     */
+    private static final class Signature {
+        private final int[] sig;
+
+        private final int hash;
+
+        Signature(int[] sig) {
+            this.sig = sig;
+            this.hash = Arrays.hashCode(sig);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Signature))
+                return false;
+            return Arrays.equals(sig, ((Signature) obj).sig);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,378 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.StateFactory;
+import rationals.Transition;
+
+/**
+ * Copies an automaton with its states created in an order improving
+ * locality.
+ * <p>
+ * States of the copy are created, and thus numbered, in breadth-first,
+ * depth-first or reverse Cuthill-McKee order, so that states linked by a
+ * transition get close numbers. The compact forms built by
+ * {@link Automaton#freeze()} or {@link rationals.CharAutomaton} then store
+ * neighbouring states in neighbouring memory. Optionally, labels are
+ * numbered in sorted order in a new symbol table, so that transitions of
+ * each state are also sorted by label. The copy creates its states with a
+ * clone of the {@link StateFactory} of the transformed automaton.
+ * <p>
+ * The average distance between the numbers of the ends of transitions, a
+ * proxy for cache misses, is computed before and after renumbering.
+ *
+ * @version $Id$
+ */
+public class Renumber<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements
+		UnaryTransformation<L, Tr, T> {
+
+	/**
+	 * Orders in which states can be numbered.
+	 */
+	public enum Order {
+		/** breadth-first from initial states */
+		BFS,
+		/** depth-first from initial states */
+		DFS,
+		/** reverse Cuthill-McKee on the undirected transition graph */
+		RCM
+	}
+
+	private final Order order;
+
+	private final boolean sortLabels;
+
+	private double before;
+
+	private double after;
+
+	/**
+	 * @param order
+	 *            the order of states in the copy.
+	 */
+	public Renumber(Order order) {
+		this(order, false);
+	}
+
+	/**
+	 * @param order
+	 *            the order of states in the copy.
+	 * @param sortLabels
+	 *            if true, the copy gets a new symbol table where labels are
+	 *            numbered in their natural order, or by their string form if
+	 *            they are not comparable. Otherwise the copy gets a copy of
+	 *            the symbol table of the transformed automaton.
+	 */
+	public Renumber(Order order, boolean sortLabels) {
+		this.order = order;
+		this.sortLabels = sortLabels;
+	}
+
+	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+		List<State> states = new ArrayList<>(a.states());
+		int n = states.size();
+		Map<State, Integer> ids = new HashMap<>();
+		for (int i = 0; i < n; i++)
+			ids.put(states.get(i), i);
+		Alphabet<L> symbols = sortLabels ? sortedSymbols(a) : new Alphabet<>(a.symbols());
+		/* out transitions sorted by label, then target */
+		int[][] succ = new int[n][];
+		List<List<Transition<L>>> out = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			List<Transition<L>> trs = new ArrayList<>(a.deltaView(states.get(i)));
+			sort(trs, symbols, ids);
+			out.add(trs);
+			succ[i] = new int[trs.size()];
+			for (int k = 0; k < trs.size(); k++)
+				succ[i][k] = ids.get(trs.get(k).end());
+		}
+		int[] perm;
+		switch (order) {
+		case BFS:
+			perm = traverse(states, succ, true);
+			break;
+		case DFS:
+			perm = traverse(states, succ, false);
+			break;
+		default:
+			perm = rcm(succ);
+		}
+		this.before = distance(succ, identity(n));
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++)
+			rank[perm[i]] = i;
+		this.after = distance(succ, rank);
+		/* build copy, with a fresh factory of the same kind */
+		@SuppressWarnings("unchecked")
+		StateFactory<L, Tr, T> sf = (StateFactory<L, Tr, T>) a.getStateFactory().clone();
+		Automaton<L, Tr, T> b = new Automaton<>(sf, symbols);
+		State[] map = new State[n];
+		for (int i = 0; i < n; i++) {
+			State s = states.get(perm[i]);
+			map[perm[i]] = b.addState(s.isInitial(), s.isTerminal());
+		}
+		for (int i = 0; i < n; i++) {
+			int q = perm[i];
+			for (Transition<L> t : out.get(q))
+				try {
+					b.addTransition(new Transition<>(map[q], t.label(), map[ids.get(t.end())]));
+				} catch (NoSuchStateException e) {
+					assert false;
+				}
+		}
+		return b;
+	}
+
+	/**
+	 * @return the average distance between the ends of transitions in the
+	 *         last transformed automaton.
+	 */
+	public double distanceBefore() {
+		return before;
+	}
+
+	/**
+	 * @return the average distance between the ends of transitions in the
+	 *         last automaton produced.
+	 */
+	public double distanceAfter() {
+		return after;
+	}
+
+	/**
+	 * Computes the average distance between the ends of transitions, states
+	 * being numbered in the order of {@link Automaton#states()}.
+	 *
+	 * @param a
+	 *            an automaton.
+	 * @return the average absolute difference between numbers of start and
+	 *         end states of transitions, or 0 if there is no transition.
+	 */
+	public static double averageDistance(Automaton<?, ?, ?> a) {
+		Map<State, Integer> ids = new HashMap<>();
+		for (State s : a.states())
+			ids.put(s, ids.size());
+		long sum = 0, count = 0;
+		for (Transition<?> t : a.transitions()) {
+			sum += Math.abs(ids.get(t.start()) - ids.get(t.end()));
+			count++;
+		}
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	private static double distance(int[][] succ, int[] rank) {
+		long sum = 0, count = 0;
+		for (int i = 0; i < succ.length; i++)
+			for (int j : succ[i]) {
+				sum += Math.abs(rank[i] - rank[j]);
+				count++;
+			}
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	private static int[] identity(int n) {
+		int[] id = new int[n];
+		for (int i = 0; i < n; i++)
+			id[i] = i;
+		return id;
+	}
+
+	/*
+	 * a new symbol table with labels interned in sorted order
+	 */
+	private Alphabet<L> sortedSymbols(Automaton<L, Tr, T> a) {
+		List<L> labels = new ArrayList<>();
+		for (L l : a.alphabet())
+			if (l != null)
+				labels.add(l);
+		Collections.sort(labels, new Comparator<L>() {
+			@SuppressWarnings("unchecked")
+			public int compare(L x, L y) {
+				if (x instanceof Comparable && x.getClass() == y.getClass())
+					return ((Comparable<Object>) x).compareTo(y);
+				return String.valueOf(x).compareTo(String.valueOf(y));
+			}
+		});
+		Alphabet<L> symbols = new Alphabet<>();
+		for (L l : labels)
+			symbols.intern(l);
+		return symbols;
+	}
+
+	private static <L> void sort(List<Transition<L>> trs, final Alphabet<L> symbols, final Map<State, Integer> ids) {
+		Collections.sort(trs, new Comparator<Transition<L>>() {
+			public int compare(Transition<L> x, Transition<L> y) {
+				int lx = symbols.symbol(x.label()), ly = symbols.symbol(y.label());
+				if (lx != ly)
+					return lx < ly ? -1 : 1;
+				int ex = ids.get(x.end()), ey = ids.get(y.end());
+				return ex < ey ? -1 : ex == ey ? 0 : 1;
+			}
+		});
+	}
+
+	/*
+	 * breadth or depth first order from initial states, then from any
+	 * state not yet visited
+	 */
+	private static int[] traverse(List<State> states, int[][] succ, boolean breadth) {
+		int n = states.size();
+		int[] perm = new int[n];
+		boolean[] seen = new boolean[n];
+		int count = 0;
+		int[] roots = new int[n];
+		int r = 0;
+		for (int i = 0; i < n; i++)
+			if (states.get(i).isInitial())
+				roots[r++] = i;
+		for (int i = 0; i < n; i++)
+			if (!states.get(i).isInitial())
+				roots[r++] = i;
+		int[] work = new int[n];
+		int[] pos = new int[n];
+		for (int root : roots) {
+			if (seen[root])
+				continue;
+			seen[root] = true;
+			if (breadth) {
+				int head = count;
+				perm[count++] = root;
+				while (head < count) {
+					int q = perm[head++];
+					for (int j : succ[q])
+						if (!seen[j]) {
+							seen[j] = true;
+							perm[count++] = j;
+						}
+				}
+			} else {
+				/* preorder with an explicit stack of (state, next successor) */
+				int sp = 0;
+				perm[count++] = root;
+				work[sp] = root;
+				pos[sp++] = 0;
+				while (sp > 0) {
+					int q = work[sp - 1];
+					if (pos[sp - 1] == succ[q].length) {
+						sp--;
+						continue;
+					}
+					int j = succ[q][pos[sp - 1]++];
+					if (!seen[j]) {
+						seen[j] = true;
+						perm[count++] = j;
+						work[sp] = j;
+						pos[sp++] = 0;
+					}
+				}
+			}
+		}
+		return perm;
+	}
+
+	/*
+	 * reverse Cuthill-McKee on the symmetrized graph
+	 */
+	private static int[] rcm(int[][] succ) {
+		int n = succ.length;
+		/* undirected adjacency without duplicates */
+		final int[] degree = new int[n];
+		List<int[]> adj = new ArrayList<>();
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		int[][] pred = new int[n][];
+		int[] pc = new int[n];
+		for (int i = 0; i < n; i++)
+			for (int j : succ[i])
+				pc[j]++;
+		for (int i = 0; i < n; i++)
+			pred[i] = new int[pc[i]];
+		Arrays.fill(pc, 0);
+		for (int i = 0; i < n; i++)
+			for (int j : succ[i])
+				pred[j][pc[j]++] = i;
+		for (int i = 0; i < n; i++) {
+			int[] nb = new int[succ[i].length + pred[i].length];
+			int k = 0;
+			mark[i] = i;
+			for (int j : succ[i])
+				if (mark[j] != i) {
+					mark[j] = i;
+					nb[k++] = j;
+				}
+			for (int j : pred[i])
+				if (mark[j] != i) {
+					mark[j] = i;
+					nb[k++] = j;
+				}
+			adj.add(Arrays.copyOf(nb, k));
+			degree[i] = k;
+		}
+		Comparator<Integer> byDegree = new Comparator<Integer>() {
+			public int compare(Integer x, Integer y) {
+				if (degree[x] != degree[y])
+					return degree[x] < degree[y] ? -1 : 1;
+				return x.compareTo(y);
+			}
+		};
+		Integer[] byMinDegree = new Integer[n];
+		for (int i = 0; i < n; i++)
+			byMinDegree[i] = i;
+		Arrays.sort(byMinDegree, byDegree);
+		int[] perm = new int[n];
+		boolean[] seen = new boolean[n];
+		int count = 0;
+		for (int root : byMinDegree) {
+			if (seen[root])
+				continue;
+			seen[root] = true;
+			int head = count;
+			perm[count++] = root;
+			while (head < count) {
+				int q = perm[head++];
+				List<Integer> next = new ArrayList<>();
+				for (int j : adj.get(q))
+					if (!seen[j]) {
+						seen[j] = true;
+						next.add(j);
+					}
+				Collections.sort(next, byDegree);
+				for (int j : next)
+					perm[count++] = j;
+			}
+		}
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			int t = perm[i];
+			perm[i] = perm[j];
+			perm[j] = t;
+		}
+		return perm;
+	}
+}
@@ -50,7 +50,7 @@ public class Reverser<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
       State e = i1.next() ;
       map.put(e , b.addState(e.isTerminal() , e.isInitial())) ;
     }
-    Iterator<Transition<L>> i2 = a.delta().iterator() ;
+    Iterator<Transition<L>> i2 = a.transitions().iterator() ;
     while(i2.hasNext()) {
       Transition<L> t = i2.next() ;
       try {
@@ -33,7 +33,7 @@ import java.util.Map;
  */
 public class Star<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
     public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-        if (a.delta().size() == 0)
+        if (a.transitions().isEmpty())
             return Automaton.epsilonAutomaton();
         Automaton<L, Tr, T> b = new Automaton<>();
         State ni = b.addState(true, true);
@@ -43,7 +43,7 @@ public class Star<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> impl
         while (i1.hasNext()) {
             map.put(i1.next(), b.addState(false, false));
         }
-        Iterator<Transition<L>> i2 = a.delta().iterator();
+        Iterator<Transition<L>> i2 = a.transitions().iterator();
         while (i2.hasNext()) {
             Transition<L> t = i2.next();
             try {
@@ -55,7 +55,7 @@ public class Substitution<L, Tr extends Transition<L>, T extends Builder<L, Tr,
 		Automaton<L, Tr, T> b = new Automaton<>();
 		/* state map */
 		Map<State, State> stm = new HashMap<>();
-		for (Iterator<Transition<L>> i = a.delta().iterator(); i.hasNext();) {
+		for (Iterator<Transition<L>> i = a.transitions().iterator(); i.hasNext();) {
 			Transition<L> tr = i.next();
 			State ns = tr.start();
 			State nss = stm.get(ns);
@@ -120,7 +120,7 @@ public class Substitution<L, Tr extends Transition<L>, T extends Builder<L, Tr,
 				}
 
 		}
-		for (Iterator<Transition<L>> i = automaton.delta().iterator(); i.hasNext();) {
+		for (Iterator<Transition<L>> i = automaton.transitions().iterator(); i.hasNext();) {
 			Transition<L> t = i.next();
 			try {
 				b.addTransition(new Transition<L>(map.get(t.start()), t.label(), map.get(t.end())));
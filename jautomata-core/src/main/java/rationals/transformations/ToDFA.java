@@ -16,8 +16,10 @@
  */
 package rationals.transformations;
 
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.IndexedAutomaton;
 import rationals.NoSuchStateException;
 import rationals.State;
 import rationals.Transition;
@@ -31,9 +33,30 @@ import java.util.*;
  * @version $Id: ToDFA.java 7 2006-08-31 23:01:30Z oqube $
  */
 public class ToDFA<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
-  
+
+	private final Alphabet<L> symbols;
+
+	/**
+	 * Determinization giving each result its own symbol table.
+	 */
+	public ToDFA() {
+		this(null);
+	}
+
+	/**
+	 * Determinization sharing a symbol table with its results.
+	 * 
+	 * @param symbols
+	 *            the symbol table of automata built by this transformation.
+	 *            May be null, in which case each result gets a new table.
+	 */
+	public ToDFA(Alphabet<L> symbols) {
+		this.symbols = symbols;
+	}
+
 	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-		Automaton<L, Tr, T> ret = new Automaton<>();
+		Alphabet<L> syma = a.symbols();
+		Automaton<L, Tr, T> ret = new Automaton<>(null, symbols);
 		Map<Set<State>, State> bmap = new HashMap<>();
 		List<Set<State>>todo = new ArrayList<>();
 		Set<Set<State>>done = new HashSet<>();
@@ -48,11 +71,10 @@ public class ToDFA<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imp
 				continue;
 			done.add(sts);
 			/* get transition sets */
-			Map<L, Set<State>> tam = TransformationsToolBox.mapAlphabet(a.delta(sts), a);
-			/* unsynchronizable transitions in A */
-			for (Iterator<Map.Entry<L, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<L, Set<State>> me = i.next();
-				L l = me.getKey();
+			Map<Integer, Set<State>> tam = TransformationsToolBox.mapSymbols(a.delta(sts), a);
+			for (Iterator<Map.Entry<Integer, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<Integer, Set<State>> me = i.next();
+				L l = syma.label(me.getKey());
 				as = (Set<State>) me.getValue();
 				Set<State> asc = TransformationsToolBox.epsilonClosure(as, a);
 				State to = (State) bmap.get(asc);
@@ -72,6 +94,61 @@ public class ToDFA<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imp
 		return ret;
 	}
 
+	/**
+	 * Determinize the compact form of an automaton. Sets of states are
+	 * handled as bit sets of state indices.
+	 * 
+	 * @param a
+	 *            the automaton to determinize.
+	 * @return a new deterministic Automaton.
+	 */
+	public Automaton<L, Tr, T> transform(IndexedAutomaton<L> a) {
+		Automaton<L, Tr, T> ret = new Automaton<>(null, symbols);
+		BitSet terms = a.terminals();
+		Map<BitSet, State> bmap = new HashMap<>();
+		LinkedList<BitSet> todo = new LinkedList<>();
+		BitSet as = a.epsilonClosure(a.initials());
+		bmap.put(as, ret.addState(true, as.intersects(terms)));
+		todo.add(as);
+		/* (symbol,target) pairs packed in longs */
+		long[] edges = new long[16];
+		while (!todo.isEmpty()) {
+			BitSet sts = todo.removeFirst();
+			State from = bmap.get(sts);
+			int n = 0;
+			for (int q = sts.nextSetBit(0); q >= 0; q = sts.nextSetBit(q + 1)) {
+				for (int k = a.outStart(q); k < a.outEnd(q); k++) {
+					int l = a.outLabel(k);
+					if (l == Alphabet.EPSILON)
+						continue;
+					if (n == edges.length)
+						edges = Arrays.copyOf(edges, n * 2);
+					edges[n++] = ((long) l << 32) | a.target(k);
+				}
+			}
+			Arrays.sort(edges, 0, n);
+			for (int i = 0; i < n;) {
+				int l = (int) (edges[i] >>> 32);
+				BitSet asc = new BitSet();
+				while (i < n && (int) (edges[i] >>> 32) == l)
+					asc.set((int) edges[i++]);
+				a.epsilonClosure(asc);
+				State to = bmap.get(asc);
+				if (to == null) {
+					to = ret.addState(false, asc.intersects(terms));
+					bmap.put(asc, to);
+					todo.add(asc);
+				}
+				try {
+					ret.addTransition(new Transition<L>(from, a.label(l), to));
+				} catch (NoSuchStateException e) {
+					assert false;
+				}
+			}
+		}
+		return ret;
+	}
+
   /*
     public Automaton transform(Automaton a) {
         a = new EpsilonTransitionRemover().transform(a);
@@ -16,6 +16,7 @@
  */
 package rationals.transformations;
 
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.State;
 import rationals.Transition;
@@ -63,32 +64,7 @@ public class TransformationsToolBox {
    * epsilon transitions. 
    */
   public static Set<State> epsilonClosure(Set<State> s, Automaton<?, ?, ?> a) {
-      Set<State> exp = a.getStateFactory().stateSet();
-      exp.addAll(s); /* set of states to visit */
-      Set<State> view = a.getStateFactory().stateSet(); /* set of states visited */
-      Set<State> arr = a.getStateFactory().stateSet(); /* the set of arrival states */
-      arr.addAll(s);
-      do {
-          Set<State> ns = a.getStateFactory().stateSet();
-          ns.addAll(exp); /* arrival states */
-          Iterator<State> it = ns.iterator();
-          while (it.hasNext()) {
-              State st = (State) it.next();
-              Iterator<?> it2 = a.delta(st).iterator();
-              while (it2.hasNext()) {
-                  Transition<?> tr = (Transition<?>) it2.next();
-                  if (tr.label() == null && !view.contains(tr.end())
-                          && !tr.end().equals(st)) {
-                      /* compute closure of epsilon transitions */
-                      exp.add(tr.end());
-                      arr.add(tr.end());
-                  }
-              }
-              exp.remove(st);
-              view.add(st);
-          }
-      } while (!exp.isEmpty());
-      return arr;
+      return a.epsilonClosure(s);
   }
 
   
@@ -121,4 +97,33 @@ public class TransformationsToolBox {
       return am;
   }
 
+  /**
+   * Compute a map from symbols to set of states given 
+   * a set of transitions.
+   * This method is the same as {@link #mapAlphabet(Set, Automaton)} but
+   * uses symbols from the automaton's symbol table as keys, hence does 
+   * not rely on labels' <code>equals</code> and <code>hashCode</code>. 
+   * Epsilon transitions are not taken into account.
+   *  
+   * @param ts a Set of Transition objects.
+   * @return a Map from symbols of <code>a.symbols()</code> to Set of State objects. 
+   * @see rationals.Alphabet
+   */
+  public static <L> Map<Integer, Set<State>> mapSymbols(Set<Transition<L>> ts, Automaton<L, ?, ?> a) {
+      Map<Integer, Set<State>> am = new HashMap<>();
+      Alphabet<L> symbols = a.symbols();
+      for (Transition<L> tr : ts) {
+          int l = symbols.symbol(tr.label());
+          if (l == Alphabet.EPSILON)
+              continue;
+          Set<State> as = am.get(l);
+          if (as == null) {
+              as = a.getStateFactory().stateSet();
+              am.put(l, as);
+          }
+          as.add(tr.end());
+      }
+      return am;
+  }
+
 }
@@ -49,7 +49,7 @@ public class Union<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> imp
       State e = i1.next() ;
       map.put(e , ap.addState(e.isInitial() , e.isTerminal())) ;
     }
-    Iterator<Transition<L>> i2 = b.delta().iterator() ;
+    Iterator<Transition<L>> i2 = b.transitions().iterator() ;
     while(i2.hasNext()) {
       Transition<L> t = i2.next();
       try {
@@ -0,0 +1,83 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import rationals.converters.ConverterException;
+import rationals.converters.Expression;
+import rationals.properties.AreEquivalent;
+import rationals.properties.TraceEquivalence;
+
+/**
+ * @version $Id$
+ */
+public class AutomatonLoaderTest extends TestCase {
+
+    public void testBuild() {
+        AutomatonLoader<String, Transition<String>, TransitionBuilder<String>> l = new AutomatonLoader<>(3, 4);
+        l.initials(0).terminals(2);
+        l.transition(0, "a", 0).transition(0, "a", 1).transition(1, "b", 2).transition(1, "b", 2);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = l.build();
+        assertEquals(3, a.states().size());
+        assertEquals(3, a.delta().size());
+        assertEquals(2, a.alphabet().size());
+        assertTrue(a.accept(Arrays.asList("a", "a", "b")));
+        assertTrue(!a.accept(Arrays.asList("b")));
+        assertNotSame(l.symbols(), a.symbols());
+        assertEquals(l.symbols().symbol("b"), a.symbols().symbol("b"));
+        l.transition(2, "c", 0);
+        assertEquals(-1, a.symbols().symbol("c"));
+    }
+
+    public void testEdgesFromSymbols() throws ConverterException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> e = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("a(b+1)c*");
+        FrozenAutomaton<String> f = e.freeze();
+        int m = f.transitionCount();
+        int[] src = new int[m], lbl = new int[m], dst = new int[m];
+        int k = 0;
+        for (int q = 0; q < f.stateCount(); q++)
+            for (int i = f.outStart(q); i < f.outEnd(q); i++, k++) {
+                src[k] = q;
+                lbl[k] = f.outLabel(i);
+                dst[k] = f.target(i);
+            }
+        AutomatonLoader<String, Transition<String>, TransitionBuilder<String>> l = new AutomatonLoader<>(f.symbols(),
+                f.stateCount(), m);
+        l.edges(src, lbl, dst);
+        for (int q = f.initials().nextSetBit(0); q >= 0; q = f.initials().nextSetBit(q + 1))
+            l.initials(q);
+        for (int q = f.terminals().nextSetBit(0); q >= 0; q = f.terminals().nextSetBit(q + 1))
+            l.terminals(q);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = l.build();
+        assertEquals(e.delta().size(), a.delta().size());
+        assertTrue(new AreEquivalent<String, Transition<String>, TransitionBuilder<String>>(
+                new TraceEquivalence<String, Transition<String>, TransitionBuilder<String>>()).test(e, a));
+    }
+
+    public void testInvalidState() {
+        AutomatonLoader<String, Transition<String>, TransitionBuilder<String>> l = new AutomatonLoader<>(2, 0);
+        try {
+            l.transition(0, "a", 2);
+            fail("Should have rejected unknown state");
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(0, l.size());
+    }
+}
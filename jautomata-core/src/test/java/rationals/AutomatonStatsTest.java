@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class AutomatonStatsTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> a;
+
+    private State[] ss;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        a = new Automaton<>();
+        ss = new State[4];
+        ss[0] = a.addState(true, false);
+        ss[1] = a.addState(false, false);
+        ss[2] = a.addState(false, false);
+        ss[3] = a.addState(false, true);
+        /* {0,1} and {2} are cycles, 3 is a sink */
+        a.addTransition(new Transition<>(ss[0], "a", ss[1]));
+        a.addTransition(new Transition<>(ss[0], "b", ss[1]));
+        a.addTransition(new Transition<>(ss[0], "b", ss[2]));
+        a.addTransition(new Transition<>(ss[1], "a", ss[0]));
+        a.addTransition(new Transition<String>(ss[1], null, ss[2]));
+        a.addTransition(new Transition<>(ss[2], "c", ss[2]));
+        a.addTransition(new Transition<>(ss[2], "a", ss[3]));
+    }
+
+    public void testCounts() {
+        AutomatonStats s = a.stats();
+        assertEquals(4, s.stateCount());
+        assertEquals(7, s.transitionCount());
+        assertEquals(1, s.epsilonCount());
+        assertEquals(a.alphabet().size(), s.alphabetSize());
+        assertEquals(2, s.maxLabelsPerState());
+        assertEquals(3, s.maxOutDegree());
+        assertEquals(3, s.sccCount());
+    }
+
+    public void testOutDegreeHistogram() {
+        int[] h = a.stats().outDegreeHistogram();
+        assertEquals(3, h.length);
+        assertEquals(1, h[0]);
+        assertEquals(0, h[1]);
+        assertEquals(3, h[2]);
+        h[0] = 42;
+        assertEquals(1, a.stats().outDegreeHistogram()[0]);
+    }
+
+    public void testSccOfLongChain() {
+        AutomatonLoader<String, Transition<String>, TransitionBuilder<String>> l = new AutomatonLoader<>(100000, 100000);
+        for (int i = 0; i + 1 < 100000; i++)
+            l.transition(i, "a", i + 1);
+        l.transition(99999, "a", 0);
+        AutomatonStats s = l.build().stats();
+        assertEquals(1, s.sccCount());
+        assertEquals(100000, s.transitionCount());
+    }
+
+    public void testHeapEstimates() {
+        AutomatonStats s = a.stats();
+        assertTrue(s.transitionsMapBytes() > 0);
+        assertEquals(0, s.reverseMapBytes());
+        assertEquals(7 * 32, s.transitionObjectsBytes());
+        a.coAccessibleStates();
+        AutomatonStats t = a.stats();
+        assertTrue(t.reverseMapBytes() > 0);
+        assertTrue(t.estimatedHeapSize() > s.estimatedHeapSize());
+        assertTrue(t.toString().startsWith("states=4 transitions=7"));
+    }
+}
@@ -16,12 +16,22 @@
  */
 package rationals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.TestCase;
+import rationals.properties.IsDeterministic;
+import rationals.transformations.Reducer;
+import rationals.transformations.ToDFA;
 
 /**
  * @version $Id: AutomatonTest.java 2 2006-08-24 14:41:48Z oqube $
@@ -176,4 +186,208 @@ public class AutomatonTest extends TestCase {
 		exp = Arrays.asList(new String[] {  "a", "b","c", "b", "c" });
 		assertTrue("Automaton does accept 'abcbc'",!t.accept(exp));
     }
+
+    public void testSharedSymbols() throws NoSuchStateException {
+        Alphabet<String> symbols = automaton.symbols();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> t = new Automaton<>(null, symbols);
+        State s1 = t.addState(true, false);
+        State s2 = t.addState(false, true);
+        t.addTransition(new Transition<>(s1, "c", s2));
+        t.addTransition(new Transition<>(s2, "a", s1));
+        assertEquals(symbols.symbol("a"), automaton.symbols().symbol("a"));
+        assertEquals(4, symbols.size());
+        assertEquals("c", symbols.label(symbols.symbol("c")));
+        assertEquals(Alphabet.EPSILON, symbols.symbol(null));
+        assertTrue(!automaton.alphabet().contains("c"));
+        assertTrue(automaton.delta(ss[0], "c").isEmpty());
+        assertTrue(t.accept(Arrays.asList("c", "a", "c")));
+    }
+
+    public void testConcurrentReverseIndex() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int n = 0; n < 20; n++) {
+                final Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton.clone();
+                final State end = a.terminals().iterator().next();
+                List<Future<Integer>> sizes = new ArrayList<>();
+                for (int t = 0; t < 8; t++)
+                    sizes.add(pool.submit(new Callable<Integer>() {
+                        public Integer call() {
+                            return a.deltaMinusOne(end).size() + 10 * a.coAccessibleStates().size();
+                        }
+                    }));
+                for (Future<Integer> f : sizes)
+                    assertEquals(Integer.valueOf(2 + 10 * 5), f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testConcurrentAcceptWithEpsilons() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int n = 0; n < 20; n++) {
+                final Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+                State p0 = a.addState(true, false);
+                State p1 = a.addState(false, false);
+                State p2 = a.addState(false, true);
+                a.addTransition(new Transition<String>(p0, null, p1));
+                a.addTransition(new Transition<String>(p1, "a", p2));
+                a.addTransition(new Transition<String>(p2, null, p0));
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    final int len = t;
+                    results.add(pool.submit(new Callable<Boolean>() {
+                        public Boolean call() {
+                            return a.accept(Collections.nCopies(len, "a"));
+                        }
+                    }));
+                }
+                for (int t = 0; t < 8; t++)
+                    assertEquals(Boolean.valueOf(t > 0), results.get(t).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testDerivedSymbols() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> c = automaton.clone();
+        assertNotSame(automaton.symbols(), c.symbols());
+        assertTrue(c.accept(Arrays.asList("b", "a", "b", "b")));
+        assertSame(automaton.symbols(), automaton.clone(automaton.symbols()).symbols());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(automaton);
+        assertNotSame(automaton.symbols(), d.symbols());
+        d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>(automaton.symbols()).transform(automaton);
+        assertSame(automaton.symbols(), d.symbols());
+        d = new Reducer<String, Transition<String>, TransitionBuilder<String>>().transform(automaton);
+        assertNotSame(automaton.symbols(), d.symbols());
+    }
+
+    public void testDeltaView() throws NoSuchStateException {
+        Set<Transition<String>> out = automaton.deltaView(ss[2]);
+        assertEquals(automaton.delta(ss[2]), out);
+        automaton.addTransition(new Transition<>(ss[2], "c", ss[4]));
+        assertEquals(3, out.size());
+        assertTrue(out.contains(new Transition<>(ss[2], "c", ss[4])));
+        assertTrue(automaton.deltaMinusOneView(ss[4]).contains(new Transition<>(ss[4], "c", ss[2])));
+        try {
+            out.clear();
+            fail("view should not be modifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertTrue(automaton.deltaView(automaton.addState(false, false)).isEmpty());
+    }
+
+    public void testProjectOn() {
+        Set<String> alph = new HashSet<>();
+        alph.add("a");
+        automaton.projectOn(alph);
+        assertEquals(alph, automaton.alphabet());
+        assertTrue(automaton.delta(ss[0], "b").isEmpty());
+        assertTrue(automaton.deltaMinusOne(ss[1], "b").isEmpty());
+        assertEquals(1, automaton.delta(ss[0], null).size());
+        assertTrue(automaton.accept(Arrays.asList("a", "a")));
+    }
+
+    public void testReverseIndex() throws NoSuchStateException {
+        int in = 0;
+        for (Transition<String> t : automaton.delta())
+            if (t.end().equals(ss[2]))
+                in++;
+        assertEquals(in, automaton.deltaMinusOne(ss[2]).size());
+        Set<Transition<String>> view = automaton.deltaMinusOneView(ss[3]);
+        int before = view.size();
+        automaton.addTransition(new Transition<>(ss[0], "c", ss[3]));
+        assertEquals(before + 1, view.size());
+        assertTrue(automaton.deltaMinusOne(ss[3], "c").contains(new Transition<>(ss[3], "c", ss[0])));
+        assertTrue(automaton.coAccessibleStates().contains(ss[0]));
+    }
+
+    public void testEpsilonClosure() throws NoSuchStateException {
+        Set<State> s = new HashSet<>();
+        s.add(ss[1]);
+        assertTrue(!automaton.hasEpsilonTransitions());
+        assertEquals(s, automaton.epsilonClosure(s));
+        assertTrue(!automaton.accept(Arrays.asList("b", "a")));
+        automaton.addTransition(new Transition<String>(ss[2], null, ss[4]));
+        assertTrue(automaton.hasEpsilonTransitions());
+        assertTrue(automaton.accept(Arrays.asList("b", "a")));
+        automaton.addTransition(new Transition<String>(ss[1], null, ss[2]));
+        Set<State> c = automaton.epsilonClosure(s);
+        assertEquals(3, c.size());
+        assertTrue(c.contains(ss[4]));
+        assertTrue(automaton.accept(Arrays.asList("b")));
+        c.clear();
+        assertEquals(3, automaton.epsilonClosure(s).size());
+    }
+
+    public void testTransitionsView() throws NoSuchStateException {
+        final Set<Transition<String>> visited = new HashSet<>();
+        automaton.forEachTransition(new TransitionVisitor<String>() {
+            public void visit(Transition<String> transition) {
+                visited.add(transition);
+            }
+        });
+        assertEquals(automaton.delta(), visited);
+        Collection<Transition<String>> view = automaton.transitions();
+        assertEquals(visited.size(), view.size());
+        assertTrue(view.containsAll(visited));
+        automaton.addTransition(new Transition<>(ss[4], "a", ss[0]));
+        assertEquals(visited.size() + 1, view.size());
+        assertTrue(view.contains(new Transition<>(ss[4], "a", ss[0])));
+        try {
+            view.clear();
+            fail("view should not be modifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    public void testVersion() throws NoSuchStateException {
+        int v = automaton.version();
+        automaton.addTransition(new Transition<>(ss[3], "c", ss[0]));
+        assertTrue(automaton.version() > v);
+        v = automaton.version();
+        ss[2].setTerminal(true);
+        assertTrue(automaton.version() > v);
+        v = automaton.version();
+        automaton.accessibleStates();
+        automaton.delta(ss[0]);
+        assertEquals(v, automaton.version());
+    }
+
+    public void testCachedProperties() throws NoSuchStateException {
+        IsDeterministic<String, Transition<String>, TransitionBuilder<String>> det = new IsDeterministic<>();
+        Object key = new Object();
+        automaton.setProperty(key, "value");
+        assertEquals("value", automaton.getProperty(key));
+        State s5 = automaton.addState(false, false);
+        assertNull(automaton.getProperty(key));
+        Set<State> acc = automaton.accessibleStates();
+        assertTrue(!acc.contains(s5));
+        acc.clear();
+        assertEquals(5, automaton.accessibleStates().size());
+        assertTrue(det.test(automaton));
+        s5.setInitial(true);
+        assertTrue(automaton.accessibleStates().contains(s5));
+        assertTrue(!det.test(automaton));
+        s5.setInitial(false);
+        assertTrue(det.test(automaton));
+        automaton.addTransition(new Transition<>(ss[4], "a", ss[1]));
+        assertTrue(!det.test(automaton));
+    }
+
+    public void testCachedMinimization() throws NoSuchStateException {
+        Reducer<String, Transition<String>, TransitionBuilder<String>> r = new Reducer<>();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> m1 = r.transform(automaton);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> m2 = r.transform(automaton);
+        assertNotSame(m1, m2);
+        assertEquals(m1.states().size(), m2.states().size());
+        m1.addState(false, false);
+        assertEquals(m2.states().size(), r.transform(automaton).states().size());
+        automaton.addTransition(new Transition<>(ss[1], "c", ss[4]));
+        assertTrue(r.transform(automaton).alphabet().contains("c"));
+    }
 }
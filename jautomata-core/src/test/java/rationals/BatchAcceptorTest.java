@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class BatchAcceptorTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton;
+
+    private List<List<String>> words;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        automaton = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(ab+c)*a(b+cd)*");
+        words = new ArrayList<>();
+        Random r = new Random(3);
+        for (int n = 0; n < 20000; n++) {
+            List<String> w = n % 7 == 0 ? new LinkedList<String>() : new ArrayList<String>();
+            int len = r.nextInt(9);
+            for (int i = 0; i < len; i++)
+                w.add(String.valueOf("abcd".charAt(r.nextInt(4))));
+            words.add(w);
+        }
+    }
+
+    private BitSet expected() {
+        BitSet b = new BitSet();
+        for (int i = 0; i < words.size(); i++)
+            if (automaton.accept(words.get(i)))
+                b.set(i);
+        return b;
+    }
+
+    public void testLists() {
+        BitSet expected = expected();
+        assertTrue(expected.cardinality() > 0);
+        assertEquals(expected, new BatchAcceptor<>(automaton).accept(words));
+    }
+
+    public void testArraysWithPool() {
+        String[][] array = new String[words.size()][];
+        for (int i = 0; i < array.length; i++)
+            array[i] = words.get(i).toArray(new String[0]);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            BatchAcceptor<String> batch = new BatchAcceptor<>(automaton.freeze(), pool);
+            assertEquals(expected(), batch.accept(array));
+            /* the acceptor can be reused */
+            assertEquals(expected(), batch.accept(array));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testNondeterministic() throws Exception {
+        automaton = new Automaton<>();
+        State p = automaton.addState(true, false);
+        State q = automaton.addState(false, true);
+        automaton.addTransition(new Transition<>(p, "a", p));
+        automaton.addTransition(new Transition<>(p, "b", p));
+        automaton.addTransition(new Transition<>(p, "b", q));
+        assertEquals(expected(), new BatchAcceptor<>(automaton).accept(words));
+    }
+
+    public void testNullLabels() {
+        for (int i = 0; i < words.size(); i += 5)
+            words.get(i).add(null);
+        BitSet expected = expected();
+        assertEquals(expected, new BatchAcceptor<>(automaton).accept(words));
+        String[][] array = new String[words.size()][];
+        for (int i = 0; i < array.length; i++)
+            array[i] = words.get(i).toArray(new String[0]);
+        assertEquals(expected, new BatchAcceptor<>(automaton).accept(array));
+        assertTrue(!expected.get(0));
+    }
+
+    public void testEmptyBatch() {
+        assertTrue(new BatchAcceptor<>(automaton).accept(new ArrayList<List<String>>()).isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import rationals.transformations.ToDFA;
+
+/**
+ * @version $Id$
+ */
+public class BitSetStateFactoryTest extends StateFactoryTest {
+
+    public BitSetStateFactoryTest(String arg0) {
+        super(arg0, new BitSetStateFactory());
+    }
+
+    public void testHashCodeAgreesWithHashSet() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>(new BitSetStateFactory());
+        Set<State> s = b.getStateFactory().stateSet();
+        Set<State> h = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            State st = b.addState(false, false);
+            if (i % 7 == 0 || i > 250) {
+                s.add(st);
+                h.add(st);
+            }
+        }
+        assertEquals(h.hashCode(), s.hashCode());
+        assertEquals(h, s);
+        assertEquals(s, h);
+        assertEquals(s, b.getStateFactory().stateSet(h));
+    }
+
+    public void testForeignStatesAreNotContained() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>(new BitSetStateFactory());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> c = new Automaton<>(new BitSetStateFactory());
+        State sb = b.addState(true, false);
+        State sc = c.addState(true, false);
+        assertTrue(b.initials().contains(sb));
+        assertTrue(!b.initials().contains(sc));
+        try {
+            b.states().add(sc);
+            fail("Should have rejected state from another factory");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testIteratorRemove() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>(new BitSetStateFactory());
+        for (int i = 0; i < 200; i++)
+            b.addState(i % 3 == 0, false);
+        Set<State> s = b.getStateFactory().stateSet(b.states());
+        for (Iterator<State> it = s.iterator(); it.hasNext();)
+            if (it.next().isInitial())
+                it.remove();
+        assertEquals(b.states().size() - b.initials().size(), s.size());
+        s.retainAll(b.initials());
+        assertTrue(s.isEmpty());
+    }
+
+    public void testSubsetConstruction() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>(new BitSetStateFactory());
+        State s0 = b.addState(true, false);
+        State s1 = b.addState(false, false);
+        State s2 = b.addState(false, true);
+        b.addTransition(new Transition<>(s0, "a", s0));
+        b.addTransition(new Transition<>(s0, "b", s0));
+        b.addTransition(new Transition<>(s0, "a", s1));
+        b.addTransition(new Transition<>(s1, "b", s2));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(b);
+        assertTrue(d.accept(Arrays.asList("b", "a", "a", "b")));
+        assertTrue(!d.accept(Arrays.asList("a", "b", "a")));
+        assertEquals(3, d.states().size());
+    }
+}
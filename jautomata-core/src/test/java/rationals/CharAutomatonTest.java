@@ -0,0 +1,121 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+import rationals.symbolic.IntervalSet;
+
+/**
+ * @version $Id$
+ */
+public class CharAutomatonTest extends TestCase {
+
+    private static final String[] WORDS = { "", "a", "ab", "abab", "c", "acd", "abcd", "abc", "ba", "ccd", "cc" };
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> a;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        a = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(ab+c)*a(b+cd)*");
+    }
+
+    private static List<String> letters(String s) {
+        List<String> l = new ArrayList<>();
+        for (int i = 0; i < s.length(); i++)
+            l.add(s.substring(i, i + 1));
+        return l;
+    }
+
+    public void testAcceptLikeGenericAutomaton() {
+        CharAutomaton c = CharAutomaton.of(a);
+        for (String w : WORDS) {
+            assertEquals(w, a.accept(letters(w)), c.accept(w));
+            int[] cps = new int[w.length()];
+            for (int i = 0; i < cps.length; i++)
+                cps[i] = w.charAt(i);
+            assertEquals(w, a.accept(letters(w)), c.accept(cps));
+        }
+    }
+
+    public void testRoundTrip() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = CharAutomaton.of(a).toAutomaton();
+        for (String w : WORDS)
+            assertEquals(w, a.accept(letters(w)), b.accept(letters(w)));
+    }
+
+    public void testRangesAreMerged() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>();
+        State p = b.addState(true, false);
+        State q = b.addState(false, true);
+        for (char ch = 'a'; ch <= 'z'; ch++)
+            b.addTransition(new Transition<>(p, String.valueOf(ch), q));
+        b.addTransition(new Transition<>(q, "0", q));
+        CharAutomaton c = CharAutomaton.of(b);
+        assertTrue(c.isDeterministic());
+        assertEquals(2, c.transitionCount());
+        assertTrue(c.accept("k00"));
+        assertTrue(!c.accept("0"));
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> s = c.toSymbolic();
+        assertEquals(2, s.delta().size());
+        assertEquals(1, s.delta(s.initials().iterator().next()).size());
+    }
+
+    public void testEpsilonAndCodePoints() throws NoSuchStateException {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> b = new Automaton<>();
+        State p = b.addState(true, false);
+        State q = b.addState(false, false);
+        State r = b.addState(false, true);
+        b.addTransition(new Transition<IntervalSet>(p, null, q));
+        b.addTransition(new Transition<>(p, IntervalSet.range('a', 'z'), p));
+        b.addTransition(new Transition<>(q, IntervalSet.range(0x1F600, 0x1F64F), r));
+        CharAutomaton c = CharAutomaton.of(b);
+        assertTrue(c.accept("ab\ud83d\ude00"));
+        assertTrue(!c.accept("ab\ud83d"));
+        assertTrue(c.accept(new int[] { 0x1F64F }));
+        assertTrue(!c.accept(new int[] { 'a' }));
+    }
+
+    public void testNondeterministic() throws NoSuchStateException {
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> b = new Automaton<>();
+        State p = b.addState(true, false);
+        State q = b.addState(false, true);
+        b.addTransition(new Transition<>(p, 'a', p));
+        b.addTransition(new Transition<>(p, 'b', p));
+        b.addTransition(new Transition<>(p, 'a', q));
+        CharAutomaton c = CharAutomaton.of(b);
+        assertTrue(!c.isDeterministic());
+        assertTrue(c.accept("bba"));
+        assertTrue(!c.accept("ab"));
+    }
+
+    public void testConvertible() throws NoSuchStateException {
+        assertTrue(CharAutomaton.convertible(a));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>();
+        State p = b.addState(true, true);
+        b.addTransition(new Transition<>(p, "ab", p));
+        assertTrue(!CharAutomaton.convertible(b));
+        try {
+            CharAutomaton.of(b);
+            fail("Should have rejected label ab");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import rationals.converters.ConverterException;
+import rationals.converters.Expression;
+import rationals.properties.AreEquivalent;
+import rationals.properties.TraceEquivalence;
+import rationals.properties.isEmpty;
+import rationals.transformations.Accessible;
+import rationals.transformations.Pruner;
+import rationals.transformations.Reducer;
+import rationals.transformations.ToDFA;
+
+/**
+ * @version $Id$
+ */
+public class FrozenAutomatonTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> a;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        a = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(ab+c)*a(b+cd)*");
+    }
+
+    public void testFreezeKeepsCounts() {
+        FrozenAutomaton<String> f = a.freeze();
+        assertEquals(a.states().size(), f.stateCount());
+        assertEquals(a.delta().size(), f.transitionCount());
+        assertEquals(a.initials().size(), f.initials().cardinality());
+        assertEquals(a.terminals().size(), f.terminals().cardinality());
+    }
+
+    public void testOwnSymbolTable() {
+        FrozenAutomaton<String> f = a.freeze();
+        assertNotSame(a.symbols(), f.symbols());
+        assertTrue(f.symbols().isReadOnly());
+        assertEquals(a.symbols().symbol("b"), f.symbol("b"));
+        a.symbols().intern("z");
+        assertEquals(-1, f.symbols().symbol("z"));
+        assertEquals(f.symbolCount(), f.symbols().size());
+    }
+
+    public void testFindSymbol() {
+        FrozenAutomaton<String> f = a.freeze();
+        int b = f.symbol("b");
+        assertTrue(b > 0);
+        assertEquals("b", f.label(b));
+        assertEquals(-1, f.symbol("z"));
+        for (int q = 0; q < f.stateCount(); q++) {
+            int k = f.find(q, b);
+            if (k < 0)
+                continue;
+            assertEquals(b, f.outLabel(k));
+            assertTrue(k == f.outStart(q) || f.outLabel(k - 1) < b);
+        }
+    }
+
+    public void testToDFA() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(a.freeze());
+        assertTrue(new AreEquivalent<String, Transition<String>, TransitionBuilder<String>>(
+                new TraceEquivalence<String, Transition<String>, TransitionBuilder<String>>()).test(a, d));
+        assertTrue(d.accept(Arrays.asList("a", "b", "c", "d")));
+        assertTrue(!d.accept(Arrays.asList("a", "d")));
+    }
+
+    public void testReducer() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> r = new Reducer<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(a);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> f = new Reducer<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(a.freeze());
+        assertEquals(r.states().size(), f.states().size());
+        assertEquals(r.delta().size(), f.delta().size());
+        assertTrue(f.accept(Arrays.asList("c", "a", "c", "d")));
+    }
+
+    public void testPrunerAndEmptiness() throws NoSuchStateException {
+        State dead = a.addState(false, false);
+        a.addTransition(new Transition<>(a.initials().iterator().next(), "e", dead));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> p = new Pruner<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(a.freeze());
+        assertEquals(a.states().size() - 1, p.states().size());
+        assertTrue(!new isEmpty<String, Transition<String>, TransitionBuilder<String>>().test(a.freeze()));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> e = new Automaton<>();
+        e.addState(true, false);
+        e.addState(false, true);
+        assertTrue(new isEmpty<String, Transition<String>, TransitionBuilder<String>>().test(e.freeze()));
+    }
+
+    public void testAccessible() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Automaton<>();
+        State s0 = b.addState(true, false);
+        State s1 = b.addState(false, false);
+        State s2 = b.addState(false, true);
+        b.addTransition(new Transition<>(s0, "a", s1));
+        b.addTransition(new Transition<>(s1, "b", s2));
+        FrozenAutomaton<String> f = b.freeze();
+        int i = 0;
+        for (State s : b.states()) {
+            if (s == s1)
+                break;
+            i++;
+        }
+        Automaton<String, Transition<String>, TransitionBuilder<String>> c = new Accessible<String, Transition<String>, TransitionBuilder<String>>(
+                i).transform(f);
+        assertEquals(2, c.states().size());
+        assertTrue(c.accept(Arrays.asList("b")));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class LazyDFATest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton;
+
+    /*
+     * words whose k-th letter from the end is an a: the deterministic
+     * automaton has 2^(k+1) states
+     */
+    protected void setUp() throws Exception {
+        super.setUp();
+        int k = 8;
+        automaton = new Automaton<>();
+        State p = automaton.addState(true, false);
+        automaton.addTransition(new Transition<>(p, "a", p));
+        automaton.addTransition(new Transition<>(p, "b", p));
+        State q = automaton.addState(false, false);
+        automaton.addTransition(new Transition<>(p, "a", q));
+        for (int i = 1; i < k; i++) {
+            State r = automaton.addState(false, i == k - 1);
+            automaton.addTransition(new Transition<>(q, "a", r));
+            automaton.addTransition(new Transition<>(q, "b", r));
+            q = r;
+        }
+        /* an epsilon loop back to the start */
+        automaton.addTransition(new Transition<String>(q, null, p));
+    }
+
+    private void assertSameLanguage(LazyDFA<String> lazy, int seed) {
+        Random r = new Random(seed);
+        for (int n = 0; n < 3000; n++) {
+            List<String> w = new ArrayList<>();
+            int len = r.nextInt(40);
+            for (int i = 0; i < len; i++)
+                w.add(r.nextInt(5) == 0 ? "a" : "b");
+            for (int i = 0; i < len / 3; i++)
+                w.set(r.nextInt(len), "a");
+            assertEquals(w.toString(), automaton.accept(w), lazy.accept(w));
+        }
+    }
+
+    public void testLargeCache() {
+        LazyDFA<String> lazy = new LazyDFA<>(automaton);
+        assertSameLanguage(lazy, 1);
+        assertEquals(0, lazy.resetCount());
+        assertEquals(0, lazy.fallbackCount());
+        assertTrue(lazy.cacheSize() > 16);
+    }
+
+    public void testThrashingCache() {
+        LazyDFA<String> lazy = new LazyDFA<>(automaton, 4);
+        assertSameLanguage(lazy, 2);
+        assertTrue(lazy.resetCount() > 0);
+        assertTrue(lazy.fallbackCount() > 0);
+        assertTrue(lazy.cacheSize() <= 4);
+    }
+
+    public void testSession() {
+        LazyDFA<String> lazy = new LazyDFA<>(automaton, 2);
+        Session<String> s = lazy.session();
+        for (int i = 0; i < 20; i++)
+            assertTrue(s.feed(i == 3 ? "a" : "b"));
+        assertTrue(!s.isAccepting());
+        Session<String> copy = s.snapshot();
+        for (int i = 0; i < 8; i++)
+            s.feed(i == 0 ? "a" : "b");
+        assertTrue(s.isAccepting());
+        assertTrue(!copy.isAccepting());
+        assertTrue(!s.feed("z"));
+        assertTrue(s.isDead());
+        s.reset();
+        assertTrue(!s.isDead());
+        assertTrue(!s.isAccepting());
+    }
+
+    public void testNullLabel() {
+        LazyDFA<String> lazy = new LazyDFA<>(automaton);
+        List<String> w = new ArrayList<>(Arrays.asList("a", "b", "b", "b", "b", "b", "b", "b"));
+        assertTrue(lazy.accept(w));
+        w.add(null);
+        assertEquals(automaton.accept(w), lazy.accept(w));
+        assertTrue(!lazy.accept(w));
+        assertTrue(!lazy.accept(Arrays.asList("a", null)));
+    }
+
+    public void testEmpty() {
+        LazyDFA<String> lazy = new LazyDFA<>(new Automaton<String, Transition<String>, TransitionBuilder<String>>());
+        assertTrue(lazy.session().isDead());
+        assertTrue(!lazy.accept(new ArrayList<String>()));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+import rationals.properties.AreEquivalent;
+import rationals.properties.TraceEquivalence;
+import rationals.properties.isEmpty;
+import rationals.transformations.Pruner;
+import rationals.transformations.ToDFA;
+
+/**
+ * @version $Id$
+ */
+public class OffHeapAutomatonTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> a;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        a = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(ab+c)*a(b+cd)*");
+    }
+
+    public void testSameTables() {
+        FrozenAutomaton<String> f = a.freeze();
+        OffHeapAutomaton<String> o = OffHeapAutomaton.of(f);
+        assertEquals(f.stateCount(), o.stateCount());
+        assertEquals(f.transitionCount(), o.transitionCount());
+        assertEquals(f.initials(), o.initials());
+        assertEquals(f.terminals(), o.terminals());
+        for (int q = 0; q < f.stateCount(); q++) {
+            assertEquals(f.outEnd(q) - f.outStart(q), o.outEnd(q) - o.outStart(q));
+            assertEquals(f.inEnd(q) - f.inStart(q), o.inEnd(q) - o.inStart(q));
+            for (int k = o.outStart(q); k < o.outEnd(q); k++)
+                assertTrue(o.find(q, o.outLabel(k)) >= 0);
+        }
+    }
+
+    public void testAlgorithms() {
+        OffHeapAutomaton<String> o = OffHeapAutomaton.of(a.freeze());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(o);
+        assertTrue(new AreEquivalent<String, Transition<String>, TransitionBuilder<String>>(
+                new TraceEquivalence<String, Transition<String>, TransitionBuilder<String>>()).test(a, d));
+        assertTrue(d.accept(Arrays.asList("c", "a", "c", "d")));
+        assertTrue(!new isEmpty<String, Transition<String>, TransitionBuilder<String>>().test(o));
+        assertEquals(a.states().size(),
+                new Pruner<String, Transition<String>, TransitionBuilder<String>>().transform(o).states().size());
+    }
+
+    public void testToAutomatonHasOwnSymbols() {
+        FrozenAutomaton<String> f = a.freeze();
+        OffHeapAutomaton<String> o = OffHeapAutomaton.of(f);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = o.toAutomaton();
+        assertNotSame(o.symbols(), b.symbols());
+        assertNotSame(f.symbols(), f.<Transition<String>, TransitionBuilder<String>> toAutomaton().symbols());
+        b.symbols().intern("z");
+        assertEquals(-1, o.symbols().symbol("z"));
+        assertTrue(b.accept(Arrays.asList("c", "a", "c", "d")));
+    }
+
+    public void testLoaderSortsAndRemovesDuplicates() {
+        /* a chain with more transitions than fit in one buffer page */
+        int n = 1 << 19;
+        OffHeapLoader<String> l = new OffHeapLoader<>(null, n, 0);
+        l.initials(0).terminals(n - 1);
+        for (int q = n - 2; q >= 0; q--) {
+            l.transition(q, "b", q + 1);
+            l.transition(q, "a", q + 1);
+            l.transition(q, "a", q + 1);
+        }
+        assertEquals(3 * (n - 1), l.size());
+        OffHeapAutomaton<String> o = l.build();
+        assertEquals(2 * (n - 1), o.transitionCount());
+        /* b was interned first */
+        int a = o.symbol("a");
+        int b = o.symbol("b");
+        assertTrue(b < a);
+        int k = o.outStart(n / 2);
+        assertEquals(b, o.outLabel(k));
+        assertEquals(a, o.outLabel(k + 1));
+        assertEquals(n / 2 + 1, o.target(k));
+        assertEquals(k + 1, o.find(n / 2, a));
+        assertEquals(n / 2 - 1, o.source(o.inStart(n / 2)));
+        BitSet start = new BitSet();
+        start.set(0);
+        assertEquals(n, o.access(start, true).cardinality());
+        assertEquals(n, o.access(o.terminals(), false).cardinality());
+    }
+}
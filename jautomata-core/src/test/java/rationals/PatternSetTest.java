@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class PatternSetTest extends TestCase {
+
+    private static final String[] PATTERNS = { "(ab+c)*a", "a*b", "(a+b)*c(a+b)*", "abc", "(a+b+c)*aa", "1" };
+
+    private static Automaton<String, Transition<String>, TransitionBuilder<String>> parse(String e) throws Exception {
+        return new Expression<Transition<String>, TransitionBuilder<String>>().fromString(e);
+    }
+
+    private static List<String> word(String s) {
+        List<String> w = new ArrayList<>();
+        for (int i = 0; i < s.length(); i++)
+            w.add(String.valueOf(s.charAt(i)));
+        return w;
+    }
+
+    public void testMatchesAgreeWithEachPattern() throws Exception {
+        PatternSet<String> set = PatternSet.compile(PATTERNS);
+        assertEquals(PATTERNS.length, set.patternCount());
+        List<Automaton<String, Transition<String>, TransitionBuilder<String>>> as = new ArrayList<>();
+        for (String p : PATTERNS)
+            as.add(parse(p));
+        Random r = new Random(7);
+        for (int n = 0; n < 2000; n++) {
+            List<String> w = new ArrayList<>();
+            int len = r.nextInt(8);
+            for (int i = 0; i < len; i++)
+                w.add(String.valueOf("abcd".charAt(r.nextInt(4))));
+            BitSet expected = new BitSet();
+            for (int p = 0; p < as.size(); p++)
+                if (as.get(p).accept(w))
+                    expected.set(p);
+            assertEquals(w.toString(), expected, set.matches(w));
+        }
+    }
+
+    public void testSinglePassOverWord() throws Exception {
+        PatternSet<String> set = PatternSet.compile(PATTERNS);
+        int q = set.initial();
+        assertEquals(bits(5), set.ids(q));
+        for (String l : word("aba"))
+            q = set.step(q, l);
+        assertEquals(bits(0), set.ids(q));
+        q = set.step(q, "a");
+        assertEquals(bits(4), set.ids(q));
+        q = set.step(q, "c");
+        assertEquals(bits(2), set.ids(q));
+    }
+
+    public void testDuplicatePatternsShareStates() throws Exception {
+        PatternSet<String> one = PatternSet.compile("(a+b)*abb");
+        PatternSet<String> two = PatternSet.compile("(a+b)*abb", "(a+b)*abb");
+        assertEquals(4, one.stateCount());
+        assertEquals(one.stateCount(), two.stateCount());
+        assertEquals(bits(0, 1), two.matches(word("babb")));
+        assertEquals(new BitSet(), two.matches(word("bab")));
+    }
+
+    public void testStatesWithDifferentIdsAreNotMerged() throws Exception {
+        /* both accept the same language, but must be told apart */
+        PatternSet<String> set = PatternSet.compile("ab", "ab+b", "b");
+        assertEquals(bits(0, 1), set.matches(word("ab")));
+        assertEquals(bits(1, 2), set.matches(word("b")));
+        assertEquals(new BitSet(), set.matches(word("a")));
+    }
+
+    public void testDeadState() throws Exception {
+        PatternSet<String> set = PatternSet.compile("abc", "ab");
+        int q = set.step(set.initial(), "b");
+        assertEquals(-1, q);
+        assertEquals(-1, set.step(q, "a"));
+        assertEquals(new BitSet(), set.ids(q));
+        assertEquals(-1, set.step(set.initial(), "z"));
+        assertEquals(set.initial(), set.step(set.initial(), null));
+        assertEquals(new BitSet(), set.matches(Arrays.asList("a", "b", "c", "c")));
+    }
+
+    public void testEmpty() throws Exception {
+        PatternSet<String> set = PatternSet.compile();
+        assertEquals(0, set.patternCount());
+        assertEquals(-1, set.initial());
+        assertEquals(0, set.stateCount());
+        assertEquals(new BitSet(), set.matches(word("ab")));
+        PatternSet<String> none = PatternSet.compile("0");
+        assertEquals(-1, none.initial());
+        assertEquals(new BitSet(), none.matches(new ArrayList<String>()));
+    }
+
+    public void testIdsAreCopies() throws Exception {
+        PatternSet<String> set = PatternSet.compile("a", "a*");
+        int q = set.step(set.initial(), "a");
+        set.ids(q).clear();
+        assertEquals(bits(0, 1), set.ids(q));
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet b = new BitSet();
+        for (int i : ids)
+            b.set(i);
+        return b;
+    }
+}
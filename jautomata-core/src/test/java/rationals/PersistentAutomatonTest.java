@@ -0,0 +1,122 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+import rationals.properties.AreEquivalent;
+import rationals.properties.TraceEquivalence;
+
+/**
+ * @version $Id$
+ */
+public class PersistentAutomatonTest extends TestCase {
+
+    public void testVersionsAreIndependent() {
+        PersistentAutomaton<String> p = new PersistentAutomaton<String>().addState(true, false).addState(false, true);
+        PersistentAutomaton<String> q = p.addTransition(0, "a", 1);
+        PersistentAutomaton<String> r = q.addTransition(1, "b", 1).setTerminal(0, true);
+        assertEquals(0, p.transitionCount());
+        assertEquals(1, q.transitionCount());
+        assertEquals(2, r.transitionCount());
+        assertTrue(!q.isTerminal(0));
+        assertTrue(r.isTerminal(0));
+        assertTrue(!q.accept(Arrays.asList("a", "b")));
+        assertTrue(r.accept(Arrays.asList("a", "b")));
+        assertSame(q, q.addTransition(0, "a", 1));
+        assertSame(r, r.clone());
+        PersistentAutomaton<String> s = r.removeTransition(1, "b", 1);
+        assertTrue(!s.hasTransition(1, "b", 1));
+        assertTrue(r.hasTransition(1, "b", 1));
+    }
+
+    public void testSymbolTablesAreNotShared() throws Exception {
+        PersistentAutomaton<String> p = new PersistentAutomaton<String>().addState(true, false).addState(false, true)
+                .addTransition(0, "a", 1);
+        PersistentAutomaton<String> q = p.addTransition(0, "b", 1);
+        PersistentAutomaton<String> r = p.addTransition(1, "c", 0);
+        assertTrue(p.symbols().isReadOnly());
+        assertEquals(-1, p.symbols().symbol("b"));
+        assertEquals(-1, q.symbols().symbol("c"));
+        assertEquals(-1, r.symbols().symbol("b"));
+        assertEquals(p.symbols().symbol("a"), r.symbols().symbol("a"));
+        assertSame(q.symbols(), q.addTransition(1, "a", 1).symbols());
+        try {
+            p.symbols().intern("d");
+            fail("Should not modify the table of a persistent automaton");
+        } catch (UnsupportedOperationException e) {
+        }
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = q.toAutomaton();
+        assertTrue(!a.symbols().isReadOnly());
+        a.addTransition(new Transition<>(a.initials().iterator().next(), "d", a.terminals().iterator().next()));
+        assertEquals(-1, q.symbols().symbol("d"));
+    }
+
+    public void testManyLabels() {
+        PersistentAutomaton<String> p = new PersistentAutomaton<>();
+        for (int i = 0; i < 20000; i++)
+            p = p.addState(i == 0, true);
+        List<PersistentAutomaton<String>> versions = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            versions.add(p);
+            p = p.addTransition(i, "l" + i, i);
+        }
+        assertEquals(20001, p.symbols().size());
+        PersistentAutomaton<String> old = versions.get(100);
+        assertEquals(101, old.symbols().size());
+        assertEquals(-1, old.symbols().symbol("l100"));
+        assertEquals(p.symbols().symbol("l99"), old.symbols().symbol("l99"));
+        /* branching from an old version does not disturb later ones */
+        PersistentAutomaton<String> b = old.addTransition(0, "x", 0);
+        assertEquals(101, b.symbols().symbol("x"));
+        assertEquals("l100", p.symbols().label(101));
+        assertEquals(-1, p.symbols().symbol("x"));
+        assertEquals(-1, old.symbols().symbol("x"));
+    }
+
+    public void testManyStates() {
+        PersistentAutomaton<String> p = new PersistentAutomaton<>();
+        for (int i = 0; i < 5000; i++)
+            p = p.addState(i == 0, i == 4999);
+        PersistentAutomaton<String> base = p;
+        for (int i = 0; i < 4999; i++)
+            p = p.addTransition(i, i % 2 == 0 ? "a" : "b", i + 1);
+        assertEquals(5000, p.stateCount());
+        assertEquals(4999, p.transitionCount());
+        assertEquals(0, base.transitionCount());
+        assertEquals(1, p.outDegree(4998));
+        assertEquals(4999, p.target(4998, 0));
+        assertTrue(p.isTerminal(4999));
+    }
+
+    public void testConversions() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("(ab+c)*a(b+cd)*");
+        PersistentAutomaton<String> p = PersistentAutomaton.of(a);
+        assertEquals(a.states().size(), p.stateCount());
+        assertEquals(a.delta().size(), p.transitionCount());
+        assertTrue(p.accept(Arrays.asList("c", "a", "b", "c", "d")));
+        assertTrue(!p.accept(Arrays.asList("a", "d")));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = p.toAutomaton();
+        assertTrue(new AreEquivalent<String, Transition<String>, TransitionBuilder<String>>(
+                new TraceEquivalence<String, Transition<String>, TransitionBuilder<String>>()).test(a, b));
+    }
+}
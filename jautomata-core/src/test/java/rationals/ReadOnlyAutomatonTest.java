@@ -0,0 +1,159 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class ReadOnlyAutomatonTest extends TestCase {
+
+    private static final String[] LETTERS = { "a", "b", "c", "d" };
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> a;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        a = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(a+1)(b*c+d)*(a+1)");
+        /* make sure there are epsilon transitions to close over */
+        State s = a.addState(false, false);
+        a.addTransition(new Transition<String>(a.initials().iterator().next(), null, s));
+        a.addTransition(new Transition<>(s, "d", s));
+    }
+
+    public void testSameLanguage() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> r = a.readOnly();
+        assertTrue(r.isReadOnly());
+        assertSame(r, r.readOnly());
+        assertEquals(a.states().size(), r.states().size());
+        assertEquals(a.delta().size(), r.delta().size());
+        assertEquals(a.alphabet(), r.alphabet());
+        for (List<String> w : words(new Random(1), 200))
+            assertEquals(w.toString(), a.accept(w), r.accept(w));
+    }
+
+    public void testRejectsMutators() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> r = a.readOnly();
+        State s = r.initials().iterator().next();
+        try {
+            r.addState(false, false);
+            fail("Should have rejected addState");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            r.addTransition(new Transition<>(s, "a", s));
+            fail("Should have rejected addTransition");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            s.setInitial(false);
+            fail("Should have rejected setInitial");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertTrue(s.isInitial());
+        try {
+            r.terminals().clear();
+            fail("Should have rejected changes to terminals");
+        } catch (UnsupportedOperationException e) {
+        }
+        a.addState(true, true);
+        assertEquals(a.states().size() - 1, r.states().size());
+    }
+
+    public void testOwnSymbolTable() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> r = a.readOnly();
+        assertNotSame(a.symbols(), r.symbols());
+        assertTrue(r.symbols().isReadOnly());
+        assertEquals(a.symbols().symbol("c"), r.symbols().symbol("c"));
+        int version = r.version();
+        State s = a.initials().iterator().next();
+        a.addTransition(new Transition<>(s, "e", s));
+        assertEquals(-1, r.symbols().symbol("e"));
+        assertTrue(r.delta(r.initials().iterator().next(), "e").isEmpty());
+        try {
+            r.symbols().intern("e");
+            fail("Should have rejected new symbol");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertEquals(version, r.version());
+    }
+
+    public void testConcurrentQueries() throws Exception {
+        final Automaton<String, Transition<String>, TransitionBuilder<String>> r = a.readOnly();
+        final List<List<String>> words = words(new Random(2), 500);
+        final boolean[] expected = new boolean[words.size()];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = a.accept(words.get(i));
+        final int coacc = a.coAccessibleStates().size();
+        int threads = 8;
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            results.add(exec.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    start.await();
+                    int errors = 0;
+                    for (int round = 0; round < 20; round++)
+                        for (int i = 0; i < words.size(); i++) {
+                            int k = (i + offset * 61) % words.size();
+                            if (r.accept(words.get(k)) != expected[k])
+                                errors++;
+                            if (r.steps(words.get(k)) == null)
+                                errors++;
+                            if (i % 50 == 0 && r.coAccessibleStates().size() != coacc)
+                                errors++;
+                            if (i % 50 == 0 && r.epsilonClosure(r.initials()).size() < r.initials().size())
+                                errors++;
+                        }
+                    return errors;
+                }
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<Integer> f : results)
+                assertEquals(Integer.valueOf(0), f.get());
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    private static List<List<String>> words(Random rand, int n) {
+        List<List<String>> ws = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String[] w = new String[rand.nextInt(8)];
+            for (int j = 0; j < w.length; j++)
+                w[j] = LETTERS[rand.nextInt(LETTERS.length)];
+            ws.add(Arrays.asList(w));
+        }
+        return ws;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+import rationals.transformations.ToDFA;
+
+/**
+ * @version $Id$
+ */
+public class SessionTest extends TestCase {
+
+    private static void assertSameLanguage(Automaton<String, Transition<String>, TransitionBuilder<String>> a,
+            String letters, int seed) {
+        Random r = new Random(seed);
+        Session<String> s = a.session();
+        for (int n = 0; n < 1000; n++) {
+            List<String> w = new ArrayList<>();
+            int len = r.nextInt(10);
+            s.reset();
+            for (int i = 0; i < len; i++) {
+                String l = String.valueOf(letters.charAt(r.nextInt(letters.length())));
+                w.add(l);
+                boolean alive = s.feed(l);
+                assertEquals(w.toString(), !s.isDead(), alive);
+                assertEquals(w.toString(), a.accept(w), s.isAccepting());
+            }
+            assertEquals(w.toString(), a.accept(w), s.isAccepting());
+        }
+    }
+
+    public void testDeterministic() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("(ab+c)*a(b+cd)*");
+        a = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        assertTrue(a.freeze().isDeterministic());
+        assertSameLanguage(a, "abcdx", 1);
+    }
+
+    public void testNondeterministicWithEpsilons() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, false);
+        State r = a.addState(false, false);
+        State t = a.addState(false, true);
+        a.addTransition(new Transition<>(p, "a", p));
+        a.addTransition(new Transition<>(p, "b", p));
+        a.addTransition(new Transition<>(p, "a", q));
+        a.addTransition(new Transition<String>(q, null, r));
+        a.addTransition(new Transition<>(r, "b", t));
+        a.addTransition(new Transition<String>(t, null, p));
+        assertTrue(!a.freeze().isDeterministic());
+        assertSameLanguage(a, "abc", 2);
+    }
+
+    public void testDeadAndReset() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("ab");
+        Session<String> s = a.session();
+        assertTrue(!s.isAccepting());
+        assertTrue(s.feed("a"));
+        assertTrue(s.feed(null));
+        assertTrue(s.feed("b"));
+        assertTrue(s.isAccepting());
+        assertTrue(!s.feed("b"));
+        assertTrue(s.isDead());
+        assertTrue(!s.feed("a"));
+        s.reset();
+        assertTrue(!s.isDead());
+        assertTrue(!s.feed("z"));
+        assertTrue(s.isDead());
+    }
+
+    public void testSnapshot() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("a(b+c)*d");
+        for (boolean det : new boolean[] { true, false }) {
+            /* a second initial state makes the automaton nondeterministic */
+            if (!det)
+                a.addState(true, false);
+            assertEquals(det, a.freeze().isDeterministic());
+            Session<String> s = a.session();
+            s.feed("a");
+            s.feed("b");
+            Session<String> copy = s.snapshot();
+            s.feed("d");
+            assertTrue(s.isAccepting());
+            assertTrue(!copy.isAccepting());
+            copy.feed("c");
+            copy.feed("c");
+            assertTrue(!copy.isAccepting());
+            assertTrue(s.isAccepting());
+            copy.feed("d");
+            assertTrue(copy.isAccepting());
+        }
+    }
+
+    public void testModificationNotReflected() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, "a", q));
+        Session<String> before = a.session();
+        a.addTransition(new Transition<>(q, "b", p));
+        Session<String> after = a.session();
+        for (String l : Arrays.asList("a", "b", "a")) {
+            before.feed(l);
+            after.feed(l);
+        }
+        assertTrue(before.isDead());
+        assertTrue(after.isAccepting());
+    }
+
+    public void testEmpty() {
+        Session<String> s = new Automaton<String, Transition<String>, TransitionBuilder<String>>().session();
+        assertTrue(s.isDead());
+        assertTrue(!s.isAccepting());
+        assertTrue(!s.feed("a"));
+    }
+}
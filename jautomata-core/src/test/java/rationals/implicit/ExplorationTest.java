@@ -0,0 +1,171 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.implicit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class ExplorationTest extends TestCase {
+
+    /*
+     * a counter modulo n, incremented by "inc" and reset by "reset", with
+     * given terminal value
+     */
+    private static class Counter implements ImplicitAutomaton<Integer, String> {
+
+        private final int n;
+
+        private final int terminal;
+
+        Counter(int n, int terminal) {
+            this.n = n;
+            this.terminal = terminal;
+        }
+
+        public Collection<Integer> initials() {
+            return Collections.singleton(0);
+        }
+
+        public boolean isTerminal(Integer state) {
+            return state == terminal;
+        }
+
+        public Collection<String> labels(Integer state) {
+            return Arrays.asList("inc", "reset");
+        }
+
+        public Collection<Integer> successors(Integer state, String label) {
+            if ("inc".equals(label))
+                return Collections.singleton((state + 1) % n);
+            if ("reset".equals(label))
+                return Collections.singleton(0);
+            return Collections.emptySet();
+        }
+    }
+
+    public void testReachable() {
+        assertEquals(100000, Exploration.reachable(new Counter(100000, -1)).size());
+    }
+
+    public void testEmptiness() {
+        assertTrue(Exploration.isEmpty(new Counter(10, -1)));
+        assertTrue(!Exploration.isEmpty(new Counter(10, 9)));
+        List<String> t = Exploration.acceptedTrace(new Counter(10, 3));
+        assertEquals(Arrays.asList("inc", "inc", "inc"), t);
+    }
+
+    public void testEpsilonsAreFree() {
+        /* "a a" takes two steps, "b" takes three steps, two of them epsilon */
+        ImplicitAutomaton<Integer, String> m = new ImplicitAutomaton<Integer, String>() {
+            public Collection<Integer> initials() {
+                return Collections.singleton(0);
+            }
+
+            public boolean isTerminal(Integer state) {
+                return state == 3;
+            }
+
+            public Collection<String> labels(Integer state) {
+                switch (state) {
+                case 0:
+                    return Arrays.asList("a", null);
+                case 1:
+                    return Collections.singletonList("a");
+                case 4:
+                    return Collections.singletonList((String) null);
+                case 5:
+                    return Collections.singletonList("b");
+                default:
+                    return Collections.emptyList();
+                }
+            }
+
+            public Collection<Integer> successors(Integer state, String label) {
+                int[] next = label == null ? new int[] { 4, -1, -1, -1, 5 } : "a".equals(label) ? new int[] { 1, 3 }
+                        : new int[] { -1, -1, -1, -1, -1, 3 };
+                return state < next.length && next[state] >= 0 ? Collections.singleton(next[state])
+                        : Collections.<Integer> emptySet();
+            }
+        };
+        assertEquals(Arrays.asList("b"), Exploration.acceptedTrace(m));
+    }
+
+    public void testStateMachineView() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("ab*c");
+        StateMachineAutomaton<String> m = new StateMachineAutomaton<>(a);
+        assertEquals(Arrays.asList("a", "c"), Exploration.acceptedTrace(m));
+        assertEquals(a.accessibleStates(), Exploration.reachable(m));
+    }
+
+    private static Automaton<String, Transition<String>, TransitionBuilder<String>> automaton(String[][] trs, int... terminals)
+            throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] st = new State[3];
+        for (int i = 0; i < st.length; i++)
+            st[i] = a.addState(i == 0, false);
+        for (int t : terminals)
+            st[t].setTerminal(true);
+        for (String[] tr : trs)
+            a.addTransition(new Transition<>(st[Integer.parseInt(tr[0])], tr[1], st[Integer.parseInt(tr[2])]));
+        return a;
+    }
+
+    public void testCounterExample() throws Exception {
+        /* never two resets in a row */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> never = automaton(new String[][] {
+                { "0", "inc", "0" }, { "0", "reset", "1" }, { "1", "inc", "0" } }, 0, 1);
+        assertEquals(Arrays.asList("reset", "reset"), Exploration.counterExample(new Counter(5, 0), never));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> all = automaton(new String[][] {
+                { "0", "inc", "0" }, { "0", "reset", "0" } }, 0);
+        assertNull(Exploration.counterExample(new Counter(5, 0), all));
+    }
+
+    public void testCounterExampleIgnoresOtherLabels() throws Exception {
+        /* property only talks about inc */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> twice = automaton(new String[][] {
+                { "0", "inc", "1" }, { "1", "inc", "2" } }, 2);
+        /* reset is not constrained, so three incs are seen */
+        assertEquals(Arrays.asList("inc", "reset", "inc", "inc"),
+                Exploration.counterExample(new Counter(3, 2), twice));
+        assertEquals(Arrays.asList("inc"), Exploration.counterExample(new Counter(10, 1), twice));
+    }
+
+    public void testTraceDifference() {
+        assertNull(Exploration.traceDifference(new Counter(4, 0), new Counter(2, 1)));
+        ImplicitAutomaton<Integer, String> bounded = new Counter(3, 0) {
+            @Override
+            public Collection<String> labels(Integer state) {
+                return state == 2 ? Collections.singletonList("reset") : super.labels(state);
+            }
+        };
+        assertEquals(Arrays.asList("inc", "inc", "inc"), Exploration.traceDifference(new Counter(3, 0), bounded));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.CharAutomaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+import rationals.symbolic.IntervalSet;
+import rationals.transformations.ToDFA;
+
+/**
+ * @version $Id$
+ */
+public class DFACompilerTest extends TestCase {
+
+    private static void assertSameLanguage(CharAutomaton c, Matcher m, String alphabet, int seed) {
+        Random r = new Random(seed);
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = r.nextInt(8);
+            for (int i = 0; i < len; i++)
+                sb.append(alphabet.charAt(r.nextInt(alphabet.length())));
+            String w = sb.toString();
+            assertEquals(w, c.matches(w), m.matches(w));
+            int[] cps = new int[w.codePointCount(0, w.length())];
+            for (int i = 0, j = 0; i < w.length(); i += Character.charCount(cps[j++]))
+                cps[j] = w.codePointAt(i);
+            assertEquals(w, c.matches(cps), m.matches(cps));
+            assertEquals(w, c.longestPrefix(w), m.longestPrefix(w));
+            assertEquals(w, c.longestPrefix(cps), m.longestPrefix(cps));
+        }
+    }
+
+    public void testCompiledMatchesInterpreted() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("(ab+c)*a(b+cd)*");
+        a = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        CharAutomaton c = CharAutomaton.of(a);
+        Matcher m = DFACompiler.compile(a);
+        assertNotSame(c.getClass(), m.getClass());
+        assertTrue(m.matches("abcab"));
+        assertTrue(m.matches("abcd"));
+        assertTrue(!m.matches("acb"));
+        assertTrue(!m.matches(""));
+        assertSameLanguage(c, m, "abcdx", 17);
+    }
+
+    public void testSwitchesAndRanges() throws NoSuchStateException {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        State r = a.addState(false, true);
+        /* dense keys: tableswitch */
+        a.addTransition(new Transition<>(p, IntervalSet.range('a', 'e'), q));
+        a.addTransition(new Transition<>(p, IntervalSet.range('g', 'h'), r));
+        /* sparse keys: lookupswitch */
+        a.addTransition(new Transition<>(q, IntervalSet.of("a~"), p));
+        a.addTransition(new Transition<>(q, IntervalSet.point(0x1F600), r));
+        /* large ranges: comparisons */
+        a.addTransition(new Transition<>(r, IntervalSet.range(0x4e00, 0x9fff), r));
+        a.addTransition(new Transition<>(r, IntervalSet.point('z'), p));
+        a.addTransition(new Transition<>(r, IntervalSet.range(0x10000, 0x10FFFF), q));
+        CharAutomaton c = CharAutomaton.of(a);
+        Matcher m = DFACompiler.compile(c);
+        assertTrue(m.matches("a\ud83d\ude00\u4e2d\u9fff"));
+        assertTrue(!m.matches("a\ud83d\ude00\u4e2d\u9fffz"));
+        assertTrue(m.matches(new int[] { 'g', 0x10FFFF }));
+        assertSameLanguage(c, m, "abcefghz~\u4e00\u4dff\ud83d\ude00", 42);
+    }
+
+    public void testRejectsNondeterministic() throws NoSuchStateException {
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, 'a', p));
+        a.addTransition(new Transition<>(p, 'a', q));
+        try {
+            DFACompiler.compile(a);
+            fail("nondeterministic automaton should be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testEmptyLanguage() {
+        Matcher m = DFACompiler.compile(new Automaton<String, Transition<String>, TransitionBuilder<String>>());
+        assertTrue(!m.matches(""));
+        assertTrue(!m.matches(new int[] { 1 }));
+        assertEquals(-1, m.longestPrefix("a"));
+    }
+
+    public void testLongestPrefix() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("a(ba)*");
+        Matcher m = DFACompiler.compile(new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a));
+        assertEquals(3, m.longestPrefix("ababb"));
+        assertEquals(1, m.longestPrefix("abx"));
+        assertEquals(-1, m.longestPrefix("b"));
+        assertEquals(-1, m.longestPrefix(""));
+        assertEquals(5, m.longestPrefix(new int[] { 'a', 'b', 'a', 'b', 'a' }));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class ParallelScannerTest extends TestCase {
+
+    private File file;
+
+    private ForkJoinPool pool;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("scan", ".log");
+        pool = new ForkJoinPool(4);
+    }
+
+    protected void tearDown() throws Exception {
+        pool.shutdown();
+        file.delete();
+        super.tearDown();
+    }
+
+    private static Automaton<String, Transition<String>, TransitionBuilder<String>> parse(String re)
+            throws Exception {
+        return new Expression<Transition<String>, TransitionBuilder<String>>().fromString(re);
+    }
+
+    private String write(String letters, int length, int runs, int seed) throws IOException {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            char c = letters.charAt(r.nextInt(letters.length()));
+            int n = 1 + r.nextInt(runs);
+            for (int i = 0; i < n; i++)
+                sb.append(c);
+        }
+        String s = sb.toString();
+        Files.write(file.toPath(), s.getBytes(StandardCharsets.ISO_8859_1));
+        return s;
+    }
+
+    private void assertScans(String re, String text) throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = parse(re);
+        TreeSet<Long> ends = new TreeSet<>();
+        for (Searcher.Match m : new Searcher<>(a).findAll(text, Searcher.Mode.ALL))
+            ends.add(m.end());
+        long[] expected = new long[ends.size()];
+        int i = 0;
+        for (long e : ends)
+            expected[i++] = e;
+        long[] sequential = new ParallelScanner(a, pool, Integer.MAX_VALUE).scan(file.toPath());
+        assertEquals(expected.length, sequential.length);
+        for (i = 0; i < expected.length; i++)
+            assertEquals(expected[i], sequential[i]);
+        for (int chunk : new int[] { 1, 7, 1000, 4096 }) {
+            long[] found = new ParallelScanner(a, pool, chunk).scan(file.toPath());
+            assertEquals(re + " chunk " + chunk, expected.length, found.length);
+            for (i = 0; i < expected.length; i++)
+                assertEquals(expected[i], found[i]);
+        }
+    }
+
+    public void testSynchronizingPatterns() throws Exception {
+        String text = write("abcdx\n", 20000, 3, 1);
+        assertScans("ab*c", text);
+        assertScans("(ab+c)*a(b+cd)*", text);
+        assertScans("x\nx", text);
+    }
+
+    public void testNonSynchronizingPattern() throws Exception {
+        /* the parity of a long run of a cannot be guessed */
+        String text = write("ab", 20000, 500, 2);
+        assertScans("b(aa)*b", text);
+    }
+
+    public void testEmptyFileAndEmptyWord() throws Exception {
+        write("", 0, 1, 3);
+        assertEquals(0, new ParallelScanner(parse("ab"), pool, 0).scan(file.toPath()).length);
+        long[] found = new ParallelScanner(parse("a*"), pool, 0).scan(file.toPath());
+        assertEquals(1, found.length);
+        assertEquals(0, found[0]);
+    }
+
+    public void testDefaultChunks() throws Exception {
+        String text = write("abc", 300000, 2, 4);
+        long[] found = new ParallelScanner(parse("abc")).scan(file.toPath());
+        int count = 0;
+        for (int i = text.indexOf("abc"); i >= 0; i = text.indexOf("abc", i + 1))
+            assertEquals(i + 3, found[count++]);
+        assertEquals(count, found.length);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class SearcherTest extends TestCase {
+
+    private static Automaton<String, Transition<String>, TransitionBuilder<String>> parse(String re)
+            throws Exception {
+        return new Expression<Transition<String>, TransitionBuilder<String>>().fromString(re);
+    }
+
+    private static boolean in(Automaton<String, Transition<String>, TransitionBuilder<String>> a, String s,
+            int from, int to) {
+        List<String> w = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            w.add(String.valueOf(s.charAt(i)));
+        return a.accept(w);
+    }
+
+    private static List<Searcher.Match> all(Automaton<String, Transition<String>, TransitionBuilder<String>> a,
+            String s) {
+        List<Searcher.Match> l = new ArrayList<>();
+        for (int e = 0; e <= s.length(); e++)
+            for (int b = 0; b <= e; b++)
+                if (in(a, s, b, e))
+                    l.add(new Searcher.Match(b, e));
+        return l;
+    }
+
+    private static List<Searcher.Match> leftmostLongest(
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a, String s) {
+        List<Searcher.Match> l = new ArrayList<>();
+        int floor = 0, noEmpty = -1;
+        for (;;) {
+            int start = -1, end = -1;
+            for (int b = floor; b <= s.length() && start < 0; b++)
+                for (int e = s.length(); e >= b; e--)
+                    if ((e > b || b != noEmpty) && in(a, s, b, e)) {
+                        start = b;
+                        end = e;
+                        break;
+                    }
+            if (start < 0)
+                return l;
+            l.add(new Searcher.Match(start, end));
+            floor = noEmpty = end;
+        }
+    }
+
+    private static void assertSearches(String re, String letters, int seed) throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = parse(re);
+        Searcher<String> searcher = new Searcher<>(a);
+        Random r = new Random(seed);
+        for (int n = 0; n < 200; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = r.nextInt(14);
+            for (int i = 0; i < len; i++)
+                sb.append(letters.charAt(r.nextInt(letters.length())));
+            String s = sb.toString();
+            assertEquals(re + " in " + s, all(a, s), searcher.findAll(s, Searcher.Mode.ALL));
+            assertEquals(re + " in " + s, leftmostLongest(a, s),
+                    searcher.findAll(s, Searcher.Mode.LEFTMOST_LONGEST));
+        }
+    }
+
+    public void testAgainstBruteForce() throws Exception {
+        assertSearches("ab", "abx", 1);
+        assertSearches("a(b+c)*d", "abcdx", 2);
+        assertSearches("(ab+c)*a(b+cd)*", "abcd", 3);
+        assertSearches("a*", "ab", 4);
+        assertSearches("abcd+bc", "abcdx", 5);
+    }
+
+    public void testLeftmostLongest() throws Exception {
+        Searcher<String> s = new Searcher<>(parse("abcd+bc"));
+        /* the leftmost match wins even though bc ends first */
+        assertEquals(Arrays.asList(new Searcher.Match(0, 4), new Searcher.Match(5, 7)),
+                s.findAll("abcdabc", Searcher.Mode.LEFTMOST_LONGEST));
+        Searcher<String> star = new Searcher<>(parse("a*"));
+        assertEquals(Arrays.asList(new Searcher.Match(0, 2), new Searcher.Match(3, 3)),
+                star.findAll("aab", Searcher.Mode.LEFTMOST_LONGEST));
+    }
+
+    public void testReaderAndCodePoints() throws Exception {
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, 'x', q));
+        a.addTransition(new Transition<>(q, 'y', q));
+        Searcher<Character> s = new Searcher<>(a);
+        StringBuilder sb = new StringBuilder();
+        List<Searcher.Match> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("\ud83d\ude00");
+            expected.add(new Searcher.Match(sb.length(), sb.length() + 3));
+            sb.append("xyy");
+        }
+        String text = sb.toString();
+        assertEquals(expected, s.findAll(text, Searcher.Mode.LEFTMOST_LONGEST));
+        final List<Searcher.Match> found = new ArrayList<>();
+        s.search(new StringReader(text), Searcher.Mode.LEFTMOST_LONGEST, new Searcher.Listener() {
+            public void match(long start, long end) {
+                found.add(new Searcher.Match(start, end));
+            }
+        });
+        assertEquals(expected, found);
+    }
+
+    public void testLabels() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, false);
+        State r = a.addState(false, true);
+        a.addTransition(new Transition<>(p, "open", q));
+        a.addTransition(new Transition<>(q, "read", q));
+        a.addTransition(new Transition<>(q, "close", r));
+        Searcher<String> s = new Searcher<>(a);
+        List<String> trace = Arrays.asList("open", "read", "close", "open", "write", "close", "open", "close");
+        assertEquals(Arrays.asList(new Searcher.Match(0, 3), new Searcher.Match(6, 8)),
+                s.findAll(trace.iterator(), Searcher.Mode.LEFTMOST_LONGEST));
+        assertEquals(Arrays.asList(new Searcher.Match(0, 3), new Searcher.Match(6, 8)),
+                s.findAll(trace.iterator(), Searcher.Mode.ALL));
+        try {
+            s.findAll("open", Searcher.Mode.ALL);
+            fail("labels are not characters");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    public void testWindow() throws Exception {
+        Searcher<String> s = new Searcher<>(parse("ab*c"), 4);
+        StringBuilder sb = new StringBuilder("xabbcx");
+        sb.append('a');
+        for (int i = 0; i < 100; i++)
+            sb.append('b');
+        sb.append("cabc");
+        /* the long match is not reported */
+        assertEquals(Arrays.asList(new Searcher.Match(1, 5), new Searcher.Match(108, 111)),
+                s.findAll(sb, Searcher.Mode.ALL));
+        assertEquals(Arrays.asList(new Searcher.Match(1, 5), new Searcher.Match(108, 111)),
+                s.findAll(sb, Searcher.Mode.LEFTMOST_LONGEST));
+    }
+
+    public void testLongRun() throws Exception {
+        /* one pass: candidates are extended without scanning back */
+        Searcher<String> s = new Searcher<>(parse("a*"));
+        int n = 1000000, w = 1 << 16;
+        StringBuilder sb = new StringBuilder(n + 1);
+        for (int i = 0; i < n; i++)
+            sb.append('a');
+        sb.append('b');
+        List<Searcher.Match> expected = new ArrayList<>();
+        for (int b = 0; b < n; b += w)
+            expected.add(new Searcher.Match(b, Math.min(n, b + w)));
+        expected.add(new Searcher.Match(n + 1, n + 1));
+        assertEquals(expected, s.findAll(sb, Searcher.Mode.LEFTMOST_LONGEST));
+    }
+}
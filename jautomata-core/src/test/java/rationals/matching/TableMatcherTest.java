@@ -0,0 +1,157 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.matching;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.CharAutomaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+import rationals.symbolic.IntervalSet;
+import rationals.transformations.ToDFA;
+
+/**
+ * @version $Id$
+ */
+public class TableMatcherTest extends TestCase {
+
+    private static void assertSameLanguage(CharAutomaton c, TableMatcher m, String alphabet, int seed) {
+        Random r = new Random(seed);
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = r.nextInt(8);
+            for (int i = 0; i < len; i++)
+                sb.append(alphabet.charAt(r.nextInt(alphabet.length())));
+            String w = sb.toString();
+            assertEquals(w, c.matches(w), m.matches(w));
+            assertEquals(w, c.longestPrefix(w), m.longestPrefix(w));
+            int[] cps = new int[w.codePointCount(0, w.length())];
+            for (int i = 0, j = 0; i < w.length(); i += Character.charCount(cps[j++]))
+                cps[j] = w.codePointAt(i);
+            assertEquals(w, c.matches(cps), m.matches(cps));
+            assertEquals(w, c.longestPrefix(cps), m.longestPrefix(cps));
+        }
+    }
+
+    public void testDeterministic() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("(ab+c)*a(b+cd)*");
+        a = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        CharAutomaton c = CharAutomaton.of(a);
+        TableMatcher m = TableMatcher.compile(a);
+        assertEquals(c.stateCount(), m.stateCount());
+        assertTrue(m.matches("abcab"));
+        assertTrue(!m.matches("acb"));
+        assertEquals(4, m.longestPrefix("abcdc"));
+        assertSameLanguage(c, m, "abcdx", 3);
+    }
+
+    public void testDeterminizes() throws NoSuchStateException {
+        /* words containing abb */
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, false);
+        State r = a.addState(false, false);
+        State s = a.addState(false, true);
+        for (char l : new char[] { 'a', 'b' }) {
+            a.addTransition(new Transition<>(p, l, p));
+            a.addTransition(new Transition<>(s, l, s));
+        }
+        a.addTransition(new Transition<>(p, 'a', q));
+        a.addTransition(new Transition<>(q, 'b', r));
+        a.addTransition(new Transition<>(r, 'b', s));
+        CharAutomaton c = CharAutomaton.of(a);
+        assertTrue(!c.isDeterministic());
+        TableMatcher m = TableMatcher.compile(c);
+        assertTrue(m.matches("babba"));
+        assertTrue(!m.matches("babab"));
+        assertEquals(6, m.longestPrefix("aabbab"));
+        assertSameLanguage(c, m, "ab", 11);
+    }
+
+    public void testClasses() throws NoSuchStateException {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, IntervalSet.range('a', 'z'), q));
+        a.addTransition(new Transition<>(q, IntervalSet.range('0', '9'), q));
+        a.addTransition(new Transition<>(q, IntervalSet.range(0x10000, 0x10FFFF), p));
+        TableMatcher m = TableMatcher.compile(a);
+        /* below '0', digits, between, letters, after 'z', astral, beyond */
+        assertEquals(7, m.classCount());
+        assertEquals(m.classOf('a'), m.classOf('q'));
+        assertEquals(m.classOf('0'), m.classOf('9'));
+        assertTrue(m.classOf('a') != m.classOf('0'));
+        assertEquals(m.classOf(0x10000), m.classOf(0x10FFFF));
+        assertEquals(m.classOf('{'), m.classOf(0x4e00));
+        assertTrue(m.matches("x42\ud83d\ude00y"));
+        assertTrue(!m.matches("x42\ud83d\ude00"));
+        assertEquals(3, m.longestPrefix("x42\ud83d\ude00"));
+        int q0 = m.initial();
+        assertTrue(m.isAccepting(m.step(q0, 'k')));
+        assertEquals(-1, m.step(q0, '0'));
+        assertSameLanguage(CharAutomaton.of(a), m, "az09!\u4e00\ud83d\ude00", 5);
+    }
+
+    public void testOutOfRangeValues() throws NoSuchStateException {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, IntervalSet.range(0, 'z'), q));
+        a.addTransition(new Transition<>(q, IntervalSet.range(0x10000, Character.MAX_CODE_POINT), q));
+        CharAutomaton c = CharAutomaton.of(a);
+        TableMatcher m = TableMatcher.compile(c);
+        Matcher d = DFACompiler.compile(c);
+        int[][] words = { { -1 }, { 0x110000 }, { Integer.MIN_VALUE }, { Integer.MAX_VALUE }, { 0 }, { 'a', 0x10FFFF },
+                { 'a', 0x110000 }, { 'a', -1 } };
+        for (int[] w : words) {
+            assertEquals(c.matches(w), m.matches(w));
+            assertEquals(c.matches(w), d.matches(w));
+            assertEquals(c.longestPrefix(w), m.longestPrefix(w));
+            assertEquals(c.longestPrefix(w), d.longestPrefix(w));
+        }
+        assertTrue(!m.matches(new int[] { -1 }));
+        assertTrue(!m.matches(new int[] { 0x110000 }));
+        assertEquals(-1, m.step(m.initial(), -1));
+        assertEquals(-1, m.step(m.initial(), 0x110000));
+    }
+
+    public void testFullIntRange() throws NoSuchStateException {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> a = new Automaton<>();
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, IntervalSet.range(Integer.MIN_VALUE, Integer.MAX_VALUE), q));
+        TableMatcher m = TableMatcher.compile(a);
+        assertEquals(1, m.classCount());
+        assertTrue(m.matches(new int[] { Integer.MIN_VALUE }));
+        assertTrue(m.matches(new int[] { Integer.MAX_VALUE }));
+        assertTrue(!m.matches(new int[] { 0, 0 }));
+    }
+
+    public void testEmptyLanguage() {
+        TableMatcher m = TableMatcher.compile(new Automaton<String, Transition<String>, TransitionBuilder<String>>());
+        assertEquals(-1, m.initial());
+        assertTrue(!m.matches(""));
+        assertTrue(!m.matches(new int[] { 'a' }));
+        assertEquals(-1, m.longestPrefix("a"));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class IntervalSetTest extends TestCase {
+
+    public void testUnionIsCanonical() {
+        IntervalSet s = IntervalSet.range('a', 'f').union(IntervalSet.range('g', 'k')).union(IntervalSet.point('z'));
+        assertEquals(2, s.rangeCount());
+        assertEquals('a', s.lower(0));
+        assertEquals('k', s.upper(0));
+        assertEquals(IntervalSet.range('a', 'k').union(IntervalSet.point('z')), s);
+        assertEquals(IntervalSet.of("zabcdefghijk"), s);
+    }
+
+    public void testIntersection() {
+        IntervalSet s = IntervalSet.range(0, 10).union(IntervalSet.range(20, 30));
+        IntervalSet t = IntervalSet.range(5, 25);
+        assertEquals(IntervalSet.range(5, 10).union(IntervalSet.range(20, 25)), s.intersection(t));
+        assertTrue(s.intersection(IntervalSet.range(11, 19)).isEmpty());
+    }
+
+    public void testComplement() {
+        IntervalSet s = IntervalSet.range(Integer.MIN_VALUE, -1).union(IntervalSet.point(5));
+        assertEquals(IntervalSet.range(0, 4).union(IntervalSet.range(6, Integer.MAX_VALUE)),
+                s.complement(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertTrue(IntervalSet.range(0, 9).complement(0, 9).isEmpty());
+        assertEquals(IntervalSet.range(0, 9), IntervalSet.EMPTY.complement(0, 9));
+    }
+
+    public void testContains() {
+        IntervalSet s = IntervalSet.of("aeiou").union(IntervalSet.range('0', '9'));
+        assertTrue(s.contains('e'));
+        assertTrue(s.contains('5'));
+        assertTrue(!s.contains('b'));
+        assertTrue(!s.contains(Integer.MAX_VALUE));
+    }
+
+    public void testAlgebra() {
+        IntervalAlgebra alg = IntervalAlgebra.CHARS;
+        IntervalSet digits = IntervalSet.range('0', '9');
+        assertEquals(alg.top(), alg.or(digits, alg.not(digits)));
+        assertTrue(!alg.isSatisfiable(alg.and(digits, alg.not(digits))));
+        assertTrue(alg.contains(digits, (int) '3'));
+        assertTrue(!alg.contains(alg.top(), 0x10000));
+    }
+}
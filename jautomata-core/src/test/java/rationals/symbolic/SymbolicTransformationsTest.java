@@ -0,0 +1,133 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.symbolic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+/**
+ * @version $Id$
+ */
+public class SymbolicTransformationsTest extends TestCase {
+
+    private static final IntervalAlgebra ALG = IntervalAlgebra.CODE_POINTS;
+
+    private static final IntervalSet LOWER = IntervalSet.range('a', 'z');
+
+    private static final IntervalSet HEX = IntervalSet.range('a', 'f').union(IntervalSet.range('0', '9'));
+
+    private static final IntervalSet DIGITS = IntervalSet.range('0', '9');
+
+    /* [a-z]*[a-f0-9][0-9], nondeterministic on a-f */
+    private Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> a;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, false);
+        State s2 = a.addState(false, true);
+        a.addTransition(new Transition<>(s0, LOWER, s0));
+        a.addTransition(new Transition<>(s0, HEX, s1));
+        a.addTransition(new Transition<>(s1, DIGITS, s2));
+    }
+
+    private static List<Integer> word(String s) {
+        List<Integer> w = new ArrayList<>();
+        for (int i = 0; i < s.length(); i++)
+            w.add((int) s.charAt(i));
+        return w;
+    }
+
+    private boolean accept(Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> b, String s) {
+        return SymbolicToolBox.accept(b, ALG, word(s));
+    }
+
+    private static final String[] WORDS = { "", "a", "a1", "xyzc4", "14", "41", "zz1", "g1", "abc", "ab12", "\u00e91" };
+
+    public void testDeterminize() {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> d = new SymbolicToDFA<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>>(
+                ALG).transform(a);
+        assertTrue(!SymbolicToolBox.isDeterministic(a, ALG));
+        assertTrue(SymbolicToolBox.isDeterministic(d, ALG));
+        for (String w : WORDS)
+            assertEquals(w, accept(a, w), accept(d, w));
+        assertTrue(accept(d, "xyzc4"));
+        assertTrue(!accept(d, "zz1"));
+    }
+
+    public void testComplement() {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> c = new SymbolicComplement<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>>(
+                ALG).transform(a);
+        for (String w : WORDS)
+            assertEquals(w, !accept(a, w), accept(c, w));
+        assertTrue(accept(c, "\u4e2d\u6587"));
+    }
+
+    public void testMix() throws NoSuchStateException {
+        /* words of even length over [0-9a-c] */
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> b = new Automaton<>();
+        State p = b.addState(true, true);
+        State q = b.addState(false, false);
+        IntervalSet l = IntervalSet.range('0', '9').union(IntervalSet.range('a', 'c'));
+        b.addTransition(new Transition<>(p, l, q));
+        b.addTransition(new Transition<>(q, l, p));
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> m = new SymbolicMix<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>>(
+                ALG).transform(a, b);
+        for (String w : WORDS)
+            assertEquals(w, accept(a, w) && accept(b, w), accept(m, w));
+        assertTrue(accept(m, "ab12"));
+        assertTrue(!accept(m, "xyc4"));
+    }
+
+    public void testMinimize() throws NoSuchStateException {
+        /* add a redundant copy of s1 */
+        State s0 = a.initials().iterator().next();
+        State s3 = a.addState(false, false);
+        State s4 = a.addState(false, true);
+        a.addTransition(new Transition<>(s0, IntervalSet.range('0', '9'), s3));
+        a.addTransition(new Transition<>(s3, DIGITS, s4));
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> r = new SymbolicReducer<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>>(
+                ALG).transform(a);
+        for (String w : WORDS)
+            assertEquals(w, accept(a, w), accept(r, w));
+        assertTrue(SymbolicToolBox.isDeterministic(r, ALG));
+        /* states: [a-z]* loop, after [a-f], after [0-9], after [a-f][0-9], final */
+        assertEquals(5, r.states().size());
+        assertTrue(r.delta().size() < 12);
+    }
+
+    public void testUnicodeRangeIsOneTransition() throws NoSuchStateException {
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> b = new Automaton<>();
+        State p = b.addState(true, false);
+        State q = b.addState(false, true);
+        b.addTransition(new Transition<>(p, ALG.top(), q));
+        b.addTransition(new Transition<>(p, IntervalSet.range(0x4e00, 0x9fff), q));
+        Automaton<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>> r = new SymbolicReducer<IntervalSet, Transition<IntervalSet>, TransitionBuilder<IntervalSet>>(
+                ALG).transform(b);
+        assertEquals(2, r.states().size());
+        assertEquals(1, r.delta().size());
+        assertTrue(accept(r, "\ud83d"));
+    }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import junit.framework.TestCase;
 import rationals.Automaton;
+import rationals.DefaultSynchronization;
 import rationals.converters.ConverterException;
 import rationals.converters.Expression;
 import rationals.converters.ToRExpression;
@@ -94,4 +95,17 @@ public class MixTest extends TestCase {
         assertTrue(new isEmpty().test(c));
     }
 
+    public void testMixSharedSymbolsWithCustomSynchronization() throws ConverterException {
+        Automaton a = new Expression().fromString("ab");
+        Automaton b = a.clone(a.symbols());
+        assertSame(a.symbols(), b.symbols());
+        assertTrue(new Mix().transform(a, b).accept(makeList("ab")));
+        Automaton c = new Mix(new DefaultSynchronization() {
+            public Object synchronize(Object t1, Object t2) {
+                return null;
+            }
+        }).transform(a, b);
+        assertTrue(new isEmpty().test(c));
+    }
+
 }
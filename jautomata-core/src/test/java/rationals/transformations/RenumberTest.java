@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.BitSetStateFactory;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+
+/**
+ * @version $Id$
+ */
+public class RenumberTest extends TestCase {
+
+    private static final Renumber.Order[] ORDERS = Renumber.Order.values();
+
+    /*
+     * a chain 0 -a-> 1 -b-> ... -> n-1 with states created in shuffled order
+     */
+    private static Automaton<String, Transition<String>, TransitionBuilder<String>> shuffledChain(int n)
+            throws Exception {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            order.add(i);
+        Collections.shuffle(order, new Random(42));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] st = new State[n];
+        for (int i : order)
+            st[i] = a.addState(i == 0, i == n - 1);
+        for (int i = 0; i + 1 < n; i++)
+            a.addTransition(new Transition<>(st[i], i % 2 == 0 ? "a" : "b", st[i + 1]));
+        a.addTransition(new Transition<>(st[n - 1], "c", st[0]));
+        return a;
+    }
+
+    private static void assertSameLanguage(Automaton<String, Transition<String>, TransitionBuilder<String>> a,
+            Automaton<String, Transition<String>, TransitionBuilder<String>> b, String letters) {
+        Random r = new Random(7);
+        for (int n = 0; n < 500; n++) {
+            List<String> w = new ArrayList<>();
+            int len = r.nextInt(12);
+            for (int i = 0; i < len; i++)
+                w.add(String.valueOf(letters.charAt(r.nextInt(letters.length()))));
+            assertEquals(w.toString(), a.accept(w), b.accept(w));
+        }
+    }
+
+    public void testPreservesLanguageAndSize() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>()
+                .fromString("(ab+c)*a(b+cd)*");
+        a = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        for (Renumber.Order o : ORDERS) {
+            for (boolean sort : new boolean[] { false, true }) {
+                Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Renumber<String, Transition<String>, TransitionBuilder<String>>(
+                        o, sort).transform(a);
+                assertEquals(a.states().size(), b.states().size());
+                assertEquals(a.delta().size(), b.delta().size());
+                assertEquals(a.initials().size(), b.initials().size());
+                assertEquals(a.terminals().size(), b.terminals().size());
+                assertSameLanguage(a, b, "abcd");
+            }
+        }
+    }
+
+    public void testDistanceDecreases() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = shuffledChain(200);
+        double initial = Renumber.averageDistance(a);
+        for (Renumber.Order o : ORDERS) {
+            Renumber<String, Transition<String>, TransitionBuilder<String>> r = new Renumber<>(o);
+            Automaton<String, Transition<String>, TransitionBuilder<String>> b = r.transform(a);
+            assertEquals(initial, r.distanceBefore(), 1e-9);
+            assertEquals(Renumber.averageDistance(b), r.distanceAfter(), 1e-9);
+            assertTrue(o + ": " + r.distanceAfter(), r.distanceAfter() < initial / 10);
+            assertSameLanguage(a, b, "abc");
+        }
+    }
+
+    public void testBreadthFirstNumbering() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = shuffledChain(10);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Renumber<String, Transition<String>, TransitionBuilder<String>>(
+                Renumber.Order.BFS).transform(a);
+        /* the chain is numbered from its initial state */
+        List<State> states = new ArrayList<>(b.states());
+        assertTrue(states.get(0).isInitial());
+        assertTrue(states.get(9).isTerminal());
+        for (int i = 0; i + 1 < 10; i++)
+            assertEquals(1, b.delta(states.get(i), i % 2 == 0 ? "a" : "b").size());
+    }
+
+    public void testSortedLabels() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s = a.addState(true, false);
+        State t = a.addState(false, true);
+        a.addTransition(new Transition<>(s, "z", t));
+        a.addTransition(new Transition<>(s, "m", t));
+        a.addTransition(new Transition<>(s, "b", t));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Renumber<String, Transition<String>, TransitionBuilder<String>>(
+                Renumber.Order.DFS, true).transform(a);
+        assertNotSame(a.symbols(), b.symbols());
+        assertTrue(b.symbols().symbol("b") < b.symbols().symbol("m"));
+        assertTrue(b.symbols().symbol("m") < b.symbols().symbol("z"));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> c = new Renumber<String, Transition<String>, TransitionBuilder<String>>(
+                Renumber.Order.DFS).transform(a);
+        assertNotSame(a.symbols(), c.symbols());
+        assertEquals(a.symbols().symbol("m"), c.symbols().symbol("m"));
+    }
+
+    public void testKeepsStateFactory() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>(
+                new BitSetStateFactory<String, Transition<String>, TransitionBuilder<String>>());
+        State p = a.addState(true, false);
+        State q = a.addState(false, true);
+        a.addTransition(new Transition<>(p, "a", q));
+        a.addTransition(new Transition<>(q, "b", p));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Renumber<String, Transition<String>, TransitionBuilder<String>>(
+                Renumber.Order.BFS).transform(a);
+        assertTrue(b.getStateFactory() instanceof BitSetStateFactory);
+        assertNotSame(a.getStateFactory(), b.getStateFactory());
+        assertSameLanguage(a, b, "ab");
+    }
+
+    public void testEmpty() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        Renumber<String, Transition<String>, TransitionBuilder<String>> r = new Renumber<>(Renumber.Order.RCM);
+        assertTrue(r.transform(a).states().isEmpty());
+        assertEquals(0.0, r.distanceAfter(), 0);
+    }
+}
@@ -62,7 +62,7 @@ public class DotCodec implements StreamEncoder, StreamDecoder {
             pw.println(";");
         }
         /* edges */
-        for(Iterator i = a.delta().iterator();i.hasNext();) {
+        for(Iterator i = a.transitions().iterator();i.hasNext();) {
             Transition tr =(Transition)i.next();
             pw.println(stateLabel(tr.start())+" -> "+ stateLabel(tr.end()) +" [ label=\""+tr.label()+"\" ];");            
         }